@@ -0,0 +1,155 @@
+package route_planner;
+
+import graphs.DGSnapshot;
+import graphs.DirectedGraph;
+import graphs.StronglyConnectedComponents;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the path searches of DirectedGraph on the bundled maps and on synthetic maps of 10^4 to 10^6 junctions
+ * Every invocation searches the next of a fixed, seeded series of start and target junctions,
+ * which are all mutually reachable.
+ * Throughput and latency percentiles are measured in separate modes; BenchmarkRunner adds the allocation rate.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g", "-Xss16m"})
+@State(Scope.Thread)
+public class RoutingBenchmark {
+
+    private static final int NUM_QUERIES = 64;
+
+    /**
+     * the bundled maps by the name of their junctions resource,
+     * or a synthetic map as grid-numJunctions, geometric-numJunctions or network-numJunctions
+     */
+    @Param({"Junctions0", "Junctions",
+            "grid-10000", "grid-100000", "grid-1000000",
+            "geometric-10000", "geometric-100000", "geometric-1000000",
+            "network-10000", "network-100000", "network-1000000"})
+    public String map;
+
+    private RoadMap roadMap;
+    private String[] fromIds;
+    private String[] toIds;
+    private int nextQuery = 0;
+
+    @Setup(Level.Trial)
+    public void loadMap() {
+        RoadMap.reSeedRandomizer(19670427L);
+        if (this.map.startsWith("grid-")) {
+            this.roadMap = buildGrid(Integer.parseInt(this.map.substring(5)));
+        } else if (this.map.startsWith("geometric-")) {
+            this.roadMap = buildGeometric(Integer.parseInt(this.map.substring(10)));
+        } else if (this.map.startsWith("network-")) {
+            this.roadMap = new RoadNetworkGenerator(Integer.parseInt(this.map.substring(8)), 19670427L).generate();
+        } else {
+            this.roadMap = new RoadMap(this.map + ".csv", this.map.replace("Junctions", "Roads") + ".csv");
+        }
+
+        // draw the queries among the junctions of the largest strongly connected component
+        StronglyConnectedComponents<Junction, Road> components = this.roadMap.stronglyConnectedComponents();
+        Object[] candidates = components.getMembers(components.getLargestComponent()).toArray();
+        Random random = new Random(42);
+        this.fromIds = new String[NUM_QUERIES];
+        this.toIds = new String[NUM_QUERIES];
+        for (int q = 0; q < NUM_QUERIES; q++) {
+            this.fromIds[q] = ((Junction)candidates[random.nextInt(candidates.length)]).getId();
+            this.toIds[q] = ((Junction)candidates[random.nextInt(candidates.length)]).getId();
+        }
+    }
+
+    private int nextQuery() {
+        int q = this.nextQuery;
+        this.nextQuery = (q + 1) % NUM_QUERIES;
+        return q;
+    }
+
+    @Benchmark
+    public DirectedGraph<Junction, Road>.DGPath depthFirstSearch() {
+        int q = this.nextQuery();
+        return this.roadMap.depthFirstSearch(this.fromIds[q], this.toIds[q]);
+    }
+
+    @Benchmark
+    public DirectedGraph<Junction, Road>.DGPath breadthFirstSearch() {
+        int q = this.nextQuery();
+        return this.roadMap.breadthFirstSearch(this.fromIds[q], this.toIds[q]);
+    }
+
+    @Benchmark
+    public DirectedGraph<Junction, Road>.DGPath dijkstraShortestPath() {
+        int q = this.nextQuery();
+        return this.roadMap.dijkstraShortestPath(this.fromIds[q], this.toIds[q], Road::getLength);
+    }
+
+    @Benchmark
+    public DirectedGraph<Junction, Road>.DGPath aStarShortestPath() {
+        int q = this.nextQuery();
+        return this.roadMap.aStarShortestPath(this.fromIds[q], this.toIds[q], Road::getLength, Junction::getDistance);
+    }
+
+    @Benchmark
+    public DirectedGraph<Junction, Road>.DGPath dijkstraShortestPathByAStar() {
+        int q = this.nextQuery();
+        return this.roadMap.dijkstraShortestPathByAStar(this.fromIds[q], this.toIds[q], Road::getLength);
+    }
+
+    /**
+     * a square grid of junctions at 1 km apart, with every tenth row and column as a motorway
+     */
+    static RoadMap buildGrid(int numJunctions) {
+        int side = (int)Math.ceil(Math.sqrt(numJunctions));
+        RoadMap roadMap = new RoadMap(side * side);
+        Junction[][] grid = new Junction[side][side];
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                grid[i][j] = addJunction(roadMap, "G" + i + "_" + j, i, 300.0 + j);
+                if (i > 0) addRoads(roadMap, grid[i - 1][j], grid[i][j], j % 10 == 0 ? 100 : 50);
+                if (j > 0) addRoads(roadMap, grid[i][j - 1], grid[i][j], i % 10 == 0 ? 100 : 50);
+            }
+        }
+        return roadMap;
+    }
+
+    /**
+     * a random geometric graph: junctions are spread uniformly over a square of 300 x 300 km,
+     * and every pair of junctions within the radius of an average of 6 neighbours is linked by roads
+     */
+    static RoadMap buildGeometric(int numJunctions) {
+        double size = 300.0;
+        double radius = size * Math.sqrt(6.0 / (Math.PI * numJunctions));
+        RoadMap roadMap = new RoadMap(numJunctions);
+        Random random = new Random(numJunctions);
+        for (int i = 0; i < numJunctions; i++) {
+            addJunction(roadMap, "R" + i, size * random.nextDouble(), 300.0 + size * random.nextDouble());
+        }
+        JunctionIndex index = roadMap.getJunctionIndex();
+        for (Junction junction : roadMap.getVertices().toArray(new Junction[0])) {
+            for (Junction neighbour : index.withinRadius(junction.getLocationX(), junction.getLocationY(), radius)) {
+                // link every pair once, from the junction with the lowest id
+                if (junction.getId().compareTo(neighbour.getId()) < 0) {
+                    addRoads(roadMap, junction, neighbour, random.nextInt(10) == 0 ? 100 : 80);
+                }
+            }
+        }
+        return roadMap;
+    }
+
+    private static Junction addJunction(RoadMap roadMap, String name, double x, double y) {
+        Junction junction = new Junction(name);
+        junction.setLocationX(x);
+        junction.setLocationY(y);
+        return roadMap.addOrGetVertex(junction);
+    }
+
+    private static void addRoads(RoadMap roadMap, Junction a, Junction b, int maxSpeed) {
+        roadMap.addOrGetEdge(new Road("S", a, b, maxSpeed));
+        roadMap.addOrGetEdge(new Road("S", b, a, maxSpeed));
+    }
+}
@@ -0,0 +1,303 @@
+package graphs;
+
+import java.io.*;
+import java.nio.DoubleBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Table of the weights of the shortest paths between all pairs of vertices of a DGSnapshot
+ * The table is a flat double[] of numVertices * numVertices entries, indexed by from * numVertices + to,
+ * where the vertex numbers are the vertex ids of the snapshot.
+ *
+ * Two methods are available:
+ *  - a cache blocked Floyd-Warshall, which processes the table in tiles of BLOCK_SIZE x BLOCK_SIZE entries
+ *    and updates the independent tiles of every phase in parallel; O(n^3), best for dense graphs
+ *  - one dijkstra search per source in parallel; O(n * m log n), best for sparse graphs like road maps.
+ *    Johnson's reweighting is not needed, because the edge weights shall be non-negative.
+ * The table can be saved into a file, and loaded again through a memory mapping without any calculation.
+ * A loaded table is not copied onto the heap, but read from mapped regions of whole rows of at most 2GB each.
+ */
+public class AllPairsShortestPaths {
+
+    public enum Method {
+        /** chooses between FLOYD_WARSHALL and DIJKSTRA by the density of the graph */
+        AUTO,
+        FLOYD_WARSHALL,
+        DIJKSTRA
+    }
+
+    private static final int BLOCK_SIZE = 64;
+    private static final int MAGIC = 0x41505350;     // "APSP"
+    private static final int VERSION = 1;
+    // the largest number of vertices of which the table fits into a single java array
+    public static final int MAX_VERTICES = (int)Math.sqrt(Integer.MAX_VALUE - 8);
+
+    // the largest number of bytes that can be mapped into a single buffer
+    private static final long MAX_REGION_BYTES = Integer.MAX_VALUE;
+
+    private final String[] vertexIds;
+    private final Map<String,Integer> ids;
+    private final double[] table;           // the calculated table, null if the table has been loaded
+    private final DoubleBuffer[] regions;   // the mapped rows of a loaded table, null if the table has been calculated
+    private final int rowsPerRegion;
+    private final Method method;
+
+    private AllPairsShortestPaths(String[] vertexIds, double[] table, Method method) {
+        this(vertexIds, table, null, 0, method);
+    }
+
+    private AllPairsShortestPaths(String[] vertexIds, double[] table, DoubleBuffer[] regions, int rowsPerRegion,
+                                  Method method) {
+        this.vertexIds = vertexIds;
+        this.table = table;
+        this.regions = regions;
+        this.rowsPerRegion = rowsPerRegion;
+        this.method = method;
+        this.ids = new HashMap<>(2 * vertexIds.length);
+        for (int v = 0; v < vertexIds.length; v++) {
+            this.ids.put(vertexIds[v], v);
+        }
+    }
+
+    /**
+     * calculates the table
+     * @param snapshot
+     * @param weights   the non-negative weights of all edges, aligned with the edge ids of the snapshot
+     * @param method
+     * @return
+     * @throws IllegalArgumentException if the snapshot has more than MAX_VERTICES vertices
+     */
+    public static <V extends DGVertex<E>, E extends DGEdge<V>> AllPairsShortestPaths calculate(
+            DGSnapshot<V,E> snapshot, double[] weights, Method method) {
+        int n = snapshot.getNumVertices();
+        int tableSize = tableSize(n);
+        if (method == Method.AUTO) {
+            // floyd-warshall performs n^3 cheap updates, dijkstra about n * m * log(n) more expensive ones
+            double log2n = Math.log(Math.max(n, 2)) / Math.log(2);
+            method = 4.0 * snapshot.getNumEdges() * log2n > (double)n * n ? Method.FLOYD_WARSHALL : Method.DIJKSTRA;
+        }
+
+        double[] table = new double[tableSize];
+        if (method == Method.FLOYD_WARSHALL) {
+            floydWarshall(snapshot, weights, table);
+        } else {
+            IntStream.range(0, n).parallel().forEach(source -> {
+                double[] row = new double[n];
+                snapshot.shortestPathTree(source, weights, false, row, null, null);
+                System.arraycopy(row, 0, table, (int)((long)source * n), n);
+            });
+        }
+
+        String[] vertexIds = new String[n];
+        for (int v = 0; v < n; v++) {
+            vertexIds[v] = snapshot.getVertex(v).getId();
+        }
+        return new AllPairsShortestPaths(vertexIds, table, method);
+    }
+
+    /**
+     * @param n
+     * @return  the number of entries of the table of n vertices
+     * @throws IllegalArgumentException if the table does not fit into a single array
+     */
+    private static int tableSize(long n) {
+        if (n < 0 || n > MAX_VERTICES) {
+            throw new IllegalArgumentException(String.format(
+                    "A table of %d x %d shortest paths exceeds the maximum of %d vertices", n, n, MAX_VERTICES));
+        }
+        return (int)(n * n);
+    }
+
+    private static <V extends DGVertex<E>, E extends DGEdge<V>> void floydWarshall(
+            DGSnapshot<V,E> snapshot, double[] weights, double[] d) {
+        int n = snapshot.getNumVertices();
+        Arrays.fill(d, Double.POSITIVE_INFINITY);
+        for (int v = 0; v < n; v++) {
+            d[v * n + v] = 0.0;
+            for (int e = snapshot.offsets[v]; e < snapshot.offsets[v + 1]; e++) {
+                int index = v * n + snapshot.targets[e];
+                d[index] = Math.min(d[index], weights[e]);
+            }
+        }
+
+        int numBlocks = (n + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        for (int kb = 0; kb < numBlocks; kb++) {
+            final int k = kb;
+            // phase 1: the diagonal tile depends only on itself
+            updateTile(d, n, k, k, k);
+            // phase 2: the tiles in row k and column k depend only on themselves and the diagonal tile
+            IntStream.range(0, numBlocks).parallel().filter(b -> b != k).forEach(b -> {
+                updateTile(d, n, k, b, k);
+                updateTile(d, n, b, k, k);
+            });
+            // phase 3: all other tiles depend only on the tiles in row k and column k
+            IntStream.range(0, numBlocks).parallel().filter(ib -> ib != k).forEach(ib -> {
+                for (int jb = 0; jb < numBlocks; jb++) {
+                    if (jb != k) updateTile(d, n, ib, jb, k);
+                }
+            });
+        }
+    }
+
+    /**
+     * relaxes all paths within tile (ib, jb) via the intermediate vertices of block kb
+     */
+    private static void updateTile(double[] d, int n, int ib, int jb, int kb) {
+        int iEnd = Math.min(n, (ib + 1) * BLOCK_SIZE);
+        int jStart = jb * BLOCK_SIZE;
+        int jEnd = Math.min(n, jStart + BLOCK_SIZE);
+        int kEnd = Math.min(n, (kb + 1) * BLOCK_SIZE);
+        for (int k = kb * BLOCK_SIZE; k < kEnd; k++) {
+            int kRow = k * n;
+            for (int i = ib * BLOCK_SIZE; i < iEnd; i++) {
+                int iRow = i * n;
+                double dik = d[iRow + k];
+                if (dik == Double.POSITIVE_INFINITY) continue;
+                for (int j = jStart; j < jEnd; j++) {
+                    double possibleNewLength = dik + d[kRow + j];
+                    if (possibleNewLength < d[iRow + j]) d[iRow + j] = possibleNewLength;
+                }
+            }
+        }
+    }
+
+    public Method getMethod() {
+        return this.method;
+    }
+
+    public int getNumVertices() {
+        return this.vertexIds.length;
+    }
+
+    public List<String> getVertexIds() {
+        return Collections.unmodifiableList(Arrays.asList(this.vertexIds));
+    }
+
+    /**
+     * @return  the approximate number of bytes of memory that is occupied by the table and its vertex ids,
+     *          including the mapped bytes of a loaded table
+     */
+    public long getMemoryFootprint() {
+        long n = this.vertexIds.length;
+        long bytes = n * n * Double.BYTES;
+        for (String id : this.vertexIds) {
+            // the string, its characters and its entry in the dictionary of vertex ids
+            bytes += 40 + 2L * id.length() + 48;
+        }
+        return bytes;
+    }
+
+    /**
+     * @param fromId
+     * @param toId
+     * @return  the weight of the shortest path, Double.POSITIVE_INFINITY if no path exists
+     *          or either vertex cannot be found
+     */
+    public double getDistance(String fromId, String toId) {
+        Integer from = this.ids.get(fromId);
+        Integer to = this.ids.get(toId);
+        if (from == null || to == null) return Double.POSITIVE_INFINITY;
+        return this.getDistance(from.intValue(), to.intValue());
+    }
+
+    public double getDistance(int from, int to) {
+        if (this.table != null) {
+            return this.table[(int)((long)from * this.vertexIds.length + to)];
+        }
+        return this.regions[from / this.rowsPerRegion].get((from % this.rowsPerRegion) * this.vertexIds.length + to);
+    }
+
+    /**
+     * saves the table into a binary file: magic, version, method, numVertices,
+     * the vertex ids in modified utf-8, followed by the table in big-endian byte order
+     * @param file
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public void save(Path file) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file.toFile()), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(this.method.ordinal());
+            out.writeInt(this.vertexIds.length);
+            for (String id : this.vertexIds) out.writeUTF(id);
+            int n = this.vertexIds.length;
+            for (int from = 0; from < n; from++) {
+                for (int to = 0; to < n; to++) out.writeDouble(this.getDistance(from, to));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * loads a table that has been saved before
+     * The distances are mapped into memory, and are only read from the file when they are retrieved.
+     * @param file
+     * @return
+     * @throws UncheckedIOException if the file cannot be read
+     * @throws IllegalArgumentException if the file does not contain a complete table of a supported version
+     */
+    public static AllPairsShortestPaths load(Path file) {
+        return load(file, MAX_REGION_BYTES);
+    }
+
+    /**
+     * @param maxRegionBytes    the maximum size of every mapped region, which holds one or more whole rows
+     */
+    static AllPairsShortestPaths load(Path file, long maxRegionBytes) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // read the header and the vertex ids, and keep track of the offset of the table
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not an all pairs shortest paths file");
+            }
+            if (in.readInt() != VERSION) {
+                throw new IllegalArgumentException("Unsupported all pairs shortest paths file version");
+            }
+            int ordinal = in.readInt();
+            if (ordinal < 0 || ordinal >= Method.values().length) {
+                throw new IllegalArgumentException("Unknown method " + ordinal + " in all pairs shortest paths file");
+            }
+            Method method = Method.values()[ordinal];
+            int n = in.readInt();
+            long tableBytes = (long)tableSize(n) * Double.BYTES;
+            long tableOffset = 4 * Integer.BYTES;
+            String[] vertexIds = new String[n];
+            for (int v = 0; v < n; v++) {
+                int length = in.readUnsignedShort();
+                byte[] bytes = new byte[2 + length];
+                bytes[0] = (byte)(length >>> 8);
+                bytes[1] = (byte)length;
+                in.readFully(bytes, 2, length);
+                vertexIds[v] = new DataInputStream(new ByteArrayInputStream(bytes)).readUTF();
+                tableOffset += bytes.length;
+            }
+            if (channel.size() - tableOffset != tableBytes) {
+                throw new IllegalArgumentException(String.format(
+                        "The all pairs shortest paths file holds %d bytes of distances instead of %d x %d",
+                        channel.size() - tableOffset, n, n));
+            }
+
+            // map the table in regions of whole rows, the mappings remain valid after the channel has been closed
+            long rowBytes = (long)n * Double.BYTES;
+            int rowsPerRegion = (int)Math.max(1, Math.min(n, maxRegionBytes / Math.max(1, rowBytes)));
+            DoubleBuffer[] regions = new DoubleBuffer[(n + rowsPerRegion - 1) / rowsPerRegion];
+            for (int r = 0; r < regions.length; r++) {
+                int numRows = Math.min(rowsPerRegion, n - r * rowsPerRegion);
+                regions[r] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        tableOffset + r * rowsPerRegion * rowBytes, numRows * rowBytes).asDoubleBuffer();
+            }
+            return new AllPairsShortestPaths(vertexIds, null, regions, rowsPerRegion, method);
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("Truncated all pairs shortest paths file", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
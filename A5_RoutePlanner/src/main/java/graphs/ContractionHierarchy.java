@@ -0,0 +1,492 @@
+package graphs;
+
+import java.util.*;
+
+/**
+ * Contraction Hierarchy of a DGSnapshot for one specific weighting of its edges
+ *
+ * The vertices are contracted one by one in the order of their edge difference
+ * (number of shortcuts needed - number of edges removed + number of contracted neighbours).
+ * Whenever the contraction of vertex v would break the shortest path u -> v -> w between two remaining vertices,
+ * a shortcut arc u -> w is added that represents both arcs via v.
+ * Queries run a bidirectional dijkstra search which only follows arcs towards vertices of higher rank,
+ * and the shortcuts on the resulting path are unpacked again into the original edges of the graph.
+ *
+ * The hierarchy does not follow later changes in the structure or in the weights of the graph.
+ * Queries are thread-safe, every thread uses its own search workspace.
+ */
+public class ContractionHierarchy<V extends DGVertex<E>, E extends DGEdge<V>> {
+
+    // maximum number of vertices to be settled by a witness search
+    // a witness search that stops early can only result in superfluous shortcuts
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    private final DGSnapshot<V,E> snapshot;
+    private final int[] rank;                   // the contraction order of every vertex
+
+    // all arcs, the first numEdges arcs are the original edges of the snapshot, the rest are shortcuts
+    private int numArcs = 0;
+    private int[] arcFrom;
+    private int[] arcTo;
+    private double[] arcWeight;
+    private int[] arcFirst;                     // the first arc that is represented by a shortcut, -1 for original edges
+    private int[] arcSecond;                    // the second arc that is represented by a shortcut, -1 for original edges
+
+    // the upward arcs leaving every vertex, used by the forward search
+    private final int[] upOffsets;
+    private final int[] upArcs;
+    // the downward arcs entering every vertex, used by the backward search
+    private final int[] downOffsets;
+    private final int[] downArcs;
+
+    private final ThreadLocal<QueryWorkspace> workspaces;
+
+    /**
+     * preprocesses the hierarchy
+     * @param snapshot
+     * @param weights   the non-negative weights of all edges, aligned with the edge ids of the snapshot
+     */
+    public ContractionHierarchy(DGSnapshot<V,E> snapshot, double[] weights) {
+        this.snapshot = snapshot;
+        int n = snapshot.getNumVertices();
+        int m = snapshot.getNumEdges();
+
+        int capacity = Math.max(16, 2 * m);
+        this.arcFrom = new int[capacity];
+        this.arcTo = new int[capacity];
+        this.arcWeight = new double[capacity];
+        this.arcFirst = new int[capacity];
+        this.arcSecond = new int[capacity];
+        for (int e = 0; e < m; e++) {
+            this.addArc(snapshot.sources[e], snapshot.targets[e], weights[e], -1, -1);
+        }
+
+        this.rank = new Contractor(n).contract();
+
+        // split all arcs into the upward and downward search graphs
+        this.upOffsets = new int[n + 1];
+        this.downOffsets = new int[n + 1];
+        for (int a = 0; a < this.numArcs; a++) {
+            if (this.rank[this.arcFrom[a]] < this.rank[this.arcTo[a]]) {
+                this.upOffsets[this.arcFrom[a] + 1]++;
+            } else {
+                this.downOffsets[this.arcTo[a] + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            this.upOffsets[v + 1] += this.upOffsets[v];
+            this.downOffsets[v + 1] += this.downOffsets[v];
+        }
+        this.upArcs = new int[this.upOffsets[n]];
+        this.downArcs = new int[this.downOffsets[n]];
+        int[] upNext = Arrays.copyOf(this.upOffsets, n);
+        int[] downNext = Arrays.copyOf(this.downOffsets, n);
+        for (int a = 0; a < this.numArcs; a++) {
+            if (this.rank[this.arcFrom[a]] < this.rank[this.arcTo[a]]) {
+                this.upArcs[upNext[this.arcFrom[a]]++] = a;
+            } else {
+                this.downArcs[downNext[this.arcTo[a]]++] = a;
+            }
+        }
+
+        this.workspaces = ThreadLocal.withInitial(() -> new QueryWorkspace(n));
+    }
+
+    /**
+     * @return  the number of shortcut arcs that have been added by the contraction
+     */
+    public int getNumShortcuts() {
+        return this.numArcs - this.snapshot.getNumEdges();
+    }
+
+    /**
+     * Calculates the edge-weighted shortest path from start to target
+     * @param startId
+     * @param targetId
+     * @return  the shortest path from start to target, along the original edges of the graph
+     *          returns null if either start or target cannot be matched with a vertex in the graph
+     *                          or no path can be found from start to target
+     */
+    public DirectedGraph<V,E>.DGPath shortestPath(String startId, String targetId) {
+        int start = this.snapshot.indexOf(startId);
+        int target = this.snapshot.indexOf(targetId);
+        if (start < 0 || target < 0) return null;
+
+        QueryWorkspace ws = this.workspaces.get();
+        ws.reset();
+        ws.reach(start, true, 0.0, -1);
+        ws.reach(target, false, 0.0, -1);
+
+        double shortest = Double.MAX_VALUE;
+        int meeting = -1;
+
+        while (true) {
+            boolean forwardActive = !ws.forward.isEmpty() && ws.forward.peekKey() < shortest;
+            boolean backwardActive = !ws.backward.isEmpty() && ws.backward.peekKey() < shortest;
+            if (!forwardActive && !backwardActive) break;
+
+            boolean forwardStep = forwardActive &&
+                    (!backwardActive || ws.forward.peekKey() <= ws.backward.peekKey());
+            IndexedMinHeap heap = forwardStep ? ws.forward : ws.backward;
+            int v = heap.poll();
+            double weightSumTo = forwardStep ? ws.forwardWeight[v] : ws.backwardWeight[v];
+
+            //check whether the other search has reached this vertex as well
+            if (ws.isReached(v, !forwardStep)) {
+                double weight = ws.forwardWeight[v] + ws.backwardWeight[v];
+                if (weight < shortest) {
+                    shortest = weight;
+                    meeting = v;
+                }
+            }
+
+            if (forwardStep) {
+                for (int i = this.upOffsets[v]; i < this.upOffsets[v + 1]; i++) {
+                    int a = this.upArcs[i];
+                    ws.relax(this.arcTo[a], true, weightSumTo + this.arcWeight[a], a);
+                }
+            } else {
+                for (int i = this.downOffsets[v]; i < this.downOffsets[v + 1]; i++) {
+                    int a = this.downArcs[i];
+                    ws.relax(this.arcFrom[a], false, weightSumTo + this.arcWeight[a], a);
+                }
+            }
+        }
+
+        // no path found, graph was not connected
+        if (meeting < 0) return null;
+
+        // collect the arcs of the path in the hierarchy and unpack the shortcuts
+        LinkedList<E> pathEdges = new LinkedList<>();
+        for (int v = meeting; v != start; v = this.arcFrom[ws.forwardArc[v]]) {
+            this.unpack(ws.forwardArc[v], pathEdges, true, ws);
+        }
+        for (int v = meeting; v != target; v = this.arcTo[ws.backwardArc[v]]) {
+            this.unpack(ws.backwardArc[v], pathEdges, false, ws);
+        }
+
+        Set<V> visited = new HashSet<>();
+        for (int i = 0; i < ws.numTouched; i++) {
+            visited.add(this.snapshot.getVertex(ws.touched[i]));
+        }
+        return this.snapshot.graph.buildPath(this.snapshot.getVertex(start), pathEdges, shortest, visited);
+    }
+
+    /**
+     * expands an arc into the original edges it represents
+     * @param arc
+     * @param pathEdges the edges are added at the front of this list if atFront, otherwise at the back
+     * @param atFront
+     * @param ws        provides the stack of arcs that remain to be unpacked, which is reused by all queries
+     */
+    private void unpack(int arc, LinkedList<E> pathEdges, boolean atFront, QueryWorkspace ws) {
+        int[] stack = ws.unpackStack;
+        int size = 0;
+        stack[size++] = arc;
+        while (size > 0) {
+            int a = stack[--size];
+            if (this.arcFirst[a] < 0) {
+                // original edges have the same id as their arc
+                if (atFront) pathEdges.addFirst(this.snapshot.getEdge(a));
+                else pathEdges.addLast(this.snapshot.getEdge(a));
+                continue;
+            }
+            if (size + 2 > stack.length) stack = ws.unpackStack = Arrays.copyOf(stack, 2 * stack.length);
+            if (atFront) {
+                // the second half of a shortcut must be added to the front first
+                stack[size++] = this.arcFirst[a];
+                stack[size++] = this.arcSecond[a];
+            } else {
+                stack[size++] = this.arcSecond[a];
+                stack[size++] = this.arcFirst[a];
+            }
+        }
+    }
+
+    private int addArc(int from, int to, double weight, int first, int second) {
+        if (this.numArcs == this.arcFrom.length) {
+            int capacity = 2 * this.numArcs;
+            this.arcFrom = Arrays.copyOf(this.arcFrom, capacity);
+            this.arcTo = Arrays.copyOf(this.arcTo, capacity);
+            this.arcWeight = Arrays.copyOf(this.arcWeight, capacity);
+            this.arcFirst = Arrays.copyOf(this.arcFirst, capacity);
+            this.arcSecond = Arrays.copyOf(this.arcSecond, capacity);
+        }
+        this.arcFrom[this.numArcs] = from;
+        this.arcTo[this.numArcs] = to;
+        this.arcWeight[this.numArcs] = weight;
+        this.arcFirst[this.numArcs] = first;
+        this.arcSecond[this.numArcs] = second;
+        return this.numArcs++;
+    }
+
+    /**
+     * keeps track of the progress of the contraction
+     */
+    private class Contractor {
+        private final int n;
+        private final boolean[] contracted;
+        private final int[] contractedNeighbours;
+        // the arcs leaving and entering every vertex, including shortcuts
+        private final int[][] outArcs;
+        private final int[] outSize;
+        private final int[][] inArcs;
+        private final int[] inSize;
+
+        // witness search workspace
+        private final double[] witnessWeight;
+        private final int[] witnessStamp;
+        private int currentStamp = 0;
+        private final IndexedMinHeap witnessHeap;
+        // the cheapest arc from the contracted vertex to each of its neighbours
+        private final int[] bestOutArc;
+        private final int[] bestOutStamp;
+
+        Contractor(int n) {
+            this.n = n;
+            this.contracted = new boolean[n];
+            this.contractedNeighbours = new int[n];
+            this.outArcs = new int[n][];
+            this.outSize = new int[n];
+            this.inArcs = new int[n][];
+            this.inSize = new int[n];
+            for (int v = 0; v < n; v++) {
+                this.outArcs[v] = new int[4];
+                this.inArcs[v] = new int[4];
+            }
+            for (int a = 0; a < numArcs; a++) {
+                this.register(a);
+            }
+            this.witnessWeight = new double[n];
+            this.witnessStamp = new int[n];
+            this.witnessHeap = new IndexedMinHeap(n);
+            this.bestOutArc = new int[n];
+            this.bestOutStamp = new int[n];
+        }
+
+        /**
+         * contracts all vertices
+         * @return  the rank of every vertex in the contraction order
+         */
+        int[] contract() {
+            int[] rank = new int[n];
+            IndexedMinHeap queue = new IndexedMinHeap(n);
+            for (int v = 0; v < n; v++) {
+                queue.addOrDecrease(v, this.priority(v));
+            }
+
+            int nextRank = 0;
+            while (!queue.isEmpty()) {
+                int v = queue.poll();
+                // priorities of the remaining vertices are updated lazily, when they arrive on top of the queue
+                double priority = this.priority(v);
+                if (!queue.isEmpty() && priority > queue.peekKey()) {
+                    queue.addOrDecrease(v, priority);
+                    continue;
+                }
+                this.contractVertex(v, true);
+                this.contracted[v] = true;
+                rank[v] = nextRank++;
+            }
+            return rank;
+        }
+
+        private double priority(int v) {
+            int removed = 0;
+            for (int i = 0; i < this.inSize[v]; i++) {
+                if (!this.contracted[arcFrom[this.inArcs[v][i]]]) removed++;
+            }
+            for (int i = 0; i < this.outSize[v]; i++) {
+                if (!this.contracted[arcTo[this.outArcs[v][i]]]) removed++;
+            }
+            return this.contractVertex(v, false) - removed + this.contractedNeighbours[v];
+        }
+
+        /**
+         * finds the shortcuts that are needed to contract vertex v
+         * @param v
+         * @param addShortcuts  if false, the shortcuts are only counted
+         * @return  the number of shortcuts
+         */
+        private int contractVertex(int v, boolean addShortcuts) {
+            // select the cheapest outgoing arc to every remaining neighbour
+            int stampOut = this.nextStamp();
+            double maxOutWeight = 0.0;
+            for (int i = 0; i < this.outSize[v]; i++) {
+                int a = this.outArcs[v][i];
+                int w = arcTo[a];
+                if (this.contracted[w] || w == v) continue;
+                if (this.bestOutStamp[w] != stampOut || arcWeight[a] < arcWeight[this.bestOutArc[w]]) {
+                    this.bestOutStamp[w] = stampOut;
+                    this.bestOutArc[w] = a;
+                }
+                maxOutWeight = Math.max(maxOutWeight, arcWeight[a]);
+            }
+
+            int numShortcuts = 0;
+            for (int i = 0; i < this.inSize[v]; i++) {
+                int inArc = this.inArcs[v][i];
+                int u = arcFrom[inArc];
+                if (this.contracted[u] || u == v) continue;
+
+                // find the shortest paths from u that avoid v
+                this.witnessSearch(u, v, arcWeight[inArc] + maxOutWeight);
+
+                for (int j = 0; j < this.outSize[v]; j++) {
+                    int outArc = this.outArcs[v][j];
+                    int w = arcTo[outArc];
+                    if (w == u || this.contracted[w] || w == v || this.bestOutArc[w] != outArc) continue;
+
+                    double viaWeight = arcWeight[inArc] + arcWeight[outArc];
+                    boolean witnessed = this.witnessStamp[w] == this.currentStamp && this.witnessWeight[w] <= viaWeight;
+                    if (!witnessed) {
+                        numShortcuts++;
+                        if (addShortcuts) {
+                            this.register(addArc(u, w, viaWeight, inArc, outArc));
+                        }
+                    }
+                }
+            }
+
+            if (addShortcuts) {
+                for (int i = 0; i < this.inSize[v]; i++) this.contractedNeighbours[arcFrom[this.inArcs[v][i]]]++;
+                for (int i = 0; i < this.outSize[v]; i++) this.contractedNeighbours[arcTo[this.outArcs[v][i]]]++;
+            }
+            return numShortcuts;
+        }
+
+        /**
+         * bounded dijkstra search from source among the remaining vertices, avoiding the excluded vertex
+         * the results are registered in witnessWeight for all vertices with witnessStamp == currentStamp
+         */
+        private void witnessSearch(int source, int excluded, double maxWeight) {
+            this.nextStamp();
+            this.witnessHeap.clear();
+            this.witnessStamp[source] = this.currentStamp;
+            this.witnessWeight[source] = 0.0;
+            this.witnessHeap.addOrDecrease(source, 0.0);
+
+            int settled = 0;
+            while (!this.witnessHeap.isEmpty() && settled++ < WITNESS_SETTLE_LIMIT) {
+                if (this.witnessHeap.peekKey() > maxWeight) break;
+                int x = this.witnessHeap.poll();
+                for (int i = 0; i < this.outSize[x]; i++) {
+                    int a = this.outArcs[x][i];
+                    int y = arcTo[a];
+                    if (y == excluded || this.contracted[y]) continue;
+                    double weight = this.witnessWeight[x] + arcWeight[a];
+                    if (this.witnessStamp[y] != this.currentStamp || weight < this.witnessWeight[y]) {
+                        this.witnessStamp[y] = this.currentStamp;
+                        this.witnessWeight[y] = weight;
+                        this.witnessHeap.addOrDecrease(y, weight);
+                    }
+                }
+            }
+        }
+
+        /**
+         * advances the stamp that is shared by witnessStamp and bestOutStamp,
+         * and clears both arrays when the stamp wraps around, like SearchWorkspace.reset
+         * @return  the new stamp
+         */
+        private int nextStamp() {
+            if (++this.currentStamp == Integer.MAX_VALUE) {
+                Arrays.fill(this.witnessStamp, 0);
+                Arrays.fill(this.bestOutStamp, 0);
+                this.currentStamp = 1;
+            }
+            return this.currentStamp;
+        }
+
+        private void register(int a) {
+            int from = arcFrom[a];
+            int to = arcTo[a];
+            if (this.outSize[from] == this.outArcs[from].length) {
+                this.outArcs[from] = Arrays.copyOf(this.outArcs[from], 2 * this.outSize[from]);
+            }
+            this.outArcs[from][this.outSize[from]++] = a;
+            if (this.inSize[to] == this.inArcs[to].length) {
+                this.inArcs[to] = Arrays.copyOf(this.inArcs[to], 2 * this.inSize[to]);
+            }
+            this.inArcs[to][this.inSize[to]++] = a;
+        }
+    }
+
+    /**
+     * reusable state of both searches of a query
+     * vertices are reset lazily by means of a stamp, such that a query costs nothing for the vertices it does not reach
+     */
+    private static class QueryWorkspace {
+        final double[] forwardWeight;
+        final double[] backwardWeight;
+        final int[] forwardArc;
+        final int[] backwardArc;
+        final int[] forwardStamp;
+        final int[] backwardStamp;
+        int currentStamp = 0;
+        final IndexedMinHeap forward;
+        final IndexedMinHeap backward;
+        // the vertices that have been reached by either search
+        final int[] touched;
+        final boolean[] isTouched;
+        int numTouched = 0;
+        // the arcs that remain to be unpacked into original edges, grown on demand
+        int[] unpackStack = new int[16];
+
+        QueryWorkspace(int n) {
+            this.forwardWeight = new double[n];
+            this.backwardWeight = new double[n];
+            this.forwardArc = new int[n];
+            this.backwardArc = new int[n];
+            this.forwardStamp = new int[n];
+            this.backwardStamp = new int[n];
+            this.forward = new IndexedMinHeap(n);
+            this.backward = new IndexedMinHeap(n);
+            this.touched = new int[n];
+            this.isTouched = new boolean[n];
+        }
+
+        void reset() {
+            if (++this.currentStamp == Integer.MAX_VALUE) {
+                // wrap around, which requires a full reset once every 2^31 queries
+                Arrays.fill(this.forwardStamp, 0);
+                Arrays.fill(this.backwardStamp, 0);
+                this.currentStamp = 1;
+            }
+            this.forward.clear();
+            this.backward.clear();
+            for (int i = 0; i < this.numTouched; i++) {
+                this.isTouched[this.touched[i]] = false;
+            }
+            this.numTouched = 0;
+        }
+
+        boolean isReached(int v, boolean forwards) {
+            return (forwards ? this.forwardStamp[v] : this.backwardStamp[v]) == this.currentStamp;
+        }
+
+        void reach(int v, boolean forwards, double weight, int arc) {
+            if (forwards) {
+                this.forwardStamp[v] = this.currentStamp;
+                this.forwardWeight[v] = weight;
+                this.forwardArc[v] = arc;
+                this.forward.addOrDecrease(v, weight);
+            } else {
+                this.backwardStamp[v] = this.currentStamp;
+                this.backwardWeight[v] = weight;
+                this.backwardArc[v] = arc;
+                this.backward.addOrDecrease(v, weight);
+            }
+            if (!this.isTouched[v]) {
+                this.isTouched[v] = true;
+                this.touched[this.numTouched++] = v;
+            }
+        }
+
+        void relax(int v, boolean forwards, double weight, int arc) {
+            if (!this.isReached(v, forwards) || weight < (forwards ? this.forwardWeight[v] : this.backwardWeight[v])) {
+                this.reach(v, forwards, weight, arc);
+            }
+        }
+    }
+}
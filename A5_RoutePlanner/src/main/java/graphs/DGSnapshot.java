@@ -0,0 +1,727 @@
+package graphs;
+
+import java.util.*;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Immutable compressed sparse row (CSR) snapshot of a DirectedGraph
+ * Vertices are identified by int ids 0 <= v < numVertices, which are assigned in the order of their getId()
+ * Edges are identified by int ids 0 <= e < numEdges, and all outgoing edges of vertex v
+ * have consecutive ids offsets[v] <= e < offsets[v+1], in the iteration order of v.getEdges()
+ * The incoming edges of vertex v are registered by their edge ids in inEdges[inOffsets[v]] ... inEdges[inOffsets[v+1]-1]
+ * Edge weights are kept in separate double[] arrays that are aligned with the edge ids, see compileWeights
+ *
+ * The snapshot does not follow later changes in the structure of the graph it has been taken from
+ */
+public class DGSnapshot<V extends DGVertex<E>, E extends DGEdge<V>> {
+
+    final DirectedGraph<V,E> graph;             // the graph this snapshot has been taken from
+    private final Map<String,Integer> ids;      // dictionary of vertex ids
+    private final Object[] vertices;            // the vertex of every vertex id
+    private final Object[] edges;               // the edge of every edge id
+    final int[] offsets;                        // the first edge id of every vertex, offsets[numVertices] == numEdges
+    final int[] sources;                        // the from vertex id of every edge
+    final int[] targets;                        // the to vertex id of every edge
+    final int[] inOffsets;                      // the first position in inEdges of every vertex
+    final int[] inEdges;                        // the edge ids of all edges, grouped by their to vertex
+    private Map<E,Integer> edgeIds = null;      // dictionary of edge ids, created on first use
+    private StronglyConnectedComponents<V,E> components = null;    // created on first use
+    // the reusable search workspace of every thread that searches this snapshot
+    private final ThreadLocal<SearchWorkspace> workspaces =
+            ThreadLocal.withInitial(() -> new SearchWorkspace(this.getNumVertices()));
+    // the workspace of the backward half of the bidirectional searches of every thread
+    private final ThreadLocal<SearchWorkspace> backwardWorkspaces =
+            ThreadLocal.withInitial(() -> new SearchWorkspace(this.getNumVertices()));
+
+    DGSnapshot(DirectedGraph<V,E> graph) {
+        this.graph = graph;
+
+        // assign the vertex ids in the order of the vertex getId(), such that ties in searches
+        // are broken the same way as in the searches of the DirectedGraph itself
+        List<V> sortedVertices = new ArrayList<>(graph.getVertices());
+        sortedVertices.sort(Comparator.comparing(DGVertex::getId));
+
+        int numVertices = sortedVertices.size();
+        this.vertices = sortedVertices.toArray();
+        this.ids = new HashMap<>(2 * numVertices);
+        int numEdges = 0;
+        for (int v = 0; v < numVertices; v++) {
+            this.ids.put(sortedVertices.get(v).getId(), v);
+            numEdges += sortedVertices.get(v).getEdges().size();
+        }
+
+        this.offsets = new int[numVertices + 1];
+        this.sources = new int[numEdges];
+        this.targets = new int[numEdges];
+        this.edges = new Object[numEdges];
+        int e = 0;
+        for (int v = 0; v < numVertices; v++) {
+            this.offsets[v] = e;
+            for (E edge : sortedVertices.get(v).getEdges()) {
+                this.edges[e] = edge;
+                this.sources[e] = v;
+                this.targets[e] = this.ids.get(edge.getTo().getId());
+                e++;
+            }
+        }
+        this.offsets[numVertices] = e;
+
+        // group the edge ids by their to vertex, for searches along the reversed edges
+        this.inOffsets = new int[numVertices + 1];
+        this.inEdges = new int[numEdges];
+        for (e = 0; e < numEdges; e++) {
+            this.inOffsets[this.targets[e] + 1]++;
+        }
+        for (int v = 0; v < numVertices; v++) {
+            this.inOffsets[v + 1] += this.inOffsets[v];
+        }
+        int[] inNext = Arrays.copyOf(this.inOffsets, numVertices);
+        for (e = 0; e < numEdges; e++) {
+            this.inEdges[inNext[this.targets[e]]++] = e;
+        }
+    }
+
+    public int getNumVertices() {
+        return this.vertices.length;
+    }
+
+    public int getNumEdges() {
+        return this.edges.length;
+    }
+
+    /**
+     * finds the vertex id of the vertex that is identified by the given id
+     * @param id
+     * @return  the vertex id, or -1 if none of the vertices matches the id
+     */
+    public int indexOf(String id) {
+        Integer v = this.ids.get(id);
+        return v != null ? v : -1;
+    }
+
+    /**
+     * finds the edge id of the given edge
+     * @param edge
+     * @return  the edge id, or -1 if the edge is not part of the snapshot
+     */
+    public int indexOfEdge(E edge) {
+        synchronized (this) {
+            if (this.edgeIds == null) {
+                this.edgeIds = new HashMap<>(2 * this.edges.length);
+                for (int e = 0; e < this.edges.length; e++) {
+                    this.edgeIds.put(this.getEdge(e), e);
+                }
+            }
+        }
+        Integer e = this.edgeIds.get(edge);
+        return e != null ? e : -1;
+    }
+
+    /**
+     * @return  the search workspace of the calling thread, which is reused by all its searches on this snapshot
+     */
+    SearchWorkspace getWorkspace() {
+        return this.workspaces.get();
+    }
+
+    /**
+     * @return  the strongly connected components of the snapshot, which are calculated on first use
+     *          and thereafter reject searches between vertices without any path between them in O(1)
+     */
+    public StronglyConnectedComponents<V,E> getComponents() {
+        synchronized (this) {
+            if (this.components == null) {
+                this.components = new StronglyConnectedComponents<>(this);
+            }
+            return this.components;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getVertex(int v) {
+        return (V)this.vertices[v];
+    }
+
+    @SuppressWarnings("unchecked")
+    public E getEdge(int e) {
+        return (E)this.edges[e];
+    }
+
+    /**
+     * calculates the weight of all edges in the snapshot
+     * @param weightMapper    provides a function, by which the weight of an edge can be retrieved or calculated
+     * @return  the weights of all edges, aligned with the edge ids
+     */
+    public double[] compileWeights(ToDoubleFunction<E> weightMapper) {
+        double[] weights = new double[this.edges.length];
+        for (int e = 0; e < weights.length; e++) {
+            weights[e] = weightMapper.applyAsDouble(this.getEdge(e));
+        }
+        return weights;
+    }
+
+    /**
+     * Uses a depth-first search algorithm to find a path from the start vertex to the target vertex
+     * Visits the vertices in the same order as DirectedGraph.depthFirstSearch, but without recursion
+     * @param startId
+     * @param targetId
+     * @return  the path from start to target, with all vertices that have been visited
+     *          returns null if either start or target cannot be matched with a vertex in the graph
+     *                          or no path can be found from start to target
+     */
+    public DirectedGraph<V,E>.DGPath depthFirstSearch(String startId, String targetId) {
+        return this.depthFirstSearch(startId, targetId, true);
+    }
+
+    /**
+     * Uses a depth-first search algorithm to find a path from the start vertex to the target vertex
+     * @param startId
+     * @param targetId
+     * @param reportVisited if false, the visited vertices are not registered with the path
+     * @return  the path from start to target
+     *          returns null if either start or target cannot be matched with a vertex in the graph
+     *                          or no path can be found from start to target
+     */
+    public DirectedGraph<V,E>.DGPath depthFirstSearch(String startId, String targetId, boolean reportVisited) {
+        int start = this.indexOf(startId);
+        int target = this.indexOf(targetId);
+        if (start < 0 || target < 0) return null;
+        int[] pathEdges = this.depthFirstSearch(start, target);
+        return pathEdges != null ? this.buildPath(start, pathEdges, reportVisited) : null;
+    }
+
+    /**
+     * depth-first search on vertex ids, with an explicit stack and epoch stamped visited state in the
+     * workspace of the calling thread, such that a search allocates nothing but its result
+     * @param start
+     * @param target
+     * @return  the edge ids of the path from start to target, null if no path can be found
+     */
+    public int[] depthFirstSearch(int start, int target) {
+        SearchStats stats = SearchStats.start(this.graph.getSearchListener(), "SnapshotDFS", null);
+        return SearchStats.complete(stats, this.depthFirstSearch(start, target, stats));
+    }
+
+    private int[] depthFirstSearch(int start, int target, SearchStats stats) {
+        if (!this.getComponents().mayReach(start, target)) return null;
+        SearchWorkspace ws = this.getWorkspace();
+        ws.reset();
+        int[] stack = ws.stack;
+        int[] nextEdge = ws.nextEdge;
+        int stackSize = 0;
+
+        ws.visit(start, -1);
+        nextEdge[start] = this.offsets[start];
+        stack[stackSize++] = start;
+        if (stats != null) stats.numSettled++;
+
+        while (stackSize > 0) {
+            int v = stack[stackSize - 1];
+            if (v == target) {
+                return this.pathEdges(start, target, ws);
+            }
+            if (nextEdge[v] < this.offsets[v + 1]) {
+                //explore the next edge of the vertex on top of the stack
+                int e = nextEdge[v]++;
+                int w = this.targets[e];
+                if (stats != null) stats.numRelaxed++;
+                if (!ws.isReached(w)) {
+                    ws.visit(w, e);
+                    nextEdge[w] = this.offsets[w];
+                    stack[stackSize++] = w;
+                    if (stats != null) stats.numSettled++;
+                }
+            } else {
+                //all edges of this vertex have been explored, backtrack
+                stackSize--;
+            }
+        }
+
+        // no path found, graph was not connected
+        return null;
+    }
+
+    /**
+     * Uses a breadth-first search algorithm to find a path from the start vertex to the target vertex
+     * with the minimum number of edges
+     * @param startId
+     * @param targetId
+     * @return  the path from start to target, with all vertices that have been visited
+     *          returns null if either start or target cannot be matched with a vertex in the graph
+     *                          or no path can be found from start to target
+     */
+    public DirectedGraph<V,E>.DGPath breadthFirstSearch(String startId, String targetId) {
+        return this.breadthFirstSearch(startId, targetId, true);
+    }
+
+    /**
+     * Uses a breadth-first search algorithm to find a path from the start vertex to the target vertex
+     * with the minimum number of edges
+     * @param startId
+     * @param targetId
+     * @param reportVisited if false, the visited vertices are not registered with the path
+     * @return  the path from start to target
+     *          returns null if either start or target cannot be matched with a vertex in the graph
+     *                          or no path can be found from start to target
+     */
+    public DirectedGraph<V,E>.DGPath breadthFirstSearch(String startId, String targetId, boolean reportVisited) {
+        int start = this.indexOf(startId);
+        int target = this.indexOf(targetId);
+        if (start < 0 || target < 0) return null;
+        int[] pathEdges = this.breadthFirstSearch(start, target);
+        return pathEdges != null ? this.buildPath(start, pathEdges, reportVisited) : null;
+    }
+
+    /**
+     * breadth-first search on vertex ids, with epoch stamped visited state in the workspace of the calling thread
+     * the list of reached vertices of the workspace serves as the queue
+     * @param start
+     * @param target
+     * @return  the edge ids of the path from start to target, null if no path can be found
+     */
+    public int[] breadthFirstSearch(int start, int target) {
+        SearchStats stats = SearchStats.start(this.graph.getSearchListener(), "SnapshotBFS", null);
+        return SearchStats.complete(stats, this.breadthFirstSearch(start, target, stats));
+    }
+
+    private int[] breadthFirstSearch(int start, int target, SearchStats stats) {
+        if (!this.getComponents().mayReach(start, target)) return null;
+        SearchWorkspace ws = this.getWorkspace();
+        ws.reset();
+        ws.visit(start, -1);
+
+        for (int head = 0; head < ws.getNumReached(); head++) {
+            int v = ws.getReached(head);
+            if (v == target) {
+                return this.pathEdges(start, target, ws);
+            }
+            if (stats != null) stats.numSettled++;
+            for (int e = this.offsets[v]; e < this.offsets[v + 1]; e++) {
+                int w = this.targets[e];
+                if (stats != null) stats.numRelaxed++;
+                if (!ws.isReached(w)) {
+                    ws.visit(w, e);
+                    //the target has been found, it will be taken from the queue in due course
+                    if (w == target) break;
+                }
+            }
+        }
+
+        // no path found, graph was not connected
+        return null;
+    }
+
+    /**
+     * @return  the edge ids of the path to target, following the parent edges in the workspace back to start
+     */
+    private int[] pathEdges(int start, int target, SearchWorkspace ws) {
+        int numEdges = 0;
+        for (int v = target; v != start; v = this.sources[ws.getParentEdge(v)]) numEdges++;
+        int[] pathEdges = new int[numEdges];
+        for (int v = target; v != start; v = this.sources[ws.getParentEdge(v)]) {
+            pathEdges[--numEdges] = ws.getParentEdge(v);
+        }
+        return pathEdges;
+    }
+
+    /**
+     * assembles the result path of a traversal, with the number of edges as its weight
+     * @param start
+     * @param pathEdges
+     * @param reportVisited if true, the vertices that have been reached by the traversal are registered as visited
+     */
+    private DirectedGraph<V,E>.DGPath buildPath(int start, int[] pathEdges, boolean reportVisited) {
+        LinkedList<E> edges = new LinkedList<>();
+        for (int e : pathEdges) edges.add(this.getEdge(e));
+        Set<V> visited = new HashSet<>();
+        if (reportVisited) {
+            SearchWorkspace ws = this.getWorkspace();
+            for (int i = 0; i < ws.getNumReached(); i++) {
+                visited.add(this.getVertex(ws.getReached(i)));
+            }
+        }
+        return this.graph.buildPath(this.getVertex(start), edges, pathEdges.length, visited);
+    }
+
+    /**
+     * Calculates the edge-weighted shortest path from start to target
+     * @param startId
+     * @param targetId
+     * @param weights   the weights of all edges, aligned with the edge ids, see compileWeights
+     * @return  the shortest path from start to target
+     *          returns null if either start or target cannot be matched with a vertex in the graph
+     *                          or no path can be found from start to target
+     */
+    public DirectedGraph<V,E>.DGPath dijkstraShortestPath(String startId, String targetId, double[] weights) {
+        return this.aStarShortestPath(startId, targetId, weights, null);
+    }
+
+    /**
+     * Calculates the edge-weighted shortest path from start to target
+     * Uses a minimum distance heuristic from any vertex to the target
+     * in order to reduce the number of visited vertices during the search
+     * @param startId
+     * @param targetId
+     * @param weights   the weights of all edges, aligned with the edge ids, see compileWeights
+     * @param minimumWeightEstimator provides a function, by which a lower bound of the cumulative weight
+     *                        between two vertices can be calculated.
+     *                        if null, no heuristic is applied and the search is a plain dijkstra search
+     * @return  the shortest path from start to target
+     *          returns null if either start or target cannot be matched with a vertex in the graph
+     *                          or no path can be found from start to target
+     */
+    public DirectedGraph<V,E>.DGPath aStarShortestPath(String startId, String targetId, double[] weights,
+                                                        ToDoubleBiFunction<V,V> minimumWeightEstimator) {
+        SearchStats stats = SearchStats.start(this.graph.getSearchListener(),
+                minimumWeightEstimator != null ? "SnapshotAStar" : "SnapshotDijkstra", weights);
+        return SearchStats.complete(stats, this.aStarShortestPath(startId, targetId, weights, minimumWeightEstimator, stats));
+    }
+
+    private DirectedGraph<V,E>.DGPath aStarShortestPath(String startId, String targetId, double[] weights,
+                                                         ToDoubleBiFunction<V,V> minimumWeightEstimator, SearchStats stats) {
+        int start = this.indexOf(startId);
+        int target = this.indexOf(targetId);
+        if (start < 0 || target < 0) return null;
+        SearchWorkspace ws = this.getWorkspace();
+        if (!this.shortestPathSearch(start, target, weights, minimumWeightEstimator, ws, stats)) return null;
+
+        LinkedList<E> pathEdges = new LinkedList<>();
+        for (int e : this.pathEdges(start, target, ws)) pathEdges.add(this.getEdge(e));
+        return this.buildPath(start, pathEdges, ws.getWeight(target), ws);
+    }
+
+    /**
+     * early-exit A* search from start on the workspace, which stops as soon as the target has been marked
+     * without an estimator, this is a plain dijkstra search
+     * only the vertices that are reached by the search are touched, and nothing is allocated
+     * @param start
+     * @param target
+     * @param weights   the non-negative weights of all edges, aligned with the edge ids
+     * @param minimumWeightEstimator    optional
+     * @param ws        the workspace of the search, which is reset first
+     * @param stats     optional, receives the work done by the search
+     * @return  true if the target has been reached, the path is available in the workspace
+     */
+    boolean shortestPathSearch(int start, int target, double[] weights,
+                               ToDoubleBiFunction<V,V> minimumWeightEstimator, SearchWorkspace ws, SearchStats stats) {
+        if (start < 0 || target < 0 || !this.getComponents().mayReach(start, target)) return false;
+        ws.reset();
+        long numHeapOperations = ws.frontier.getNumOperations();
+        V targetVertex = this.getVertex(target);
+        double estimate = this.estimate(minimumWeightEstimator, start, targetVertex, stats);
+        ws.reach(start, 0.0, -1, estimate);
+        ws.setEstimate(start, estimate);
+
+        while (!ws.frontier.isEmpty()) {
+            int v = ws.frontier.poll();
+            ws.mark(v);
+            if (v == target) {
+                if (stats != null) stats.numHeapOperations = ws.frontier.getNumOperations() - numHeapOperations;
+                return true;
+            }
+            if (stats != null) stats.numSettled++;
+
+            double weightSumTo = ws.getWeight(v);
+            for (int e = this.offsets[v]; e < this.offsets[v + 1]; e++) {
+                int w = this.targets[e];
+                if (stats != null) stats.numRelaxed++;
+                if (ws.isMarked(w)) continue;
+
+                double possibleNewLength = weightSumTo + weights[e];
+                if (possibleNewLength < ws.getWeight(w)) {
+                    // the estimate of a vertex is calculated only once, when it is reached for the first time
+                    estimate = ws.isReached(w) ? ws.getEstimate(w)
+                            : this.estimate(minimumWeightEstimator, w, targetVertex, stats);
+                    ws.reach(w, possibleNewLength, e, possibleNewLength + estimate);
+                    ws.setEstimate(w, estimate);
+                }
+            }
+        }
+        if (stats != null) stats.numHeapOperations = ws.frontier.getNumOperations() - numHeapOperations;
+
+        // no path found, graph was not connected
+        return false;
+    }
+
+    /**
+     * Calculates the edge-weighted shortest path from start to target
+     * by growing a forward search from the start and a backward search from the target until they meet
+     * @param startId
+     * @param targetId
+     * @param weights   the weights of all edges, aligned with the edge ids, see compileWeights
+     * @return  the shortest path from start to target
+     *          returns null if either start or target cannot be matched with a vertex in the graph
+     *                          or no path can be found from start to target
+     */
+    public DirectedGraph<V,E>.DGPath bidirectionalDijkstra(String startId, String targetId, double[] weights) {
+        SearchStats stats = SearchStats.start(this.graph.getSearchListener(), "SnapshotBidirectionalDijkstra", weights);
+        return SearchStats.complete(stats,
+                this.bidirectionalSearch(this.indexOf(startId), this.indexOf(targetId), e -> weights[e], null, stats));
+    }
+
+    /**
+     * Calculates the edge-weighted shortest path from start to target
+     * by growing a forward A* search from the start and a backward A* search from the target until they meet
+     * @param startId
+     * @param targetId
+     * @param weights   the weights of all edges, aligned with the edge ids, see compileWeights
+     * @param minimumWeightEstimator provides a consistent function, by which a lower bound of the cumulative weight
+     *                        between two vertices can be calculated.
+     * @return  the shortest path from start to target
+     *          returns null if either start or target cannot be matched with a vertex in the graph
+     *                          or no path can be found from start to target
+     */
+    public DirectedGraph<V,E>.DGPath bidirectionalAStar(String startId, String targetId, double[] weights,
+                                                         ToDoubleBiFunction<V,V> minimumWeightEstimator) {
+        SearchStats stats = SearchStats.start(this.graph.getSearchListener(), "SnapshotBidirectionalAStar", weights);
+        return SearchStats.complete(stats, this.bidirectionalSearch(this.indexOf(startId), this.indexOf(targetId),
+                e -> weights[e], minimumWeightEstimator, stats));
+    }
+
+    /**
+     * bidirectional search engine
+     * Both searches use the average potential p(v) = (h(v,target) - h(start,v)) / 2,
+     * forward keys are weightSumTo + p(v) and backward keys are weightSumFrom - p(v),
+     * such that the search can stop as soon as the sum of the smallest keys of both frontiers
+     * reaches the weight of the shortest path found sofar.
+     * Without an estimator, p(v) == 0 and this is a plain bidirectional dijkstra search.
+     * @param start
+     * @param target
+     * @param edgeWeight    provides the weight of an edge by its edge id
+     * @param minimumWeightEstimator    optional
+     * @param stats         optional, receives the work done by the search
+     * @return
+     */
+    DirectedGraph<V,E>.DGPath bidirectionalSearch(int start, int target, IntToDoubleFunction edgeWeight,
+                                                  ToDoubleBiFunction<V,V> minimumWeightEstimator, SearchStats stats) {
+        if (start < 0 || target < 0 || !this.getComponents().mayReach(start, target)) return null;
+
+        SearchWorkspace forward = this.getWorkspace();
+        SearchWorkspace backward = this.backwardWorkspaces.get();
+        forward.reset();
+        backward.reset();
+
+        // easy target
+        if (start == target) {
+            forward.visit(start, -1);
+            return this.buildPath(start, new LinkedList<>(), 0.0, forward);
+        }
+
+        long numHeapOperations = forward.frontier.getNumOperations() + backward.frontier.getNumOperations();
+        V startVertex = this.getVertex(start);
+        V targetVertex = this.getVertex(target);
+        double potential = this.potential(minimumWeightEstimator, forward, start, startVertex, targetVertex, stats);
+        forward.reach(start, 0.0, -1, potential);
+        forward.setEstimate(start, potential);
+        potential = this.potential(minimumWeightEstimator, backward, target, startVertex, targetVertex, stats);
+        backward.reach(target, 0.0, -1, -potential);
+        backward.setEstimate(target, potential);
+
+        // the weight of the shortest path found sofar, and the vertex where both searches met on that path
+        double shortest = Double.MAX_VALUE;
+        int meeting = -1;
+
+        while (!forward.frontier.isEmpty() && !backward.frontier.isEmpty()) {
+            // no better path can be found anymore
+            if (forward.frontier.peekKey() + backward.frontier.peekKey() >= shortest) break;
+
+            if (forward.frontier.size() <= backward.frontier.size()) {
+                //expand the forward search along the outgoing edges
+                int v = forward.frontier.poll();
+                forward.mark(v);
+                if (stats != null) stats.numSettled++;
+                for (int e = this.offsets[v]; e < this.offsets[v + 1]; e++) {
+                    int w = this.targets[e];
+                    if (stats != null) stats.numRelaxed++;
+                    if (forward.isMarked(w)) continue;
+
+                    double possibleNewLength = forward.getWeight(v) + edgeWeight.applyAsDouble(e);
+                    if (possibleNewLength < forward.getWeight(w)) {
+                        potential = this.potential(minimumWeightEstimator, forward, w, startVertex, targetVertex, stats);
+                        forward.reach(w, possibleNewLength, e, possibleNewLength + potential);
+                        forward.setEstimate(w, potential);
+                    }
+                    //check whether the searches meet with a shorter path
+                    if (backward.isReached(w) && possibleNewLength + backward.getWeight(w) < shortest) {
+                        shortest = possibleNewLength + backward.getWeight(w);
+                        meeting = w;
+                    }
+                }
+            } else {
+                //expand the backward search along the incoming edges
+                int v = backward.frontier.poll();
+                backward.mark(v);
+                if (stats != null) stats.numSettled++;
+                for (int i = this.inOffsets[v]; i < this.inOffsets[v + 1]; i++) {
+                    int e = this.inEdges[i];
+                    int w = this.sources[e];
+                    if (stats != null) stats.numRelaxed++;
+                    if (backward.isMarked(w)) continue;
+
+                    double possibleNewLength = backward.getWeight(v) + edgeWeight.applyAsDouble(e);
+                    if (possibleNewLength < backward.getWeight(w)) {
+                        potential = this.potential(minimumWeightEstimator, backward, w, startVertex, targetVertex, stats);
+                        backward.reach(w, possibleNewLength, e, possibleNewLength - potential);
+                        backward.setEstimate(w, potential);
+                    }
+                    //check whether the searches meet with a shorter path
+                    if (forward.isReached(w) && possibleNewLength + forward.getWeight(w) < shortest) {
+                        shortest = possibleNewLength + forward.getWeight(w);
+                        meeting = w;
+                    }
+                }
+            }
+        }
+
+        if (stats != null) {
+            stats.numHeapOperations = forward.frontier.getNumOperations() + backward.frontier.getNumOperations()
+                    - numHeapOperations;
+        }
+
+        // no path found, graph was not connected
+        if (meeting < 0) return null;
+
+        LinkedList<E> pathEdges = new LinkedList<>();
+        for (int v = meeting; v != start; v = this.sources[forward.getParentEdge(v)]) {
+            pathEdges.addFirst(this.getEdge(forward.getParentEdge(v)));
+        }
+        for (int v = meeting; v != target; v = this.targets[backward.getParentEdge(v)]) {
+            pathEdges.addLast(this.getEdge(backward.getParentEdge(v)));
+        }
+        return this.buildPath(start, pathEdges, shortest, forward, backward);
+    }
+
+    /**
+     * the potential of a vertex, which is calculated only once per search direction,
+     * when the vertex is reached for the first time, and which is kept as the estimate of the vertex in the workspace
+     */
+    private double potential(ToDoubleBiFunction<V,V> minimumWeightEstimator, SearchWorkspace ws,
+                             int v, V startVertex, V targetVertex, SearchStats stats) {
+        if (minimumWeightEstimator == null) return 0.0;
+        if (ws.isReached(v)) return ws.getEstimate(v);
+        if (stats != null) stats.numHeuristicCalls += 2;
+        V vertex = this.getVertex(v);
+        return (minimumWeightEstimator.applyAsDouble(vertex, targetVertex) -
+                minimumWeightEstimator.applyAsDouble(startVertex, vertex)) / 2;
+    }
+
+    /**
+     * calculates the shortest paths from the source to all vertices,
+     * or from all vertices to the source if the search follows the edges backwards
+     * @param source
+     * @param weights       the weights of all edges, aligned with the edge ids
+     * @param backwards     if true, the search follows the incoming edges of every vertex
+     * @param weightSumTo   receives the weight of the shortest path of every vertex,
+     *                      Double.POSITIVE_INFINITY for vertices that cannot be reached
+     * @param parentEdge    optional, receives the last edge id of the shortest path of every vertex,
+     *                      -1 for the source and for vertices that cannot be reached
+     * @param settleOrder   optional, receives the vertex ids in the order in which their shortest path became final
+     * @return  the number of vertices that have been reached
+     */
+    int shortestPathTree(int source, double[] weights, boolean backwards,
+                         double[] weightSumTo, int[] parentEdge, int[] settleOrder) {
+        int n = this.getNumVertices();
+        Arrays.fill(weightSumTo, Double.POSITIVE_INFINITY);
+        if (parentEdge != null) Arrays.fill(parentEdge, -1);
+
+        IndexedMinHeap frontier = new IndexedMinHeap(n);
+        weightSumTo[source] = 0.0;
+        frontier.addOrDecrease(source, 0.0);
+        int numSettled = 0;
+
+        while (!frontier.isEmpty()) {
+            int v = frontier.poll();
+            if (settleOrder != null) settleOrder[numSettled] = v;
+            numSettled++;
+
+            int first = backwards ? this.inOffsets[v] : this.offsets[v];
+            int last = backwards ? this.inOffsets[v + 1] : this.offsets[v + 1];
+            for (int i = first; i < last; i++) {
+                int e = backwards ? this.inEdges[i] : i;
+                int w = backwards ? this.sources[e] : this.targets[e];
+                double possibleNewLength = weightSumTo[v] + weights[e];
+                if (possibleNewLength < weightSumTo[w]) {
+                    weightSumTo[w] = possibleNewLength;
+                    if (parentEdge != null) parentEdge[w] = e;
+                    frontier.addOrDecrease(w, possibleNewLength);
+                }
+            }
+        }
+        return numSettled;
+    }
+
+    /**
+     * multi-source dijkstra search, which never reaches beyond the budget
+     * only the vertices within the budget and their direct neighbours are ever touched
+     * @param originIds     the origins, which are all reached with weight 0; unknown ids are ignored
+     * @param weights       the non-negative weights of all edges, aligned with the edge ids
+     * @param budget        the maximum weight of a path
+     * @param ws            the workspace of the search, which is reset first
+     * @return  all vertices that can be reached within the budget
+     */
+    ReachableSet<V,E> reachableWithin(Collection<String> originIds, double[] weights, double budget, SearchWorkspace ws) {
+        ws.reset();
+        for (String originId : originIds) {
+            int origin = this.indexOf(originId);
+            if (origin >= 0 && !ws.isReached(origin)) {
+                ws.reach(origin, 0.0, -1, 0.0);
+                ws.setLabel(origin, origin);
+            }
+        }
+
+        while (!ws.frontier.isEmpty()) {
+            int v = ws.frontier.poll();
+            ws.mark(v);
+            // every vertex inherits the origin of its parent, which has been marked before
+            if (ws.getParentEdge(v) >= 0) ws.setLabel(v, ws.getLabel(this.sources[ws.getParentEdge(v)]));
+
+            double weightSumTo = ws.getWeight(v);
+            for (int e = this.offsets[v]; e < this.offsets[v + 1]; e++) {
+                int w = this.targets[e];
+                double possibleNewLength = weightSumTo + weights[e];
+                if (possibleNewLength <= budget && possibleNewLength < ws.getWeight(w)) {
+                    ws.reach(w, possibleNewLength, e, possibleNewLength);
+                }
+            }
+        }
+
+        int numReachable = ws.getNumSettled();
+        List<V> vertices = new ArrayList<>(numReachable);
+        List<V> origins = new ArrayList<>(numReachable);
+        double[] weightSums = new double[numReachable];
+        for (int i = 0; i < numReachable; i++) {
+            int v = ws.getSettled(i);
+            vertices.add(this.getVertex(v));
+            origins.add(this.getVertex(ws.getLabel(v)));
+            weightSums[i] = ws.getWeight(v);
+        }
+        return new ReachableSet<>(vertices, weightSums, origins);
+    }
+
+    private double estimate(ToDoubleBiFunction<V,V> minimumWeightEstimator, int v, V targetVertex, SearchStats stats) {
+        if (minimumWeightEstimator == null) return 0.0;
+        if (stats != null) stats.numHeuristicCalls++;
+        return minimumWeightEstimator.applyAsDouble(this.getVertex(v), targetVertex);
+    }
+
+    /**
+     * assembles the result path of a search, with the vertices that have been reached in the workspaces as visited
+     * @param start
+     * @param pathEdges
+     * @param totalWeight
+     * @param workspaces    the workspaces of the search, one for each direction
+     * @return
+     */
+    private DirectedGraph<V,E>.DGPath buildPath(int start, LinkedList<E> pathEdges, double totalWeight,
+                                                 SearchWorkspace... workspaces) {
+        Set<V> visitedVertices = new HashSet<>();
+        for (SearchWorkspace ws : workspaces) {
+            for (int i = 0; i < ws.getNumReached(); i++) {
+                visitedVertices.add(this.getVertex(ws.getReached(i)));
+            }
+        }
+        return this.graph.buildPath(this.getVertex(start), pathEdges, totalWeight, visitedVertices);
+    }
+}
@@ -6,11 +6,18 @@ import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
 public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
 
-    private final Map<String,V> vertices = new HashMap<>();
+    private final Map<String,V> vertices;
+
+    // the most recent snapshot of the graph, which is discarded when the structure of the graph changes
+    private DGSnapshot<V,E> snapshot = null;
+    // receives the statistics of all searches, if any
+    private volatile SearchListener searchListener = null;
 
     /** representation invariants:
      1.  all vertices in the graph are unique by their implementation of the getId() method
@@ -19,7 +26,18 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
      3.  all edges of a vertex are outgoing edges, i.e. FOR ALL e in v.edges: e.from == v
      **/
 
-    public DirectedGraph() { }
+    public DirectedGraph() {
+        this.vertices = new HashMap<>();
+    }
+
+    /**
+     * creates an empty graph for bulk loading, with the vertex map presized for the expected number of vertices
+     * such that the map need not be rehashed while the vertices are added
+     * @param expectedNumVertices
+     */
+    public DirectedGraph(int expectedNumVertices) {
+        this.vertices = new HashMap<>((int)(expectedNumVertices / 0.75) + 1);
+    }
 
     public Collection<V> getVertices() {
         return this.vertices.values();
@@ -45,8 +63,10 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
      *          or newVertex itself if it has been added.
      */
     public V addOrGetVertex(V newVertex) {
-        if (vertices.values().stream().anyMatch(e -> e.getId().equals(newVertex.getId()))) return vertices.values().stream().filter(e -> e.getId().equals(newVertex.getId())).findFirst().get();
-        vertices.put(newVertex.getId(), newVertex);
+        //the id map finds a duplicate in O(1)
+        V duplicate = vertices.putIfAbsent(newVertex.getId(), newVertex);
+        if (duplicate != null) return duplicate;
+        snapshot = null;
         // a proper vertex shall be returned at all times
         return newVertex;
     }
@@ -79,30 +99,26 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
      */
     public E addOrGetEdge(E newEdge) {
         //add the vertices from the edge if the do not already exists
-        addOrGetVertex(newEdge.getFrom());
-        addOrGetVertex(newEdge.getTo());
-
-        //loop through all values of the vertices
-        for (V v : vertices.values()) {
-            //check if the vertices from and to are of the same instance as in the vertices map
-            //if that is not the case throw an IllegalArgumentException that there is a duplicate
-            if (v.getId().equals(newEdge.getFrom().getId()) && System.identityHashCode(v) != System.identityHashCode(newEdge.getFrom())) {
-                throw new IllegalArgumentException("Duplicate found");
-            }
-            if (v.getId().equals(newEdge.getTo().getId()) && System.identityHashCode(v) != System.identityHashCode(newEdge.getTo())) {
-                throw new IllegalArgumentException("Duplicate found");
-            }
+        V from = addOrGetVertex(newEdge.getFrom());
+        V to = addOrGetVertex(newEdge.getTo());
+
+        //check if the vertices from and to are of the same instance as in the vertices map
+        //if that is not the case throw an IllegalArgumentException that there is a duplicate
+        if (from != newEdge.getFrom() || to != newEdge.getTo()) {
+            throw new IllegalArgumentException("Duplicate found");
         }
         //create a shortcode for the edges of the vertex that the edge is coming form
-        Set<E> edges = vertices.get(newEdge.getFrom().getId()).getEdges();
-        //check if the edges set is not empty and
-        //check if one of those edges is equals to the edge that wants to be added
-        if (!edges.isEmpty() && edges.stream().anyMatch(e -> e.equals(newEdge))) {
-            //return the edge that was already in the graph
-            return edges.stream().filter(e -> e.equals(newEdge)).findFirst().orElse(newEdge);
+        Set<E> edges = from.getEdges();
+        //check by hash lookup if one of those edges is equals to the edge that wants to be added
+        if (edges.contains(newEdge)) {
+            //return the edge that was already in the graph, only the duplicate case scans the edges of the vertex
+            for (E e : edges) {
+                if (e.equals(newEdge)) return e;
+            }
         }
         //add the edge to the graph
         edges.add(newEdge);
+        snapshot = null;
         // a proper edge shall be returned at all times
         return newEdge;
     }
@@ -145,6 +161,134 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
         this.getVertices().stream().filter(v -> v.getEdges().size() == 0).forEach(unconnected::add);
         this.getVertices().stream().flatMap(v -> v.getEdges().stream().map(E::getTo)).forEach(unconnected::remove);
         unconnected.stream().map(V::getId).forEach(this.vertices::remove);
+        if (!unconnected.isEmpty()) snapshot = null;
+    }
+
+    /**
+     * registers a listener that receives the statistics of every search on this graph, its snapshots
+     * and its route query services, e.g. a SearchMetrics
+     * Without a listener, searches do not measure anything.
+     * @param searchListener    null to stop listening
+     */
+    public void setSearchListener(SearchListener searchListener) {
+        this.searchListener = searchListener;
+    }
+
+    public SearchListener getSearchListener() {
+        return this.searchListener;
+    }
+
+    /**
+     * Compiles the current structure of the graph into an immutable compressed sparse row snapshot
+     * The snapshot provides searches on int vertex ids with the same results as the searches on this graph
+     * The same snapshot is returned again, until vertices or edges are added or removed
+     * @return
+     */
+    public DGSnapshot<V,E> freeze() {
+        if (snapshot == null) {
+            snapshot = new DGSnapshot<>(this);
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return  the strongly connected components of the current graph, and their condensation DAG
+     *          the components do not follow later changes in the structure of the graph
+     */
+    public StronglyConnectedComponents<V,E> stronglyConnectedComponents() {
+        return this.freeze().getComponents();
+    }
+
+    /**
+     * Preprocesses a contraction hierarchy of the current graph, for fast shortest path queries
+     * with the given weighting of the edges
+     * The hierarchy does not follow later changes in the graph or in the weights of its edges
+     * @param weightMapper    provides a function, by which the non-negative weight of an edge can be retrieved or calculated
+     * @return
+     */
+    public ContractionHierarchy<V,E> buildContractionHierarchy(ToDoubleFunction<E> weightMapper) {
+        DGSnapshot<V,E> snapshot = this.freeze();
+        return new ContractionHierarchy<>(snapshot, snapshot.compileWeights(weightMapper));
+    }
+
+    /**
+     * Preprocesses a landmark based minimumWeightEstimator for aStarShortestPath with the given weighting of the edges
+     * The estimates remain valid when edge weights are increased, but not when they are decreased
+     * @param weightMapper    provides a function, by which the non-negative weight of an edge can be retrieved or calculated
+     * @param numLandmarks
+     * @param selection       the strategy by which the landmarks are selected
+     * @return
+     */
+    public LandmarkHeuristic<V,E> buildLandmarkHeuristic(ToDoubleFunction<E> weightMapper, int numLandmarks,
+                                                         LandmarkHeuristic.Selection selection) {
+        DGSnapshot<V,E> snapshot = this.freeze();
+        return new LandmarkHeuristic<>(snapshot, snapshot.compileWeights(weightMapper), numLandmarks, selection, 0L);
+    }
+
+    /**
+     * Calculates the weights of the shortest paths from all sources to all targets
+     * @param sourceIds
+     * @param targetIds
+     * @param weightMapper    provides a function, by which the non-negative weight of an edge can be retrieved or calculated
+     * @param keepPaths       if true, the matrix can also reconstruct the shortest paths
+     * @return  the matrix with the weights of all shortest paths, Double.POSITIVE_INFINITY if no path can be found
+     */
+    public DistanceMatrix<V,E> distanceMatrix(Collection<String> sourceIds, Collection<String> targetIds,
+                                              ToDoubleFunction<E> weightMapper, boolean keepPaths) {
+        DGSnapshot<V,E> snapshot = this.freeze();
+        return new DistanceMatrix<>(snapshot, snapshot.compileWeights(weightMapper), sourceIds, targetIds, keepPaths);
+    }
+
+    /**
+     * Calculates the weights of the shortest paths between all pairs of vertices
+     * @param weightMapper    provides a function, by which the non-negative weight of an edge can be retrieved or calculated
+     * @param method          the method of calculation, AUTO chooses by the density of the graph
+     * @return  the table of all shortest path weights, which can be saved and reloaded later
+     * @throws IllegalArgumentException if the graph has more than AllPairsShortestPaths.MAX_VERTICES vertices
+     */
+    public AllPairsShortestPaths allPairsShortestPaths(ToDoubleFunction<E> weightMapper, AllPairsShortestPaths.Method method) {
+        DGSnapshot<V,E> snapshot = this.freeze();
+        return AllPairsShortestPaths.calculate(snapshot, snapshot.compileWeights(weightMapper), method);
+    }
+
+    /**
+     * Calculates the k shortest loopless paths from start to target, e.g. as alternative routes
+     * @param startId
+     * @param targetId
+     * @param k               the maximum number of paths
+     * @param weightMapper    provides a function, by which the non-negative weight of an edge can be retrieved or calculated
+     * @return  at most k paths, ordered by increasing total weight, with the vertices on every path as visited
+     *          returns an empty list if no path can be found from start to target
+     */
+    public List<DGPath> kShortestPaths(String startId, String targetId, int k, ToDoubleFunction<E> weightMapper) {
+        DGSnapshot<V,E> snapshot = this.freeze();
+        return new KShortestPaths<>(snapshot, snapshot.compileWeights(weightMapper)).find(startId, targetId, k);
+    }
+
+    /**
+     * Finds all vertices that can be reached from any of the origins within the budget
+     * The search reuses the workspace of the calling thread, and never touches vertices beyond the budget
+     * @param originIds
+     * @param budget          the maximum weight of a path
+     * @param weightMapper    provides a function, by which the non-negative weight of an edge can be retrieved or calculated
+     * @return  the reachable vertices with the weight of the shortest path from their nearest origin,
+     *          ordered by increasing weight
+     */
+    public ReachableSet<V,E> reachableWithin(Collection<String> originIds, double budget, ToDoubleFunction<E> weightMapper) {
+        DGSnapshot<V,E> snapshot = this.freeze();
+        return snapshot.reachableWithin(originIds, snapshot.compileWeights(weightMapper), budget, snapshot.getWorkspace());
+    }
+
+    /**
+     * Starts a thread-safe shortest path query service on the current state of the graph
+     * Later changes of the graph or of the weights of its edges are not seen by the service
+     * @param weightMapper    provides a function, by which the non-negative weight of an edge can be retrieved or calculated
+     * @param numWorkers      the number of worker threads for batches of queries
+     * @return  the service, which shall be closed after use
+     */
+    public RouteQueryService<V,E> startRouteQueryService(ToDoubleFunction<E> weightMapper, int numWorkers) {
+        DGSnapshot<V,E> snapshot = this.freeze();
+        return new RouteQueryService<>(snapshot, snapshot.compileWeights(weightMapper), weightMapper, numWorkers);
     }
 
     /**
@@ -194,6 +338,24 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
         }
     }
 
+    /**
+     * assembles a path from the results of a search that has been performed outside of this graph,
+     * e.g. on a DGSnapshot of the graph
+     * @param start
+     * @param edges         the connected edges of the path
+     * @param totalWeight
+     * @param visited       the vertices that have been visited by the search
+     * @return
+     */
+    DGPath buildPath(V start, LinkedList<E> edges, double totalWeight, Set<V> visited) {
+        DGPath path = new DGPath();
+        path.start = start;
+        path.edges = edges;
+        path.totalWeight = totalWeight;
+        path.visited = visited;
+        return path;
+    }
+
     /**
      * Uses a depth-first search algorithm to find a path from the start vertex to the target vertex in the graph
      * The path.totalWeight should indicate the number of edges in the result path
@@ -205,6 +367,11 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
      *                          or no path can be found from start to target
      */
     public DGPath depthFirstSearch(String startId, String targetId) {
+        SearchStats stats = SearchStats.start(this.searchListener, "DFS", null);
+        return SearchStats.complete(stats, this.depthFirstSearch(startId, targetId, stats));
+    }
+
+    private DGPath depthFirstSearch(String startId, String targetId, SearchStats stats) {
 
         V start = this.getVertexById(startId);
         V target = this.getVertexById(targetId);
@@ -217,39 +384,37 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
         // easy target
         if (start == target) return path;
 
-        if (dfsRecursionHelperMethod(start, target, path)) {
-            path.totalWeight = path.getEdges().size();
-            return path;
-        }
-
-
-        // no path found, graph was not connected ???
-        return null;
-    }
-
-    private boolean dfsRecursionHelperMethod(V currentNode, V targetNode, DGPath path) {
-        //add the currentnode to the list of visited nodes
-        path.visited.add(currentNode);
-        //check if the current node is equals to the targetnode
-        if (!currentNode.equals(targetNode)) {
-            //loop through all the edges from this node.
-            for (E edge : currentNode.getEdges()) {
-                //add all the destination nodes to the visited nodes
+        //explicit stack of the vertices on the current path, with an iterator over their remaining edges
+        //which visits the vertices in the same order as a recursive search, without the risk of a stack overflow
+        Deque<Iterator<E>> stack = new ArrayDeque<>();
+        stack.push(start.getEdges().iterator());
+        if (stats != null) stats.numSettled++;
+        while (!stack.isEmpty()) {
+            Iterator<E> edges = stack.peek();
+            if (edges.hasNext()) {
+                E edge = edges.next();
+                if (stats != null) stats.numRelaxed++;
+                //skip the destination nodes that have been visited already
                 if (path.visited.contains(edge.getTo())) continue;
-                //run the same method again (recursion) and check if the result is true
-                if (dfsRecursionHelperMethod(edge.getTo(), targetNode, path)) {
-                    //add the edge to the front of the edges array
-                    path.getEdges().addFirst(edge);
-                    //return true
-                    return true;
+                //add the destination node to the visited nodes and extend the path towards it
+                path.visited.add(edge.getTo());
+                path.getEdges().addLast(edge);
+                //return the path when the target node is found
+                if (edge.getTo().equals(target)) {
+                    path.totalWeight = path.getEdges().size();
+                    return path;
                 }
+                stack.push(edge.getTo().getEdges().iterator());
+                if (stats != null) stats.numSettled++;
+            } else {
+                //all edges of the node on top of the stack have been explored, backtrack
+                stack.pop();
+                if (!stack.isEmpty()) path.getEdges().removeLast();
             }
-        } else {
-            //return true when the target node is found
-            return true;
         }
-        //return false by default
-        return false;
+
+        // no path found, graph was not connected ???
+        return null;
     }
 
     /**
@@ -259,6 +424,11 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
      * @return the path that needs to be taken
      */
     public DGPath depthFirstSearchIterative(String startId, String targetId) {
+        SearchStats stats = SearchStats.start(this.searchListener, "DFSIterative", null);
+        return SearchStats.complete(stats, this.depthFirstSearchIterative(startId, targetId, stats));
+    }
+
+    private DGPath depthFirstSearchIterative(String startId, String targetId, SearchStats stats) {
 
         V start = this.getVertexById(startId);
         V target = this.getVertexById(targetId);
@@ -294,9 +464,11 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
 
             //add the current node to the visited nodes list
             path.visited.add(current);
+            if (stats != null) stats.numSettled++;
 
             //loop through all the edges of this node
             for (E e : current.getEdges()) {
+                if (stats != null) stats.numRelaxed++;
                 //create a shortcode for the destination node
                 V v = e.getTo();
                 //check if the destination node is already visited
@@ -353,6 +525,11 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
      *                          or no path can be found from start to target
      */
     public DGPath breadthFirstSearch(String startId, String targetId) {
+        SearchStats stats = SearchStats.start(this.searchListener, "BFS", null);
+        return SearchStats.complete(stats, this.breadthFirstSearch(startId, targetId, stats));
+    }
+
+    private DGPath breadthFirstSearch(String startId, String targetId, SearchStats stats) {
 
         V start = this.getVertexById(startId);
         V target = this.getVertexById(targetId);
@@ -365,54 +542,64 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
         // easy target
         if (start == target) return path;
 
-        if (bfsRecursiveHelperMethod(start, target, path)) {
+        //the search first registers all unvisited destination nodes of a node, before it continues from each of them
+        //the explicit stack holds an iterator over these newly visited nodes for every node on the current path
+        Deque<Iterator<E>> stack = new ArrayDeque<>();
+        List<E> newEdges = bfsVisitDestinations(start, target, path, stats);
+        if (newEdges == null) {
             path.totalWeight = path.getEdges().size();
             return path;
         }
+        stack.push(newEdges.iterator());
+        while (!stack.isEmpty()) {
+            Iterator<E> edges = stack.peek();
+            if (edges.hasNext()) {
+                //continue from the next newly visited node
+                E edge = edges.next();
+                path.getEdges().addLast(edge);
+                newEdges = bfsVisitDestinations(edge.getTo(), target, path, stats);
+                if (newEdges == null) {
+                    path.totalWeight = path.getEdges().size();
+                    return path;
+                }
+                stack.push(newEdges.iterator());
+            } else {
+                //all newly visited nodes have been explored, backtrack
+                stack.pop();
+                if (!stack.isEmpty()) path.getEdges().removeLast();
+            }
+        }
 
         // no path found, graph was not connected ???
         return null;
     }
 
-    private boolean bfsRecursiveHelperMethod(V currentNode, V targetNode, DGPath path) {
-        //add the current node to the list of visited nodes
-        path.visited.add(currentNode);
+    /**
+     * registers all unvisited destination nodes of the current node as visited
+     * @return  the edges towards the newly visited nodes,
+     *          or null if the target node is one of them, in which case its edge has been appended to the path
+     */
+    private List<E> bfsVisitDestinations(V currentNode, V targetNode, DGPath path, SearchStats stats) {
+        if (stats != null) stats.numSettled++;
         //create an empty list of edges.
         List<E> edges = new ArrayList<>();
-        //check if the current node is equals to the target node
-        if (!currentNode.equals(targetNode)) {
-            //loop through all the edges of the current node
-            for (E edge : currentNode.getEdges()) {
-                //check if the destination from the edge is already visited
-                if (path.visited.contains(edge.getTo())) continue;
-                //add the destination to the visited list
-                path.visited.add(edge.getTo());
-                //add the current edge to the local edges list.
-                edges.add(edge);
-                //check if the destination node is equals to the target node
-                if (edge.getTo().equals(targetNode)) {
-                    //add the edge to the front of the edge list
-                    path.getEdges().addFirst(edge);
-                    //return true
-                    return true;
-                }
+        //loop through all the edges of the current node
+        for (E edge : currentNode.getEdges()) {
+            if (stats != null) stats.numRelaxed++;
+            //check if the destination from the edge is already visited
+            if (path.visited.contains(edge.getTo())) continue;
+            //add the destination to the visited list
+            path.visited.add(edge.getTo());
+            //add the current edge to the local edges list.
+            edges.add(edge);
+            //check if the destination node is equals to the target node
+            if (edge.getTo().equals(targetNode)) {
+                //add the edge to the end of the edge list
+                path.getEdges().addLast(edge);
+                return null;
             }
-            //loop through the local edges list
-            for (E edge : edges) {
-                //run the method again and check the output
-                if (bfsRecursiveHelperMethod(edge.getTo(), targetNode, path)) {
-                    //add the edge to the front of the edges list
-                    path.getEdges().addFirst(edge);
-                    //return true
-                    return true;
-                }
-            }
-        } else {
-            //return true when the destination is found
-            return true;
         }
-        //default return false
-        return false;
+        return edges;
     }
 
     /**
@@ -422,6 +609,11 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
      * @return the path that the route has to be taken
      */
     public DGPath breadthFirstSearchIterative(String startId, String targetId) {
+        SearchStats stats = SearchStats.start(this.searchListener, "BFSIterative", null);
+        return SearchStats.complete(stats, this.breadthFirstSearchIterative(startId, targetId, stats));
+    }
+
+    private DGPath breadthFirstSearchIterative(String startId, String targetId, SearchStats stats) {
 
         V start = this.getVertexById(startId);
         V target = this.getVertexById(targetId);
@@ -457,9 +649,11 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
 
             //add the current node to the visited path
             path.visited.add(current);
+            if (stats != null) stats.numSettled++;
 
             //loop through all of the edges of the current node
             for (E e: current.getEdges()) {
+                if (stats != null) stats.numRelaxed++;
                 //create a shortcode for the destination node
                 V v = e.getTo();
                 //check if the destination node is already visited
@@ -508,27 +702,47 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
 
     // helper class to register the state of a vertex in dijkstra shortest path algorithm
     // your may change this class or delete it altogether follow a different approach in your implementation
-    private class DSPNode implements Comparable<DSPNode> {
+    private class DSPNode {
         public V vertex;                // the graph vertex that is concerned with this DSPNode
         public E fromEdge = null;        // the edge from the predecessor's vertex to this node's vertex
         public boolean marked = false;  // indicates DSP processing has been marked complete
         public double weightSumTo = Double.MAX_VALUE;   // sum of weights of current shortest path to this node's vertex
+        public int index = -1;          // the id of this node in the frontier of the search
 
         public DSPNode(V vertex) {
             this.vertex = vertex;
         }
+    }
 
-        // comparable interface helps to find a node with the shortest current path, sofar
-        @Override
-        public int compareTo(DSPNode dspv) {
-            return Double.compare(this.weightSumTo, dspv.weightSumTo);
-        }
+    /**
+     * registers a node that is reached for the first time in a search,
+     * and identifies it in the frontier by the number of nodes that have been reached before
+     */
+    private <N extends DSPNode> N addNode(N node, Map<V, N> progressData, List<N> nodes) {
+        node.index = nodes.size();
+        nodes.add(node);
+        progressData.put(node.vertex, node);
+        return node;
+    }
+
+    /**
+     * creates the frontier of a search, in which ties between nodes with equal keys are broken by the id of their vertex,
+     * such that the outcome of a search does not depend on the hash ordering of the vertices
+     */
+    private IndexedMinHeap createFrontier(List<? extends DSPNode> nodes) {
+        return new IndexedMinHeap(16,
+                (a, b) -> nodes.get(a).vertex.getId().compareTo(nodes.get(b).vertex.getId()));
     }
 
     /**
      * Calculates the edge-weighted shortest path from start to target
-     * Uses a minimum distance heuristic from any vertex to the target
-     * in order to reduce the number of visited vertices during the search
+     * The next node to be marked is taken from a priority queue of all reached, unmarked nodes
+     * and the predecessor edge of a node is registered at the moment its weightSumTo is improved,
+     * such that a search runs in O((V+E) log V)
+     * The boxed weightMapper is applied, and its result unboxed, for every relaxed edge: the weights are not compiled
+     * in advance, as that would cost O(E) on every call, also for searches that only reach a few vertices.
+     * {@link #dijkstraShortestPathAsDouble(String, String, ToDoubleFunction)}, or a search on the compiled weights
+     * of a {@link DGSnapshot}, avoids the boxing.
      * @param startId
      * @param targetId
      * @param weightMapper    provides a function, by which the weight of an edge can be retrieved or calculated
@@ -538,6 +752,30 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
      */
     public DGPath dijkstraShortestPath(String startId, String targetId,
                                        Function<E,Double> weightMapper) {
+        SearchStats stats = SearchStats.start(this.searchListener, "Dijkstra", weightMapper);
+        return SearchStats.complete(stats, this.dijkstraShortestPath(startId, targetId, weightMapper::apply, stats));
+    }
+
+    /**
+     * Calculates the edge-weighted shortest path from start to target
+     * Same as dijkstraShortestPath, but with a weightMapper that produces primitive doubles,
+     * such that no boxed weights are created during the search.
+     * The weightMapper is applied only once for every edge that is relaxed from a marked node.
+     * @param startId
+     * @param targetId
+     * @param weightMapper    provides a function, by which the weight of an edge can be retrieved or calculated
+     * @return  the shortest path from start to target
+     *          returns null if either start or target cannot be matched with a vertex in the graph
+     *                          or no path can be found from start to target
+     */
+    public DGPath dijkstraShortestPathAsDouble(String startId, String targetId,
+                                               ToDoubleFunction<E> weightMapper) {
+        SearchStats stats = SearchStats.start(this.searchListener, "Dijkstra", weightMapper);
+        return SearchStats.complete(stats, this.dijkstraShortestPath(startId, targetId, weightMapper, stats));
+    }
+
+    private DGPath dijkstraShortestPath(String startId, String targetId,
+                                        ToDoubleFunction<E> weightMapper, SearchStats stats) {
 
         V start = this.getVertexById(startId);
         V target = this.getVertexById(targetId);
@@ -552,79 +790,59 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
         if (start == target) return path;
 
         // keep track of the DSP status of all visited nodes
-        // you may choose a different approach of tracking progress of the algorithm, if you wish
         Map<V, DSPNode> progressData = new HashMap<>();
+        List<DSPNode> nodes = new ArrayList<>();
+        // all nodes that have been reached but are not marked yet, the one with the lowest weightSumTo on top
+        IndexedMinHeap frontier = this.createFrontier(nodes);
 
         // initialise the progress of the start node
-        DSPNode nextDspNode = new DSPNode(start);
+        DSPNode nextDspNode = this.addNode(new DSPNode(start), progressData, nodes);
         nextDspNode.weightSumTo = 0.0;
-        progressData.put(start, nextDspNode);
+        frontier.addOrDecrease(nextDspNode.index, nextDspNode.weightSumTo);
 
         V to;
         DSPNode node;
 
-        while (nextDspNode != null) {
-            //mark the current dspnode as marked
+        while (!frontier.isEmpty()) {
+            //take the unmarked node with the lowest weight and mark it
+            nextDspNode = nodes.get(frontier.poll());
             nextDspNode.marked = true;
 
-            //stop the loop als de target node gevonden is.
+            //stop the loop when the target node has been found
             if (nextDspNode.vertex.equals(target)) break;
+            if (stats != null) stats.numSettled++;
 
             for (E edge : nextDspNode.vertex.getEdges()) {
+                if (stats != null) stats.numRelaxed++;
                 to = edge.getTo();
                 path.visited.add(to);
-                //check if the node that the edge goes to, is not marked.
-                if (progressData.get(to) != null && progressData.get(to).marked) continue;
-
-                //check if the progressData map already contains this node
-                if (progressData.get(to) != null) {
-                    //add the available dspnode to the node var
-                    node = progressData.get(to);
-                    //save the calculated new length to a var
-                    double possibleNewLength = nextDspNode.weightSumTo + weightMapper.apply(edge);
-                    //replace the old length with the new length when te new length is lower than the old length
-                    if (possibleNewLength < node.weightSumTo) node.weightSumTo = possibleNewLength;
-                } else {
-                    //create a new dspnode
-                    node = new DSPNode(to);
-                    //calculate the weightsumto from the new node
-                    node.weightSumTo = nextDspNode.weightSumTo + weightMapper.apply(edge);
-                    //add the new node to the map
-                    progressData.put(to, node);
+
+                node = progressData.get(to);
+                if (node == null) {
+                    //first time this vertex is reached, create a new dspnode
+                    node = this.addNode(new DSPNode(to), progressData, nodes);
+                } else if (node.marked) {
+                    //the shortest path to this node is already known
+                    continue;
                 }
-            }
 
-            //create an instance to the next unvisited node that has the lowest weight value
-            DSPNode comingNode = progressData.values().stream().filter(e -> !e.marked).min(DSPNode::compareTo).orElse(null);
-
-            boolean breaking = false;
-
-            //check if that node exists
-            if (comingNode != null) {
-                //if that node exists, calculate which edge is used to go to the new node
-                for (DSPNode n : progressData.values()) {
-                    if (breaking) break;
-                    for (E edge : n.vertex.getEdges()) {
-                        if (edge.getTo().equals(comingNode.vertex)) {
-                            if (weightMapper.apply(edge) + n.weightSumTo == comingNode.weightSumTo) {
-                                breaking = true;
-                                comingNode.fromEdge = edge;
-                                break;
-                            }
-                        }
-                    }
+                //calculate the length of the path to the node via this edge
+                double possibleNewLength = nextDspNode.weightSumTo + weightMapper.applyAsDouble(edge);
+                //replace the old path with the new path when the new length is lower than the old length
+                if (possibleNewLength < node.weightSumTo) {
+                    node.weightSumTo = possibleNewLength;
+                    node.fromEdge = edge;
+                    frontier.addOrDecrease(node.index, node.weightSumTo);
                 }
             }
-
-            //replace the nextdspnode with the coming node
-            nextDspNode = comingNode;
         }
+        if (stats != null) stats.numHeapOperations = frontier.getNumOperations();
 
         //get the instance of the target node
         node = progressData.get(target);
 
-        //return null if that node doesn't exits
-        if (node == null) return null;
+        //return null if the target has not been reached
+        if (node == null || !node.marked) return null;
 
         //set the totalweight of the path equals to the weight that is used to go to the target node.
         path.totalWeight = node.weightSumTo;
@@ -651,9 +869,9 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
             estimatedCost = -1;
         }
 
-        @Override
-        public int compareTo(DSPNode dspv) {
-            return Double.compare(estimatedCost + weightSumTo, ((ASNode)dspv).estimatedCost + dspv.weightSumTo);
+        // the key of the node in the frontier
+        double estimatedTotal() {
+            return estimatedCost + weightSumTo;
         }
     }
 
@@ -662,6 +880,11 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
      * Calculates the edge-weighted shortest path from start to target
      * Uses a minimum distance heuristic from any vertex to the target
      * in order to reduce the number of visited vertices during the search
+     * The next node to be marked is taken from a priority queue ordered by weightSumTo + estimatedCost.
+     * The heuristic is evaluated only once per reached vertex, and the search stops as soon as the target is marked.
+     * The minimumWeightEstimator is expected to be consistent (monotone), such that marked nodes never need to be reopened.
+     * The boxed functions are applied per search step, see {@link #dijkstraShortestPath(String, String, Function)};
+     * {@link #aStarShortestPathAsDouble(String, String, ToDoubleFunction, ToDoubleBiFunction)} avoids the boxing.
      * @param startId
      * @param targetId
      * @param weightMapper    provides a function, by which the weight of an edge can be retrieved or calculated
@@ -674,6 +897,35 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
     public DGPath aStarShortestPath(String startId, String targetId,
                                      Function<E,Double> weightMapper,
                                      BiFunction<V,V,Double> minimumWeightEstimator ) {
+        SearchStats stats = SearchStats.start(this.searchListener, "AStar", weightMapper);
+        return SearchStats.complete(stats, this.aStarShortestPath(startId, targetId,
+                weightMapper::apply, minimumWeightEstimator::apply, stats));
+    }
+
+    /**
+     * Calculates the edge-weighted shortest path from start to target
+     * Same as aStarShortestPath, but with a weightMapper and minimumWeightEstimator that produce primitive doubles,
+     * such that no boxed weights or estimates are created during the search.
+     * @param startId
+     * @param targetId
+     * @param weightMapper    provides a function, by which the weight of an edge can be retrieved or calculated
+     * @param minimumWeightEstimator provides a function, by which a lower bound of the cumulative weight
+     *                        between two vertices can be calculated.
+     * @return  the shortest path from start to target
+     *          returns null if either start or target cannot be matched with a vertex in the graph
+     *                          or no path can be found from start to target
+     */
+    public DGPath aStarShortestPathAsDouble(String startId, String targetId,
+                                            ToDoubleFunction<E> weightMapper,
+                                            ToDoubleBiFunction<V,V> minimumWeightEstimator) {
+        SearchStats stats = SearchStats.start(this.searchListener, "AStar", weightMapper);
+        return SearchStats.complete(stats, this.aStarShortestPath(startId, targetId,
+                weightMapper, minimumWeightEstimator, stats));
+    }
+
+    private DGPath aStarShortestPath(String startId, String targetId,
+                                     ToDoubleFunction<E> weightMapper,
+                                     ToDoubleBiFunction<V,V> minimumWeightEstimator, SearchStats stats) {
 
         V start = this.getVertexById(startId);
         V target = this.getVertexById(targetId);
@@ -687,103 +939,68 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
         if (start == target) return path;
 
         Map<V, ASNode> programData = new HashMap<>();
-        ASNode nextNode = new ASNode(start);
+        List<ASNode> nodes = new ArrayList<>();
+        // all nodes that have been reached but are not marked yet, the most promising one on top
+        IndexedMinHeap frontier = this.createFrontier(nodes);
+
+        ASNode nextNode = this.addNode(new ASNode(start), programData, nodes);
         nextNode.weightSumTo = 0;
-        nextNode.estimatedCost = minimumWeightEstimator.apply(start, target);
-        programData.put(start, nextNode);
+        nextNode.estimatedCost = minimumWeightEstimator.applyAsDouble(start, target);
+        if (stats != null) stats.numHeuristicCalls++;
+        frontier.addOrDecrease(nextNode.index, nextNode.estimatedTotal());
 
         V to;
         ASNode node;
-        ASNode comingNode;
-        boolean breaking;
         double possibleNewLength;
 
-        //loop as long as nextNode is not equals to null
-        while (nextNode != null) {
-            //mark the current node as marked
+        //loop as long as there are reached nodes that are not marked yet
+        while (!frontier.isEmpty()) {
+            //take the most promising node and mark it
+            nextNode = nodes.get(frontier.poll());
             nextNode.marked = true;
 
             //check if the current node is the target node, if this is the case break out of the loop
             if (nextNode.vertex.equals(target)) break;
+            if (stats != null) stats.numSettled++;
 
             //loop through all the edges of this node
             for (E edge : nextNode.vertex.getEdges()) {
+                if (stats != null) stats.numRelaxed++;
                 //create a local var to make the code shorter
                 to = edge.getTo();
                 //add the destination of the edge to the visited list
                 path.visited.add(to);
 
-                //check if this node is already in the programData map
-                if (programData.get(to) != null) {
-                    //create a local instance to the node
-                    node = programData.get(to);
-
-                    //check if the node is marked, if this is the case go to the next iteration of the loop
-                    if (node.marked) continue;
-
-                    //check if the estimated cost to the destination node is equals to -1 (default value)
-                    //if this is the case calculate the estimated cost with the Pythagorean algorithm
-                    if (node.estimatedCost == -1) node.estimatedCost = minimumWeightEstimator.apply(to, target);
-
-                    //create a easier way to access the possible new length
-                    possibleNewLength = nextNode.weightSumTo + weightMapper.apply(edge);
-
-                    //check if the possible new length is smaller than the current length
-                    //if this is the case replace the current length with the new length
-                    if (possibleNewLength < node.weightSumTo) node.weightSumTo = possibleNewLength;
-                } else {
-                    //create a new node
-                    node = new ASNode(to);
-                    //calculate the length to this node
-                    node.weightSumTo = nextNode.weightSumTo + weightMapper.apply(edge);
-                    //calculate the estimated cost of this node
-                    node.estimatedCost = minimumWeightEstimator.apply(to, target);
-                    //add this node to the programData map
-                    programData.put(to, node);
+                node = programData.get(to);
+                if (node == null) {
+                    //create a new node, the estimated cost to the target is calculated only once per vertex
+                    node = this.addNode(new ASNode(to), programData, nodes);
+                    node.estimatedCost = minimumWeightEstimator.applyAsDouble(to, target);
+                    if (stats != null) stats.numHeuristicCalls++;
+                } else if (node.marked) {
+                    //the shortest path to this node is already known
+                    continue;
                 }
-            }
 
-            //get the node where the sum of the length to the node and the estimated length to the destination node
-            //is the shortest in the list of the nodes that are not yet marked
-            comingNode = programData.values().stream().filter(e -> !e.marked).min(ASNode::compareTo).orElse(null);
-
-            //check if there is a node found
-            if (comingNode != null) {
-                //set the local var breaking to false;
-                breaking = false;
-                //loop through all the nodes in the programData
-                for (ASNode n : programData.values()) {
-                    //check if the node is equals to the node that comes after this and skip that node
-                    if (n.vertex.equals(comingNode.vertex)) continue;
-                    //loop through all the edges of the node in the current iteration
-                    for (E edge : n.vertex.getEdges()) {
-                        //check if the current edge has the coming node as a destination
-                        if (edge.getTo().equals(comingNode.vertex)) {
-                            //check if the sum of the length of this node and the length of the edge are equals
-                            //to the shortest length of the coming node
-                            if (comingNode.weightSumTo == (n.weightSumTo + weightMapper.apply(edge))) {
-                                //set the fromEdge of the coming node to this edge
-                                comingNode.fromEdge = edge;
-                                //set breaking to true, so to outer loop will also stop
-                                breaking = true;
-                                //break out of this loop
-                                break;
-                            }
-                        }
-                    }
-                    //if breaking is true, break out of this loop
-                    if (breaking) break;
+                //calculate the length of the path to the node via this edge
+                possibleNewLength = nextNode.weightSumTo + weightMapper.applyAsDouble(edge);
+
+                //check if the possible new length is smaller than the current length
+                //if this is the case replace the current path with the new path
+                if (possibleNewLength < node.weightSumTo) {
+                    node.weightSumTo = possibleNewLength;
+                    node.fromEdge = edge;
+                    frontier.addOrDecrease(node.index, node.estimatedTotal());
                 }
             }
-            //set the next node equals to the coming node
-            nextNode = comingNode;
         }
+        if (stats != null) stats.numHeapOperations = frontier.getNumOperations();
 
         //get the target node from the program data map
         node = programData.get(target);
 
-        //check if this node exists, if it doesn't exists, there is no route to the target node, return null
-        if (node == null) return null;
+        //check if the target has been marked, if not there is no route to the target node, return null
+        if (node == null || !node.marked) return null;
 
         //set the total length of the path equals to the length of the shortest path to the target node
         path.totalWeight = node.weightSumTo;
@@ -801,6 +1018,8 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
 
     /**
      * Calculates the edge-weighted shortest path from start to target
+     * by an A* search with a zero estimate, which boxes its weights,
+     * see {@link #dijkstraShortestPath(String, String, Function)}
      * @param startId
      * @param targetId
      * @param weightMapper    provides a function by which the weight of an edge can be retrieved or calculated
@@ -810,12 +1029,55 @@ public class DirectedGraph<V extends DGVertex<E>, E extends DGEdge<V>> {
      */
     public DGPath dijkstraShortestPathByAStar(String startId, String targetId,
                                               Function<E,Double> weightMapper) {
-        return aStarShortestPath(startId, targetId,
-                weightMapper,
+        SearchStats stats = SearchStats.start(this.searchListener, "DijkstraByAStar", weightMapper);
+        return SearchStats.complete(stats, this.aStarShortestPath(startId, targetId,
+                weightMapper::apply,
                 //to let a star run as a dijkstra, the estimated length has to be always the same, so
                 //it will be canceled out in the final equation
-                (e, i) -> 0.
-        );
+                (e, i) -> 0.,
+                stats
+        ));
+    }
+
+    /**
+     * Calculates the edge-weighted shortest path from start to target
+     * by growing a forward search from the start and a backward search from the target until they meet
+     * The search runs on the snapshot of the graph, but retrieves the edge weights from the actual edges
+     * @param startId
+     * @param targetId
+     * @param weightMapper    provides a function by which the weight of an edge can be retrieved or calculated
+     * @return  the shortest path from start to target
+     *          returns null if either start or target cannot be matched with a vertex in the graph
+     *                          or no path can be found from start to target
+     */
+    public DGPath bidirectionalDijkstra(String startId, String targetId,
+                                        Function<E,Double> weightMapper) {
+        DGSnapshot<V,E> snapshot = this.freeze();
+        SearchStats stats = SearchStats.start(this.searchListener, "BidirectionalDijkstra", weightMapper);
+        return SearchStats.complete(stats, snapshot.bidirectionalSearch(snapshot.indexOf(startId), snapshot.indexOf(targetId),
+                e -> weightMapper.apply(snapshot.getEdge(e)), null, stats));
+    }
+
+    /**
+     * Calculates the edge-weighted shortest path from start to target
+     * by growing a forward A* search from the start and a backward A* search from the target until they meet
+     * The search runs on the snapshot of the graph, but retrieves the edge weights from the actual edges
+     * @param startId
+     * @param targetId
+     * @param weightMapper    provides a function by which the weight of an edge can be retrieved or calculated
+     * @param minimumWeightEstimator provides a consistent function, by which a lower bound of the cumulative weight
+     *                        between two vertices can be calculated.
+     * @return  the shortest path from start to target
+     *          returns null if either start or target cannot be matched with a vertex in the graph
+     *                          or no path can be found from start to target
+     */
+    public DGPath bidirectionalAStar(String startId, String targetId,
+                                     Function<E,Double> weightMapper,
+                                     BiFunction<V,V,Double> minimumWeightEstimator) {
+        DGSnapshot<V,E> snapshot = this.freeze();
+        SearchStats stats = SearchStats.start(this.searchListener, "BidirectionalAStar", weightMapper);
+        return SearchStats.complete(stats, snapshot.bidirectionalSearch(snapshot.indexOf(startId), snapshot.indexOf(targetId),
+                e -> weightMapper.apply(snapshot.getEdge(e)), minimumWeightEstimator::apply, stats));
     }
 
     @Override
@@ -0,0 +1,145 @@
+package graphs;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Matrix of the weights of the shortest paths from a list of sources to a list of targets in a DGSnapshot
+ * Every row is calculated by a single dijkstra search from its source, which stops as soon as all targets
+ * have been marked, and the rows are calculated in parallel.
+ * Optionally, the last edge of the shortest path to every vertex is kept per source,
+ * such that the actual paths can be reconstructed on demand.
+ */
+public class DistanceMatrix<V extends DGVertex<E>, E extends DGEdge<V>> {
+
+    private final DGSnapshot<V,E> snapshot;
+    private final String[] sourceIds;
+    private final String[] targetIds;
+    private final double[][] distances;
+    private final int[][] parentEdges;          // per source the last edge of every shortest path, or null
+
+    /**
+     * calculates the matrix
+     * @param snapshot
+     * @param weights   the non-negative weights of all edges, aligned with the edge ids of the snapshot
+     * @param sourceIds
+     * @param targetIds
+     * @param keepPaths if true, the predecessor data is kept for reconstruction of the paths by getPath
+     */
+    public DistanceMatrix(DGSnapshot<V,E> snapshot, double[] weights,
+                          Collection<String> sourceIds, Collection<String> targetIds, boolean keepPaths) {
+        this.snapshot = snapshot;
+        this.sourceIds = sourceIds.toArray(new String[0]);
+        this.targetIds = targetIds.toArray(new String[0]);
+        this.distances = new double[this.sourceIds.length][];
+        this.parentEdges = keepPaths ? new int[this.sourceIds.length][] : null;
+
+        int n = snapshot.getNumVertices();
+        int[] targets = new int[this.targetIds.length];
+        boolean[] isTarget = new boolean[n];
+        int numDistinctTargets = 0;
+        for (int j = 0; j < targets.length; j++) {
+            targets[j] = snapshot.indexOf(this.targetIds[j]);
+            if (targets[j] >= 0 && !isTarget[targets[j]]) {
+                isTarget[targets[j]] = true;
+                numDistinctTargets++;
+            }
+        }
+        final int numTargets = numDistinctTargets;
+
+        IntStream.range(0, this.sourceIds.length).parallel().forEach(i -> {
+            double[] row = new double[targets.length];
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+            this.distances[i] = row;
+            int source = snapshot.indexOf(this.sourceIds[i]);
+            // without any target in the graph, there is nothing to search for
+            if (source < 0 || numTargets == 0) return;
+
+            // the stamped workspace of this thread is reset in proportion to the previous search only
+            SearchWorkspace ws = snapshot.getWorkspace();
+            this.search(source, weights, isTarget, numTargets, ws);
+            for (int j = 0; j < targets.length; j++) {
+                if (targets[j] >= 0) row[j] = ws.getWeight(targets[j]);
+            }
+            if (this.parentEdges != null) {
+                // only the entries of the reached vertices are ever read by getPath
+                int[] parentEdge = new int[n];
+                for (int r = 0; r < ws.getNumReached(); r++) {
+                    int v = ws.getReached(r);
+                    parentEdge[v] = ws.getParentEdge(v);
+                }
+                this.parentEdges[i] = parentEdge;
+            }
+        });
+    }
+
+    /**
+     * dijkstra search from the source, which stops as soon as all targets have been marked
+     */
+    private void search(int source, double[] weights, boolean[] isTarget, int numTargets, SearchWorkspace ws) {
+        ws.reset();
+        ws.reach(source, 0.0, -1, 0.0);
+        int numMarkedTargets = 0;
+
+        while (!ws.frontier.isEmpty()) {
+            int v = ws.frontier.poll();
+            ws.mark(v);
+            if (isTarget[v] && ++numMarkedTargets == numTargets) break;
+
+            double weightSumTo = ws.getWeight(v);
+            for (int e = this.snapshot.offsets[v]; e < this.snapshot.offsets[v + 1]; e++) {
+                int w = this.snapshot.targets[e];
+                if (ws.isMarked(w)) continue;
+                double possibleNewLength = weightSumTo + weights[e];
+                if (possibleNewLength < ws.getWeight(w)) {
+                    ws.reach(w, possibleNewLength, e, possibleNewLength);
+                }
+            }
+        }
+    }
+
+    public List<String> getSourceIds() {
+        return Arrays.asList(this.sourceIds);
+    }
+
+    public List<String> getTargetIds() {
+        return Arrays.asList(this.targetIds);
+    }
+
+    /**
+     * @return  the dense matrix of shortest path weights, indexed by [source][target]
+     *          Double.POSITIVE_INFINITY where a target cannot be reached from a source,
+     *          or where a source or target cannot be matched with a vertex in the graph
+     */
+    public double[][] getDistances() {
+        return this.distances;
+    }
+
+    public double getDistance(int sourceIndex, int targetIndex) {
+        return this.distances[sourceIndex][targetIndex];
+    }
+
+    /**
+     * reconstructs the shortest path from a source to a target
+     * @param sourceIndex
+     * @param targetIndex
+     * @return  the shortest path, without any visited vertices registered
+     *          returns null if the target cannot be reached from the source
+     * @throws  IllegalStateException if the matrix has been calculated without keeping the paths
+     */
+    public DirectedGraph<V,E>.DGPath getPath(int sourceIndex, int targetIndex) {
+        if (this.parentEdges == null) {
+            throw new IllegalStateException("The paths have not been kept with this distance matrix");
+        }
+        if (this.distances[sourceIndex][targetIndex] == Double.POSITIVE_INFINITY) return null;
+
+        int source = this.snapshot.indexOf(this.sourceIds[sourceIndex]);
+        int[] parentEdge = this.parentEdges[sourceIndex];
+        LinkedList<E> pathEdges = new LinkedList<>();
+        for (int v = this.snapshot.indexOf(this.targetIds[targetIndex]); v != source; v = this.snapshot.sources[parentEdge[v]]) {
+            pathEdges.addFirst(this.snapshot.getEdge(parentEdge[v]));
+        }
+        return this.snapshot.graph.buildPath(this.snapshot.getVertex(source), pathEdges,
+                this.distances[sourceIndex][targetIndex], new HashSet<>());
+    }
+}
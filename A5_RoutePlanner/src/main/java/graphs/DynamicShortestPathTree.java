@@ -0,0 +1,185 @@
+package graphs;
+
+import java.util.*;
+
+/**
+ * Shortest path tree from a single origin in a DGSnapshot, which is repaired incrementally
+ * after the weight of an edge has been changed (Ramalingam-Reps approach):
+ *  - if the weight of an edge (u,v) decreases, only the vertices whose path improves via (u,v) are updated
+ *  - if the weight of an edge (u,v) in the tree increases, only the subtree below v is recalculated,
+ *    starting from the best connections into that subtree from the rest of the tree
+ * such that the costs of a repair are proportional to the number of vertices whose shortest path actually changes
+ */
+public class DynamicShortestPathTree<V extends DGVertex<E>, E extends DGEdge<V>> {
+
+    private final DGSnapshot<V,E> snapshot;
+    private final double[] weights;             // the current weights of all edges, shared with the owner
+    private final int origin;
+    private final double[] weightSumTo;         // the weight of the shortest path to every vertex
+    private final int[] parentEdge;             // the last edge of the shortest path to every vertex
+
+    // repair workspace
+    private final IndexedMinHeap frontier;
+    private final boolean[] affected;
+    private final int[] affectedList;
+    private int numAffected = 0;
+
+    /**
+     * calculates the initial shortest path tree
+     * @param snapshot
+     * @param weights   the non-negative weights of all edges, aligned with the edge ids of the snapshot.
+     *                  the owner of the array shall call weightChanged after every change of a weight in the array
+     * @param originId
+     */
+    public DynamicShortestPathTree(DGSnapshot<V,E> snapshot, double[] weights, String originId) {
+        this.snapshot = snapshot;
+        this.weights = weights;
+        this.origin = snapshot.indexOf(originId);
+        if (this.origin < 0) {
+            throw new IllegalArgumentException("Unknown origin " + originId);
+        }
+        int n = snapshot.getNumVertices();
+        this.weightSumTo = new double[n];
+        this.parentEdge = new int[n];
+        this.frontier = new IndexedMinHeap(n);
+        this.affected = new boolean[n];
+        this.affectedList = new int[n];
+        snapshot.shortestPathTree(this.origin, weights, false, this.weightSumTo, this.parentEdge, null);
+    }
+
+    public V getOrigin() {
+        return this.snapshot.getVertex(this.origin);
+    }
+
+    /**
+     * @return  the number of vertices whose shortest path has been reconsidered by the most recent repair
+     */
+    public int getNumAffected() {
+        return this.numAffected;
+    }
+
+    /**
+     * @param targetId
+     * @return  the weight of the shortest path from the origin to the target,
+     *          Double.POSITIVE_INFINITY if the target cannot be reached
+     */
+    public double getWeightTo(String targetId) {
+        int target = this.snapshot.indexOf(targetId);
+        return target >= 0 ? this.weightSumTo[target] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @param targetId
+     * @return  the shortest path from the origin to the target, with all vertices on the path as visited
+     *          returns null if the target cannot be matched with a vertex or cannot be reached
+     */
+    public DirectedGraph<V,E>.DGPath getPathTo(String targetId) {
+        int target = this.snapshot.indexOf(targetId);
+        if (target < 0 || this.weightSumTo[target] == Double.POSITIVE_INFINITY) return null;
+
+        LinkedList<E> pathEdges = new LinkedList<>();
+        Set<V> visited = new HashSet<>();
+        visited.add(this.snapshot.getVertex(target));
+        for (int v = target; v != this.origin; v = this.snapshot.sources[this.parentEdge[v]]) {
+            pathEdges.addFirst(this.snapshot.getEdge(this.parentEdge[v]));
+            visited.add(this.snapshot.getVertex(this.snapshot.sources[this.parentEdge[v]]));
+        }
+        return this.snapshot.graph.buildPath(this.snapshot.getVertex(this.origin), pathEdges,
+                this.weightSumTo[target], visited);
+    }
+
+    /**
+     * repairs the tree after the weight of edge e has been changed in the weights array
+     * @param e
+     * @param oldWeight the weight of the edge before the change
+     */
+    public void weightChanged(int e, double oldWeight) {
+        this.clearAffected();
+        double newWeight = this.weights[e];
+        int u = this.snapshot.sources[e];
+        int v = this.snapshot.targets[e];
+
+        if (newWeight < oldWeight) {
+            // a decrease can only improve the paths via this edge
+            double possibleNewLength = this.weightSumTo[u] + newWeight;
+            if (possibleNewLength < this.weightSumTo[v]) {
+                this.weightSumTo[v] = possibleNewLength;
+                this.parentEdge[v] = e;
+                this.frontier.addOrDecrease(v, possibleNewLength);
+                this.propagate();
+            }
+        } else if (newWeight > oldWeight && this.parentEdge[v] == e) {
+            // an increase of a tree edge invalidates the paths in the subtree below the edge
+            this.collectSubtree(v);
+
+            // reconnect every affected vertex via its best incoming edge from the unaffected part of the tree
+            for (int i = 0; i < this.numAffected; i++) {
+                int x = this.affectedList[i];
+                this.weightSumTo[x] = Double.POSITIVE_INFINITY;
+                this.parentEdge[x] = -1;
+                for (int j = this.snapshot.inOffsets[x]; j < this.snapshot.inOffsets[x + 1]; j++) {
+                    int in = this.snapshot.inEdges[j];
+                    int y = this.snapshot.sources[in];
+                    if (this.affected[y]) continue;
+                    double possibleNewLength = this.weightSumTo[y] + this.weights[in];
+                    if (possibleNewLength < this.weightSumTo[x]) {
+                        this.weightSumTo[x] = possibleNewLength;
+                        this.parentEdge[x] = in;
+                    }
+                }
+                if (this.weightSumTo[x] < Double.POSITIVE_INFINITY) {
+                    this.frontier.addOrDecrease(x, this.weightSumTo[x]);
+                }
+            }
+            // and let the best connections propagate through the affected subtree
+            this.propagate();
+        }
+    }
+
+    /**
+     * dijkstra search from the vertices in the frontier, which only continues where paths improve
+     */
+    private void propagate() {
+        while (!this.frontier.isEmpty()) {
+            int x = this.frontier.poll();
+            if (!this.affected[x]) {
+                this.affected[x] = true;
+                this.affectedList[this.numAffected++] = x;
+            }
+            for (int e = this.snapshot.offsets[x]; e < this.snapshot.offsets[x + 1]; e++) {
+                int y = this.snapshot.targets[e];
+                double possibleNewLength = this.weightSumTo[x] + this.weights[e];
+                if (possibleNewLength < this.weightSumTo[y]) {
+                    this.weightSumTo[y] = possibleNewLength;
+                    this.parentEdge[y] = e;
+                    this.frontier.addOrDecrease(y, possibleNewLength);
+                }
+            }
+        }
+    }
+
+    /**
+     * marks vertex v and all its descendants in the tree as affected
+     */
+    private void collectSubtree(int v) {
+        this.affected[v] = true;
+        this.affectedList[this.numAffected++] = v;
+        for (int i = 0; i < this.numAffected; i++) {
+            int x = this.affectedList[i];
+            for (int e = this.snapshot.offsets[x]; e < this.snapshot.offsets[x + 1]; e++) {
+                int y = this.snapshot.targets[e];
+                if (this.parentEdge[y] == e && !this.affected[y]) {
+                    this.affected[y] = true;
+                    this.affectedList[this.numAffected++] = y;
+                }
+            }
+        }
+    }
+
+    private void clearAffected() {
+        for (int i = 0; i < this.numAffected; i++) {
+            this.affected[this.affectedList[i]] = false;
+        }
+        this.numAffected = 0;
+    }
+}
@@ -0,0 +1,168 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * binary min-heap of int vertex ids with a double key per vertex
+ * every vertex keeps track of its own position in the heap,
+ * which allows for a decrease-key operation in O(log n)
+ * ties between equal keys are broken by the lowest vertex id, or by a tie breaker of the caller
+ * the capacity grows when a vertex id beyond the capacity is added
+ */
+public class IndexedMinHeap {
+    private int[] heap;                 // the vertex ids in heap order
+    private int[] position;             // the position of every vertex in the heap, -1 if not queued
+    private double[] keys;              // the current key of every vertex
+    private final IntBinaryOperator tieBreaker;     // compares two vertices with equal keys, null for the lowest id
+    private int size = 0;
+    private long numOperations = 0;     // the number of insertions, decrease-keys and removals sofar
+
+    /**
+     * @param capacity  the number of vertex ids 0 <= v < capacity that may be queued without growing the heap
+     */
+    public IndexedMinHeap(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * @param capacity  the number of vertex ids 0 <= v < capacity that may be queued without growing the heap
+     * @param tieBreaker    compares two vertex ids with equal keys like a Comparator,
+     *                      such that the vertex that compares lower is polled first
+     */
+    public IndexedMinHeap(int capacity, IntBinaryOperator tieBreaker) {
+        this.heap = new int[capacity];
+        this.position = new int[capacity];
+        this.keys = new double[capacity];
+        this.tieBreaker = tieBreaker;
+        Arrays.fill(this.position, -1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int v) {
+        return v < position.length && position[v] >= 0;
+    }
+
+    /**
+     * @return  the number of calls of addOrDecrease and poll since the heap has been created
+     */
+    public long getNumOperations() {
+        return numOperations;
+    }
+
+    public double getKey(int v) {
+        return keys[v];
+    }
+
+    /**
+     * @return  the vertex with the smallest key, without removing it
+     */
+    public int peek() {
+        return heap[0];
+    }
+
+    /**
+     * @return  the smallest key in the heap
+     */
+    public double peekKey() {
+        return keys[heap[0]];
+    }
+
+    /**
+     * adds vertex v to the heap, or moves it up after its key has been decreased
+     * @param v
+     * @param key   the new key of v, which shall not be larger than its current key if v is queued already
+     */
+    public void addOrDecrease(int v, double key) {
+        numOperations++;
+        if (v >= position.length) grow(v + 1);
+        keys[v] = key;
+        if (position[v] < 0) {
+            //the vertex is new, append it at the bottom of the heap
+            position[v] = size;
+            heap[size++] = v;
+        }
+        siftUp(position[v]);
+    }
+
+    /**
+     * removes and returns the vertex with the smallest key
+     * @return
+     */
+    public int poll() {
+        numOperations++;
+        int top = heap[0];
+        int last = heap[--size];
+        position[top] = -1;
+        if (size > 0) {
+            //move the last vertex into the root and let it sink to its proper place
+            place(last, 0);
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * removes all vertices from the heap in O(size), such that the heap can be reused for another search
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, 2 * position.length);
+        int oldCapacity = position.length;
+        heap = Arrays.copyOf(heap, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        position = Arrays.copyOf(position, capacity);
+        Arrays.fill(position, oldCapacity, capacity, -1);
+    }
+
+    private void siftUp(int index) {
+        int v = heap[index];
+        while (index > 0) {
+            int parentIndex = (index - 1) / 2;
+            int parent = heap[parentIndex];
+            if (!precedes(v, parent)) break;
+            place(parent, index);
+            index = parentIndex;
+        }
+        place(v, index);
+    }
+
+    private void siftDown(int index) {
+        int v = heap[index];
+        while (2 * index + 1 < size) {
+            //find the smallest child
+            int childIndex = 2 * index + 1;
+            if (childIndex + 1 < size && precedes(heap[childIndex + 1], heap[childIndex])) {
+                childIndex++;
+            }
+            int child = heap[childIndex];
+            if (!precedes(child, v)) break;
+            place(child, index);
+            index = childIndex;
+        }
+        place(v, index);
+    }
+
+    private boolean precedes(int v, int w) {
+        if (keys[v] != keys[w]) return keys[v] < keys[w];
+        return tieBreaker == null ? v < w : tieBreaker.applyAsInt(v, w) < 0;
+    }
+
+    private void place(int v, int index) {
+        heap[index] = v;
+        position[v] = index;
+    }
+}
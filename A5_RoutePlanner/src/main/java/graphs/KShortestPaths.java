@@ -0,0 +1,236 @@
+package graphs;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Yen's algorithm for the k shortest loopless paths between two vertices of a DGSnapshot,
+ * e.g. to suggest alternative routes
+ *
+ * Every next path deviates from one of the paths found sofar at a spur vertex: the root of that path up to the
+ * spur vertex is kept, and a spur path to the target is searched while the vertices of the root and the next edges
+ * of all paths with the same root are masked. The masks are stamped int arrays, so the graph is never copied.
+ * The spur searches of a path are independent and run in parallel.
+ *
+ * Masking only removes edges, so the weight of the shortest path from any vertex to the target in the unmasked graph
+ * is a consistent estimate for all spur searches. With these exact estimates from a single backward search,
+ * every spur search by A* only settles the vertices on or near its result.
+ * Following Lawler, a path is only deviated from at the spur vertices at or after its own deviation.
+ */
+public class KShortestPaths<V extends DGVertex<E>, E extends DGEdge<V>> {
+
+    private final DGSnapshot<V,E> snapshot;
+    private final double[] weights;
+    private final ThreadLocal<Mask> masks;
+
+    /**
+     * stamped masks of blocked edges and vertices, for reuse by the spur searches of one thread
+     */
+    private static class Mask {
+        final int[] edgeStamp;
+        final int[] vertexStamp;
+        int stamp = 0;
+
+        Mask(int numVertices, int numEdges) {
+            this.edgeStamp = new int[numEdges];
+            this.vertexStamp = new int[numVertices];
+        }
+
+        void clear() {
+            if (++this.stamp == Integer.MAX_VALUE) {
+                // wrap around, which requires a full reset once every 2^31 spur searches
+                Arrays.fill(this.edgeStamp, 0);
+                Arrays.fill(this.vertexStamp, 0);
+                this.stamp = 1;
+            }
+        }
+    }
+
+    /**
+     * a loopless path by its edge ids
+     * candidates are equal if they have the same sequence of edges, such that duplicates can be found in a hash set
+     */
+    private static class Candidate {
+        final int[] edges;
+        final double weight;
+        final int deviation;    // the index of the first edge that deviates from the path it has been derived from
+        private final int hash;
+
+        Candidate(int[] edges, double weight, int deviation) {
+            this.edges = edges;
+            this.weight = weight;
+            this.deviation = deviation;
+            this.hash = Arrays.hashCode(edges);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Candidate)) return false;
+            Candidate other = (Candidate) o;
+            return this.hash == other.hash && Arrays.equals(this.edges, other.edges);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    /**
+     * @param snapshot
+     * @param weights   the non-negative weights of all edges, aligned with the edge ids of the snapshot
+     */
+    public KShortestPaths(DGSnapshot<V,E> snapshot, double[] weights) {
+        this.snapshot = snapshot;
+        this.weights = weights;
+        this.masks = ThreadLocal.withInitial(() -> new Mask(snapshot.getNumVertices(), snapshot.getNumEdges()));
+    }
+
+    /**
+     * Calculates the k shortest loopless paths from start to target
+     * @param startId
+     * @param targetId
+     * @param k     the maximum number of paths
+     * @return  at most k paths, ordered by increasing total weight, with the vertices on every path as visited
+     *          returns an empty list if either start or target cannot be matched with a vertex in the graph
+     *                          or no path can be found from start to target
+     */
+    public List<DirectedGraph<V,E>.DGPath> find(String startId, String targetId, int k) {
+        List<DirectedGraph<V,E>.DGPath> paths = new ArrayList<>();
+        int start = this.snapshot.indexOf(startId);
+        int target = this.snapshot.indexOf(targetId);
+        if (start < 0 || target < 0 || k <= 0 || !this.snapshot.getComponents().mayReach(start, target)) return paths;
+
+        // the weights of the shortest paths to the target, and the first edge of every such path
+        int n = this.snapshot.getNumVertices();
+        double[] toTarget = new double[n];
+        int[] nextEdge = new int[n];
+        this.snapshot.shortestPathTree(target, this.weights, true, toTarget, nextEdge, null);
+        if (toTarget[start] == Double.POSITIVE_INFINITY) return paths;
+
+        List<Candidate> accepted = new ArrayList<>();
+        accepted.add(new Candidate(this.followTree(start, target, nextEdge), toTarget[start], 0));
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(
+                Comparator.comparingDouble((Candidate c) -> c.weight).thenComparingInt(c -> c.edges.length));
+        Set<Candidate> known = new HashSet<>();
+        known.add(accepted.get(0));
+
+        while (accepted.size() < k) {
+            Candidate previous = accepted.get(accepted.size() - 1);
+            List<Candidate> spurs = IntStream.range(previous.deviation, previous.edges.length).parallel()
+                    .mapToObj(i -> this.deviate(previous, i, start, target, toTarget, accepted))
+                    .collect(Collectors.toList());
+            for (Candidate spur : spurs) {
+                if (spur != null && known.add(spur)) candidates.add(spur);
+            }
+            if (candidates.isEmpty()) break;
+            accepted.add(candidates.poll());
+        }
+
+        for (Candidate c : accepted) {
+            paths.add(this.toPath(start, c));
+        }
+        return paths;
+    }
+
+    /**
+     * finds the shortest path that shares the first i edges with the given path, but deviates at its i-th vertex
+     * @return  the deviating path, or null if none exists
+     */
+    private Candidate deviate(Candidate path, int i, int start, int target, double[] toTarget, List<Candidate> accepted) {
+        Mask mask = this.masks.get();
+        mask.clear();
+
+        // the root vertices before the spur vertex shall not be visited again
+        double rootWeight = 0.0;
+        for (int j = 0; j < i; j++) {
+            mask.vertexStamp[this.snapshot.sources[path.edges[j]]] = mask.stamp;
+            rootWeight += this.weights[path.edges[j]];
+        }
+        int spur = i == 0 ? start : this.snapshot.targets[path.edges[i - 1]];
+
+        // the next edges of all accepted paths with the same root have been tried already
+        for (Candidate other : accepted) {
+            if (other.edges.length > i && sameRoot(other.edges, path.edges, i)) {
+                mask.edgeStamp[other.edges[i]] = mask.stamp;
+            }
+        }
+
+        int[] spurEdges = this.spurSearch(spur, target, toTarget, mask);
+        if (spurEdges == null) return null;
+
+        int[] edges = Arrays.copyOf(path.edges, i + spurEdges.length);
+        System.arraycopy(spurEdges, 0, edges, i, spurEdges.length);
+        double weight = rootWeight;
+        for (int e : spurEdges) weight += this.weights[e];
+        return new Candidate(edges, weight, i);
+    }
+
+    /**
+     * A* search from the spur vertex to the target, avoiding the masked vertices and edges
+     * @return  the edges of the spur path, or null if the target cannot be reached
+     */
+    private int[] spurSearch(int spur, int target, double[] toTarget, Mask mask) {
+        SearchWorkspace ws = this.snapshot.getWorkspace();
+        ws.reset();
+        ws.reach(spur, 0.0, -1, toTarget[spur]);
+
+        while (!ws.frontier.isEmpty()) {
+            int v = ws.frontier.poll();
+            if (v == target) {
+                int numEdges = 0;
+                for (int x = target; x != spur; x = this.snapshot.sources[ws.getParentEdge(x)]) numEdges++;
+                int[] edges = new int[numEdges];
+                for (int x = target; x != spur; x = this.snapshot.sources[ws.getParentEdge(x)]) {
+                    edges[--numEdges] = ws.getParentEdge(x);
+                }
+                return edges;
+            }
+
+            double weightSumTo = ws.getWeight(v);
+            for (int e = this.snapshot.offsets[v]; e < this.snapshot.offsets[v + 1]; e++) {
+                int w = this.snapshot.targets[e];
+                if (mask.edgeStamp[e] == mask.stamp || mask.vertexStamp[w] == mask.stamp
+                        || toTarget[w] == Double.POSITIVE_INFINITY) continue;
+                double possibleNewLength = weightSumTo + this.weights[e];
+                if (possibleNewLength < ws.getWeight(w)) {
+                    ws.reach(w, possibleNewLength, e, possibleNewLength + toTarget[w]);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return  the edges of the shortest path from v to the target, along the backward shortest path tree
+     */
+    private int[] followTree(int v, int target, int[] nextEdge) {
+        int numEdges = 0;
+        for (int x = v; x != target; x = this.snapshot.targets[nextEdge[x]]) numEdges++;
+        int[] edges = new int[numEdges];
+        for (int i = 0; v != target; v = this.snapshot.targets[nextEdge[v]]) {
+            edges[i++] = nextEdge[v];
+        }
+        return edges;
+    }
+
+    private static boolean sameRoot(int[] edges, int[] otherEdges, int length) {
+        for (int j = 0; j < length; j++) {
+            if (edges[j] != otherEdges[j]) return false;
+        }
+        return true;
+    }
+
+    private DirectedGraph<V,E>.DGPath toPath(int start, Candidate c) {
+        LinkedList<E> pathEdges = new LinkedList<>();
+        Set<V> visited = new HashSet<>();
+        visited.add(this.snapshot.getVertex(start));
+        for (int e : c.edges) {
+            pathEdges.add(this.snapshot.getEdge(e));
+            visited.add(this.snapshot.getVertex(this.snapshot.targets[e]));
+        }
+        return this.snapshot.graph.buildPath(this.snapshot.getVertex(start), pathEdges, c.weight, visited);
+    }
+}
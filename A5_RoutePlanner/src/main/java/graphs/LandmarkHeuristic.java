@@ -0,0 +1,245 @@
+package graphs;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.function.ToDoubleBiFunction;
+
+/**
+ * ALT (A*, Landmarks, Triangle inequality) heuristic for one specific weighting of the edges of a DGSnapshot
+ *
+ * For a selected set of landmarks L, the weights of all shortest paths from and to every landmark are precalculated.
+ * By the triangle inequality, d(L,t) - d(L,v) and d(v,L) - d(t,L) are both lower bounds of d(v,t),
+ * and the maximum over all landmarks provides a consistent estimator for aStarShortestPath.
+ *
+ * The lower bounds remain valid when edge weights are increased later, but not when any weight is decreased.
+ */
+public class LandmarkHeuristic<V extends DGVertex<E>, E extends DGEdge<V>>
+        implements BiFunction<V,V,Double>, ToDoubleBiFunction<V,V> {
+
+    /**
+     * strategies for the selection of landmarks
+     */
+    public enum Selection {
+        /** every next landmark is the vertex that is farthest away from all landmarks selected sofar */
+        FARTHEST,
+        /** every next landmark is a leaf in a region of a shortest path tree which is poorly covered sofar */
+        AVOID
+    }
+
+    private final DGSnapshot<V,E> snapshot;
+    private final int numLandmarks;
+    private final int[] landmarks;
+    // the weight of the shortest path from landmark i to vertex v at index v * numLandmarks + i
+    private final double[] fromLandmark;
+    // the weight of the shortest path from vertex v to landmark i at index v * numLandmarks + i
+    private final double[] toLandmark;
+
+    /**
+     * selects the landmarks and precalculates their distance tables
+     * @param snapshot
+     * @param weights       the non-negative weights of all edges, aligned with the edge ids of the snapshot
+     * @param numLandmarks
+     * @param selection
+     * @param seed          seed for the selection of the initial vertex
+     */
+    public LandmarkHeuristic(DGSnapshot<V,E> snapshot, double[] weights, int numLandmarks,
+                             Selection selection, long seed) {
+        this.snapshot = snapshot;
+        int n = snapshot.getNumVertices();
+        this.numLandmarks = Math.min(numLandmarks, n);
+        this.landmarks = new int[this.numLandmarks];
+        this.fromLandmark = new double[n * this.numLandmarks];
+        this.toLandmark = new double[n * this.numLandmarks];
+
+        Random random = new Random(seed);
+        double[] forward = new double[n];
+        double[] backward = new double[n];
+        for (int i = 0; i < this.numLandmarks; i++) {
+            int landmark = selection == Selection.FARTHEST
+                    ? this.selectFarthest(i, random)
+                    : this.selectAvoid(i, weights, random);
+            this.landmarks[i] = landmark;
+
+            snapshot.shortestPathTree(landmark, weights, false, forward, null, null);
+            snapshot.shortestPathTree(landmark, weights, true, backward, null, null);
+            for (int v = 0; v < n; v++) {
+                this.fromLandmark[v * this.numLandmarks + i] = forward[v];
+                this.toLandmark[v * this.numLandmarks + i] = backward[v];
+            }
+        }
+    }
+
+    public int getNumLandmarks() {
+        return this.numLandmarks;
+    }
+
+    /**
+     * @param i
+     * @return  the vertex that has been selected as landmark i
+     */
+    public V getLandmark(int i) {
+        return this.snapshot.getVertex(this.landmarks[i]);
+    }
+
+    @Override
+    public Double apply(V from, V to) {
+        return this.applyAsDouble(from, to);
+    }
+
+    @Override
+    public double applyAsDouble(V from, V to) {
+        int v = this.snapshot.indexOf(from.getId());
+        int t = this.snapshot.indexOf(to.getId());
+        if (v < 0 || t < 0) return 0.0;
+        return this.lowerBound(v, t);
+    }
+
+    /**
+     * calculates a lower bound of the weight of the shortest path between two vertices of the snapshot
+     * @param v
+     * @param t
+     * @return
+     */
+    public double lowerBound(int v, int t) {
+        double bound = 0.0;
+        int vBase = v * this.numLandmarks;
+        int tBase = t * this.numLandmarks;
+        for (int i = 0; i < this.numLandmarks; i++) {
+            // landmarks that cannot reach or cannot be reached from both vertices provide no information
+            double forwardBound = this.fromLandmark[tBase + i] - this.fromLandmark[vBase + i];
+            if (forwardBound > bound && this.fromLandmark[vBase + i] < Double.POSITIVE_INFINITY) {
+                bound = forwardBound;
+            }
+            double backwardBound = this.toLandmark[vBase + i] - this.toLandmark[tBase + i];
+            if (backwardBound > bound && this.toLandmark[tBase + i] < Double.POSITIVE_INFINITY) {
+                bound = backwardBound;
+            }
+        }
+        // a vertex that can reach a landmark which its target cannot reach, has no path to the target at all,
+        // but an infinite estimate would not be of use in further arithmetic
+        return bound < Double.POSITIVE_INFINITY ? bound : Double.MAX_VALUE;
+    }
+
+    /**
+     * selects the vertex with the largest hop distance to the landmarks selected sofar
+     * the first landmark is the farthest vertex from a random vertex
+     */
+    private int selectFarthest(int numSelected, Random random) {
+        int n = this.snapshot.getNumVertices();
+        int[] hops = new int[n];
+        int[] queue = new int[n];
+        Arrays.fill(hops, -1);
+        int head = 0, tail = 0;
+
+        if (numSelected == 0) {
+            queue[tail++] = random.nextInt(n);
+        } else {
+            for (int i = 0; i < numSelected; i++) queue[tail++] = this.landmarks[i];
+        }
+        for (int i = 0; i < tail; i++) hops[queue[i]] = 0;
+
+        // breadth-first search along the edges in both directions from all sources
+        // the last vertex to be reached is the farthest away
+        int farthest = queue[0];
+        while (head < tail) {
+            int v = queue[head++];
+            farthest = v;
+            for (int e = this.snapshot.offsets[v]; e < this.snapshot.offsets[v + 1]; e++) {
+                int w = this.snapshot.targets[e];
+                if (hops[w] < 0) {
+                    hops[w] = hops[v] + 1;
+                    queue[tail++] = w;
+                }
+            }
+            for (int i = this.snapshot.inOffsets[v]; i < this.snapshot.inOffsets[v + 1]; i++) {
+                int w = this.snapshot.sources[this.snapshot.inEdges[i]];
+                if (hops[w] < 0) {
+                    hops[w] = hops[v] + 1;
+                    queue[tail++] = w;
+                }
+            }
+        }
+
+        // vertices that cannot be reached at all are even farther away
+        for (int v = 0; v < n; v++) {
+            if (hops[v] < 0) return v;
+        }
+        return farthest;
+    }
+
+    /**
+     * selects a new landmark according to the avoid strategy of Goldberg and Werneck:
+     * grows a shortest path tree from a random root and gives every vertex the weight
+     * d(root,v) - lowerBound(root,v), i.e. how poorly it is covered by the landmarks sofar.
+     * Subtrees which contain a landmark already get size 0. Starting at the vertex with the
+     * largest subtree size, the walk descends into the largest child subtree until a leaf is reached.
+     */
+    private int selectAvoid(int numSelected, double[] weights, Random random) {
+        int n = this.snapshot.getNumVertices();
+        int root = random.nextInt(n);
+        if (numSelected == 0) return this.selectFarthest(0, random);
+
+        double[] weightSumTo = new double[n];
+        int[] parentEdge = new int[n];
+        int[] settleOrder = new int[n];
+        int numReached = this.snapshot.shortestPathTree(root, weights, false, weightSumTo, parentEdge, settleOrder);
+
+        boolean[] isLandmark = new boolean[n];
+        for (int i = 0; i < numSelected; i++) isLandmark[this.landmarks[i]] = true;
+
+        // accumulate the subtree sizes bottom-up, children have been settled after their parent
+        double[] size = new double[n];
+        boolean[] hasLandmark = new boolean[n];
+        for (int i = numReached - 1; i >= 0; i--) {
+            int v = settleOrder[i];
+            hasLandmark[v] |= isLandmark[v];
+            if (!hasLandmark[v]) {
+                // only the first numSelected landmarks have their tables filled sofar
+                size[v] += weightSumTo[v] - this.partialLowerBound(root, v, numSelected);
+            } else {
+                size[v] = 0.0;
+            }
+            if (parentEdge[v] >= 0) {
+                int parent = this.snapshot.sources[parentEdge[v]];
+                size[parent] += size[v];
+                hasLandmark[parent] |= hasLandmark[v];
+            }
+        }
+
+        // start at the vertex with the largest subtree size
+        int best = root;
+        for (int i = 0; i < numReached; i++) {
+            if (size[settleOrder[i]] > size[best]) best = settleOrder[i];
+        }
+        if (size[best] <= 0.0) return this.selectFarthest(numSelected, random);
+
+        // descend into the largest child subtree until a leaf is reached
+        while (true) {
+            int next = -1;
+            for (int e = this.snapshot.offsets[best]; e < this.snapshot.offsets[best + 1]; e++) {
+                int w = this.snapshot.targets[e];
+                if (parentEdge[w] == e && size[w] > 0.0 && (next < 0 || size[w] > size[next])) next = w;
+            }
+            if (next < 0) return best;
+            best = next;
+        }
+    }
+
+    private double partialLowerBound(int v, int t, int numFilled) {
+        double bound = 0.0;
+        for (int i = 0; i < numFilled; i++) {
+            double fromV = this.fromLandmark[v * this.numLandmarks + i];
+            double fromT = this.fromLandmark[t * this.numLandmarks + i];
+            if (fromV < Double.POSITIVE_INFINITY && fromT < Double.POSITIVE_INFINITY) {
+                bound = Math.max(bound, fromT - fromV);
+            }
+            double toV = this.toLandmark[v * this.numLandmarks + i];
+            double toT = this.toLandmark[t * this.numLandmarks + i];
+            if (toV < Double.POSITIVE_INFINITY && toT < Double.POSITIVE_INFINITY) {
+                bound = Math.max(bound, toV - toT);
+            }
+        }
+        return bound;
+    }
+}
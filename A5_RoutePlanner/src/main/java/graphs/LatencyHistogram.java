@@ -0,0 +1,99 @@
+package graphs;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe histogram of non-negative long values, e.g. latencies in nanoseconds, with a fixed relative precision
+ * Like an HdrHistogram, the values are counted in buckets that double in width with every power of two,
+ * and every bucket is divided into 64 sub-buckets, such that any recorded value is known within 1/64 of its size.
+ * The values 0..127 are counted exactly, and the complete range of long values takes 3712 counters.
+ * Recording a value is a constant time, lock-free update.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;    // the values of the first bucket
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;     // the sub-buckets of every other bucket
+
+    private final AtomicLongArray counts = new AtomicLongArray(indexOf(Long.MAX_VALUE) + 1);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalValue = new LongAdder();
+    private final LongAccumulator maxValue = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * @param value     negative values are recorded as 0
+     */
+    public void record(long value) {
+        value = Math.max(0L, value);
+        this.counts.incrementAndGet(indexOf(value));
+        this.totalCount.increment();
+        this.totalValue.add(value);
+        this.maxValue.accumulate(value);
+    }
+
+    public long getCount() {
+        return this.totalCount.sum();
+    }
+
+    public long getMax() {
+        return this.maxValue.get();
+    }
+
+    public double getMean() {
+        long count = this.totalCount.sum();
+        return count > 0 ? (double)this.totalValue.sum() / count : 0.0;
+    }
+
+    /**
+     * @param percentile    0.0 <= percentile <= 100.0
+     * @return  the largest value that may have been recorded at the given percentile,
+     *          i.e. at least percentile % of all recorded values is not larger; 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = this.totalCount.sum();
+        if (count == 0) return 0L;
+        long rank = Math.max(1L, (long)Math.ceil(Math.min(100.0, percentile) / 100.0 * count));
+        long cumulativeCount = 0;
+        for (int i = 0; i < this.counts.length(); i++) {
+            cumulativeCount += this.counts.get(i);
+            if (cumulativeCount >= rank) {
+                return Math.min(highestEquivalentValue(i), this.getMax());
+            }
+        }
+        return this.getMax();
+    }
+
+    /**
+     * forgets all recorded values; values that are recorded concurrently may be partially forgotten
+     */
+    public void reset() {
+        for (int i = 0; i < this.counts.length(); i++) {
+            this.counts.set(i, 0L);
+        }
+        this.totalCount.reset();
+        this.totalValue.reset();
+        this.maxValue.reset();
+    }
+
+    /**
+     * bucket 0 counts the values 0..127 exactly,
+     * every next bucket b counts the values 64 * 2^b .. 128 * 2^b - 1 in 64 sub-buckets of width 2^b
+     */
+    static int indexOf(long value) {
+        int bucket = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        if (bucket == 0) return (int)value;
+        return SUB_BUCKET_COUNT + (bucket - 1) * SUB_BUCKET_HALF + (int)(value >>> bucket) - SUB_BUCKET_HALF;
+    }
+
+    /**
+     * @return  the largest value that is counted by the counter at the index
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+        int bucket = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return (subBucket << bucket) + (1L << bucket) - 1;
+    }
+}
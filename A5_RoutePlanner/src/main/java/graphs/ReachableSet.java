@@ -0,0 +1,66 @@
+package graphs;
+
+import java.util.*;
+
+/**
+ * Result of a bounded search: all vertices that can be reached from a set of origins within a weight budget,
+ * ordered by increasing weight of their shortest path from the nearest origin
+ */
+public class ReachableSet<V extends DGVertex<E>, E extends DGEdge<V>> {
+
+    private final List<V> vertices;
+    private final double[] weights;
+    private final List<V> origins;
+
+    ReachableSet(List<V> vertices, double[] weights, List<V> origins) {
+        this.vertices = vertices;
+        this.weights = weights;
+        this.origins = origins;
+    }
+
+    /**
+     * @return  the number of reachable vertices, including the origins
+     */
+    public int size() {
+        return this.vertices.size();
+    }
+
+    public List<V> getVertices() {
+        return Collections.unmodifiableList(this.vertices);
+    }
+
+    /**
+     * @param i
+     * @return  the i-th reachable vertex
+     */
+    public V getVertex(int i) {
+        return this.vertices.get(i);
+    }
+
+    /**
+     * @param i
+     * @return  the weight of the shortest path to the i-th reachable vertex from its nearest origin
+     */
+    public double getWeight(int i) {
+        return this.weights[i];
+    }
+
+    /**
+     * @param i
+     * @return  the origin that is nearest to the i-th reachable vertex
+     */
+    public V getOrigin(int i) {
+        return this.origins.get(i);
+    }
+
+    /**
+     * @return  the weight of the shortest path from the nearest origin to every reachable vertex
+     */
+    public Map<V,Double> toMap() {
+        Map<V,Double> map = new LinkedHashMap<>();
+        for (int i = 0; i < this.vertices.size(); i++) {
+            map.put(this.vertices.get(i), this.weights[i]);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,308 @@
+package graphs;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Thread-safe cache of shortest paths over a snapshot, keyed on start, target and a named weight profile
+ * The cache is bounded both by its number of paths and by the total number of edges on all its paths,
+ * and evicts the least recently used paths first.
+ * Changes in the weight of an edge are reported by accept, and invalidate the cached paths that may be affected:
+ * a heavier edge only invalidates the paths of its profile that use the edge, while a lighter edge
+ * invalidates all paths of its profile, as any of them may take a shortcut along the edge now.
+ * Queries without any path are invalidated by a lighter edge as well, as a closed edge with an infinite weight
+ * may have been opened again. Only the paths from a vertex to itself are never invalidated by changes in weights.
+ * The cache does not follow changes in the structure of the graph, i.e. added or removed vertices or edges.
+ */
+public class RouteCache<V extends DGVertex<E>, E extends DGEdge<V>> implements Consumer<E> {
+
+    private final DGSnapshot<V,E> snapshot;
+    private final int maxEntries;
+    private final long maxEdges;
+    private final Map<String, Profile> profiles = new HashMap<>();
+    // all cached paths, in the order of their most recent use
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long numCachedEdges = 0;
+
+    private long numHits = 0;
+    private long numMisses = 0;
+    private long numEvictions = 0;
+    private long numInvalidations = 0;
+
+    // a weighting of all edges, which is kept up-to-date with the changes that are reported
+    // the weights are replaced by a modified copy on every change, such that running searches never see a change
+    private class Profile {
+        final ToDoubleFunction<E> weightMapper;
+        double[] weights;               // aligned with the edge ids of the snapshot
+        final int[] numPaths;           // the number of cached paths that use every edge
+        long version = 0;               // incremented with every change in weights
+
+        Profile(ToDoubleFunction<E> weightMapper) {
+            this.weightMapper = weightMapper;
+            this.weights = RouteCache.this.snapshot.compileWeights(weightMapper);
+            this.numPaths = new int[this.weights.length];
+        }
+    }
+
+    private class Key {
+        final Profile profile;
+        final int start;
+        final int target;
+
+        Key(Profile profile, int start, int target) {
+            this.profile = profile;
+            this.start = start;
+            this.target = target;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RouteCache.Key)) return false;
+            RouteCache<?,?>.Key other = (RouteCache<?,?>.Key) o;
+            return this.profile == other.profile && this.start == other.start && this.target == other.target;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * this.profile.hashCode() + this.start) + this.target;
+        }
+    }
+
+    // the edge ids of a cached path, or null if there is no path
+    private static class Entry {
+        final int[] pathEdges;
+        final double totalWeight;
+
+        Entry(int[] pathEdges, double totalWeight) {
+            this.pathEdges = pathEdges;
+            this.totalWeight = totalWeight;
+        }
+
+        int getNumEdges() {
+            return this.pathEdges != null ? this.pathEdges.length : 0;
+        }
+    }
+
+    /**
+     * @param snapshot
+     * @param maxEntries    the maximum number of cached paths
+     * @param maxEdges      the maximum total number of edges on all cached paths
+     */
+    public RouteCache(DGSnapshot<V,E> snapshot, int maxEntries, long maxEdges) {
+        this.snapshot = snapshot;
+        this.maxEntries = maxEntries;
+        this.maxEdges = maxEdges;
+    }
+
+    /**
+     * registers a weight profile, by which paths can be retrieved
+     * The weights of all edges are calculated once, and are recalculated only for the edges that are reported by accept.
+     * @param name
+     * @param weightMapper    provides a function, by which the non-negative weight of an edge can be retrieved or calculated
+     * @throws IllegalArgumentException if the name is in use already
+     */
+    public synchronized void addProfile(String name, ToDoubleFunction<E> weightMapper) {
+        if (this.profiles.containsKey(name)) {
+            throw new IllegalArgumentException("Profile " + name + " has been registered already");
+        }
+        this.profiles.put(name, new Profile(weightMapper));
+    }
+
+    /**
+     * retrieves the shortest path from start to target by the weights of the profile from the cache,
+     * or calculates it by a dijkstra search and caches it
+     * @param startId
+     * @param targetId
+     * @param profileName   a registered profile
+     * @return  the shortest path from start to target, without any visited vertices registered
+     *          returns null if either start or target cannot be matched with a vertex in the graph
+     *                          or no path can be found from start to target
+     * @throws IllegalArgumentException if the profile has not been registered
+     */
+    public DirectedGraph<V,E>.DGPath getRoute(String startId, String targetId, String profileName) {
+        int start = this.snapshot.indexOf(startId);
+        int target = this.snapshot.indexOf(targetId);
+        Key key;
+        long version;
+        double[] weights;
+        synchronized (this) {
+            Profile profile = this.profiles.get(profileName);
+            if (profile == null) {
+                throw new IllegalArgumentException("Profile " + profileName + " has not been registered");
+            }
+            if (start < 0 || target < 0) return null;
+            key = new Key(profile, start, target);
+            Entry entry = this.entries.get(key);
+            if (entry != null) {
+                this.numHits++;
+                return this.buildPath(start, entry);
+            }
+            this.numMisses++;
+            version = profile.version;
+            weights = profile.weights;
+        }
+
+        // search outside of the lock, such that misses do not hold up other queries
+        Entry entry = this.search(start, target, key.profile, weights);
+
+        synchronized (this) {
+            // a path that has been found with weights that have changed meanwhile may not be the shortest
+            if (key.profile.version == version && !this.entries.containsKey(key)) {
+                this.store(key, entry);
+            }
+        }
+        return this.buildPath(start, entry);
+    }
+
+    /**
+     * recalculates the weight of a changed edge in all profiles and invalidates the affected paths
+     * the weights of a profile are copied for every change in the weight of an edge, i.e. in O(numEdges)
+     * @param edge
+     */
+    @Override
+    public synchronized void accept(E edge) {
+        int e = this.snapshot.indexOfEdge(edge);
+        if (e < 0) return;
+
+        for (Profile profile : this.profiles.values()) {
+            double oldWeight = profile.weights[e];
+            double newWeight = profile.weightMapper.applyAsDouble(edge);
+            if (newWeight == oldWeight) continue;
+            // copy on write, as searches outside of the lock may be reading the current weights
+            double[] weights = profile.weights.clone();
+            weights[e] = newWeight;
+            profile.weights = weights;
+            profile.version++;
+
+            boolean lighter = newWeight < oldWeight;
+            if (!lighter && profile.numPaths[e] == 0) continue;
+            Iterator<Map.Entry<Key, Entry>> it = this.entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Entry> cached = it.next();
+                if (cached.getKey().profile != profile || cached.getKey().start == cached.getKey().target) continue;
+                int[] pathEdges = cached.getValue().pathEdges;
+                if (lighter || (pathEdges != null && contains(pathEdges, e))) {
+                    this.release(profile, cached.getValue());
+                    it.remove();
+                    this.numInvalidations++;
+                }
+            }
+        }
+    }
+
+    /**
+     * removes all cached paths, but keeps the statistics
+     */
+    public synchronized void clear() {
+        for (Map.Entry<Key, Entry> cached : this.entries.entrySet()) {
+            this.release(cached.getKey().profile, cached.getValue());
+        }
+        this.entries.clear();
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    public synchronized long getNumCachedEdges() {
+        return this.numCachedEdges;
+    }
+
+    public synchronized long getNumHits() {
+        return this.numHits;
+    }
+
+    public synchronized long getNumMisses() {
+        return this.numMisses;
+    }
+
+    public synchronized long getNumEvictions() {
+        return this.numEvictions;
+    }
+
+    public synchronized long getNumInvalidations() {
+        return this.numInvalidations;
+    }
+
+    /**
+     * @return  the fraction of all queries that has been answered from the cache
+     */
+    public synchronized double getHitRatio() {
+        long numQueries = this.numHits + this.numMisses;
+        return numQueries > 0 ? (double)this.numHits / numQueries : 0.0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d paths, %d edges, hits=%d misses=%d (%.1f%% hits), evictions=%d invalidations=%d",
+                this.entries.size(), this.numCachedEdges, this.numHits, this.numMisses, 100.0 * this.getHitRatio(),
+                this.numEvictions, this.numInvalidations);
+    }
+
+    /**
+     * adds a path to the cache and evicts the least recently used paths until the cache fits its bounds again
+     */
+    private void store(Key key, Entry entry) {
+        this.entries.put(key, entry);
+        if (entry.pathEdges != null) {
+            for (int e : entry.pathEdges) key.profile.numPaths[e]++;
+        }
+        this.numCachedEdges += entry.getNumEdges();
+
+        Iterator<Map.Entry<Key, Entry>> it = this.entries.entrySet().iterator();
+        while ((this.entries.size() > this.maxEntries || this.numCachedEdges > this.maxEdges) && it.hasNext()) {
+            Map.Entry<Key, Entry> eldest = it.next();
+            this.release(eldest.getKey().profile, eldest.getValue());
+            it.remove();
+            this.numEvictions++;
+        }
+    }
+
+    /**
+     * accounts for a path that is removed from the cache
+     */
+    private void release(Profile profile, Entry entry) {
+        if (entry.pathEdges != null) {
+            for (int e : entry.pathEdges) profile.numPaths[e]--;
+        }
+        this.numCachedEdges -= entry.getNumEdges();
+    }
+
+    private static boolean contains(int[] pathEdges, int e) {
+        for (int pathEdge : pathEdges) {
+            if (pathEdge == e) return true;
+        }
+        return false;
+    }
+
+    private DirectedGraph<V,E>.DGPath buildPath(int start, Entry entry) {
+        if (entry.pathEdges == null) return null;
+        LinkedList<E> pathEdges = new LinkedList<>();
+        for (int e : entry.pathEdges) pathEdges.add(this.snapshot.getEdge(e));
+        return this.snapshot.graph.buildPath(this.snapshot.getVertex(start), pathEdges,
+                entry.totalWeight, new HashSet<>());
+    }
+
+    /**
+     * dijkstra search from start which stops as soon as the target has been marked
+     * @param weights   the weights of the profile at the start of the query, which are never modified
+     * @return  the path that has been found, with null pathEdges if the target cannot be reached
+     */
+    private Entry search(int start, int target, Profile profile, double[] weights) {
+        SearchStats stats = SearchStats.start(this.snapshot.graph.getSearchListener(), "RouteCache", profile.weightMapper);
+        SearchWorkspace ws = this.snapshot.getWorkspace();
+        boolean found = SearchStats.complete(stats,
+                this.snapshot.shortestPathSearch(start, target, weights, null, ws, stats));
+        if (!found) return new Entry(null, 0.0);
+
+        int numEdges = 0;
+        for (int v = target; v != start; v = this.snapshot.sources[ws.getParentEdge(v)]) numEdges++;
+        int[] pathEdges = new int[numEdges];
+        for (int v = target; v != start; v = this.snapshot.sources[ws.getParentEdge(v)]) {
+            pathEdges[--numEdges] = ws.getParentEdge(v);
+        }
+        return new Entry(pathEdges, ws.getWeight(target));
+    }
+}
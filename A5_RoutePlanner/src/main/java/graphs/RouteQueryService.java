@@ -0,0 +1,162 @@
+package graphs;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Thread-safe shortest path query service over an immutable snapshot and a fixed weighting of its edges
+ * Every thread that runs queries reuses its own preallocated SearchWorkspace of the snapshot,
+ * such that concurrent queries do not interfere and searches do not allocate per query.
+ * Batches of queries are divided over a fixed pool of worker threads.
+ * Queries between vertices without any path between them are rejected in O(1) by the strongly connected components.
+ */
+public class RouteQueryService<V extends DGVertex<E>, E extends DGEdge<V>> implements AutoCloseable {
+
+    private final DGSnapshot<V,E> snapshot;
+    private final double[] weights;
+    private final Object weightMapper;      // the origin of the weights, by which searches are reported
+    private final ExecutorService workers;
+    private final int numWorkers;
+
+    /**
+     * @param snapshot
+     * @param weights       the non-negative weights of all edges, aligned with the edge ids of the snapshot
+     *                      the service uses its own copy of the weights
+     * @param numWorkers    the number of worker threads for batches of queries
+     */
+    public RouteQueryService(DGSnapshot<V,E> snapshot, double[] weights, int numWorkers) {
+        this(snapshot, weights, weights, numWorkers);
+    }
+
+    /**
+     * @param snapshot
+     * @param weights       the non-negative weights of all edges, aligned with the edge ids of the snapshot
+     * @param weightMapper  the function that has calculated the weights, which identifies the weights in SearchStats
+     * @param numWorkers    the number of worker threads for batches of queries
+     */
+    RouteQueryService(DGSnapshot<V,E> snapshot, double[] weights, Object weightMapper, int numWorkers) {
+        this.snapshot = snapshot;
+        this.weights = weights.clone();
+        this.weightMapper = weightMapper;
+        this.numWorkers = numWorkers;
+        this.workers = Executors.newFixedThreadPool(numWorkers, runnable -> {
+            Thread thread = new Thread(runnable, "route-query-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Calculates the edge-weighted shortest path from start to target in the calling thread
+     * @param startId
+     * @param targetId
+     * @return  the shortest path from start to target, without any visited vertices registered
+     *          returns null if either start or target cannot be matched with a vertex in the graph
+     *                          or no path can be found from start to target
+     */
+    public DirectedGraph<V,E>.DGPath shortestPath(String startId, String targetId) {
+        int start = this.snapshot.indexOf(startId);
+        int target = this.snapshot.indexOf(targetId);
+        SearchWorkspace ws = this.snapshot.getWorkspace();
+        if (!this.search(start, target, ws)) return null;
+
+        LinkedList<E> pathEdges = new LinkedList<>();
+        for (int v = target; v != start; v = this.snapshot.sources[ws.getParentEdge(v)]) {
+            pathEdges.addFirst(this.snapshot.getEdge(ws.getParentEdge(v)));
+        }
+        return this.snapshot.graph.buildPath(this.snapshot.getVertex(start), pathEdges,
+                ws.getWeight(target), new HashSet<>());
+    }
+
+    /**
+     * Calculates the weight of the edge-weighted shortest path from start to target in the calling thread
+     * @param startId
+     * @param targetId
+     * @return  the weight of the shortest path, Double.POSITIVE_INFINITY if no path can be found
+     */
+    public double shortestPathWeight(String startId, String targetId) {
+        int start = this.snapshot.indexOf(startId);
+        int target = this.snapshot.indexOf(targetId);
+        SearchWorkspace ws = this.snapshot.getWorkspace();
+        return this.search(start, target, ws) ? ws.getWeight(target) : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Finds all vertices that can be reached from any of the origins within the budget, in the calling thread
+     * e.g. an isochrone of all junctions within a given travel time
+     * @param originIds
+     * @param budget    the maximum weight of a path
+     * @return  the reachable vertices with the weight of the shortest path from their nearest origin
+     */
+    public ReachableSet<V,E> reachableWithin(Collection<String> originIds, double budget) {
+        return this.snapshot.reachableWithin(originIds, this.weights, budget, this.snapshot.getWorkspace());
+    }
+
+    /**
+     * Calculates the weights of a batch of shortest path queries on the worker threads
+     * @param startIds
+     * @param targetIds     startIds[i] and targetIds[i] specify query i
+     * @return  the weight of the shortest path of every query, Double.POSITIVE_INFINITY if no path can be found
+     */
+    public double[] shortestPathWeights(String[] startIds, String[] targetIds) {
+        double[] results = new double[startIds.length];
+        this.runBatch(startIds.length, i -> results[i] = this.shortestPathWeight(startIds[i], targetIds[i]));
+        return results;
+    }
+
+    /**
+     * Calculates the shortest paths of a batch of queries on the worker threads
+     * @param startIds
+     * @param targetIds     startIds[i] and targetIds[i] specify query i
+     * @return  the shortest path of every query, null if no path can be found
+     */
+    public List<DirectedGraph<V,E>.DGPath> shortestPaths(String[] startIds, String[] targetIds) {
+        List<DirectedGraph<V,E>.DGPath> results = new ArrayList<>(Collections.nCopies(startIds.length, null));
+        this.runBatch(startIds.length, i -> results.set(i, this.shortestPath(startIds[i], targetIds[i])));
+        return results;
+    }
+
+    /**
+     * stops the worker threads
+     */
+    @Override
+    public void close() {
+        this.workers.shutdown();
+    }
+
+    private interface Query {
+        void run(int i);
+    }
+
+    /**
+     * divides queries 0 <= i < numQueries in contiguous chunks over the workers and waits for their completion
+     */
+    private void runBatch(int numQueries, Query query) {
+        int chunkSize = (numQueries + this.numWorkers - 1) / this.numWorkers;
+        List<Future<?>> chunks = new ArrayList<>();
+        for (int first = 0; first < numQueries; first += chunkSize) {
+            int from = first;
+            int to = Math.min(numQueries, first + chunkSize);
+            chunks.add(this.workers.submit(() -> {
+                for (int i = from; i < to; i++) query.run(i);
+            }));
+        }
+        try {
+            for (Future<?> chunk : chunks) chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch of queries has been interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch of queries has failed", e.getCause());
+        }
+    }
+
+    /**
+     * dijkstra search from start which stops as soon as the target has been marked
+     * @return  true if the target has been reached, the results are available in the workspace
+     */
+    private boolean search(int start, int target, SearchWorkspace ws) {
+        SearchStats stats = SearchStats.start(this.snapshot.graph.getSearchListener(), "RouteQueryService", this.weightMapper);
+        return SearchStats.complete(stats, this.snapshot.shortestPathSearch(start, target, this.weights, null, ws, stats));
+    }
+}
@@ -0,0 +1,9 @@
+package graphs;
+
+/**
+ * Receives the statistics of every search on a DirectedGraph, its snapshots and its query services
+ * The listener is called in the thread that ran the search, so it shall be thread-safe and fast, see SearchMetrics
+ */
+public interface SearchListener {
+    void searchCompleted(SearchStats stats);
+}
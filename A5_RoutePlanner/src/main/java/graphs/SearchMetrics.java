@@ -0,0 +1,130 @@
+package graphs;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SearchListener that aggregates the statistics of all searches per algorithm and per weight function
+ * into counters and latency histograms, which can be pulled by getSummaries or be exposed through JMX.
+ * Weight functions are identified by the name they have been given by nameWeightMapper,
+ * searches with a weight function that has not been named are aggregated as "unnamed",
+ * and traversals without any weight function as "-".
+ * All updates are lock-free, such that concurrent searches can share one SearchMetrics.
+ */
+public class SearchMetrics implements SearchListener, SearchMetricsMXBean {
+
+    private final ConcurrentMap<String, Metrics> metrics = new ConcurrentHashMap<>();
+    // the names of the weight functions, which are forgotten together with the functions themselves
+    private final Map<Object, String> weightNames = Collections.synchronizedMap(new WeakHashMap<>());
+
+    // the aggregated statistics of one algorithm with one weight function
+    private static class Metrics {
+        final String algorithm;
+        final String weightName;
+        final LongAdder numSearches = new LongAdder();
+        final LongAdder numPathsFound = new LongAdder();
+        final LongAdder numSettled = new LongAdder();
+        final LongAdder numRelaxed = new LongAdder();
+        final LongAdder numHeapOperations = new LongAdder();
+        final LongAdder numHeuristicCalls = new LongAdder();
+        final LatencyHistogram latencies = new LatencyHistogram();
+
+        Metrics(String algorithm, String weightName) {
+            this.algorithm = algorithm;
+            this.weightName = weightName;
+        }
+    }
+
+    /**
+     * gives a name to a weight function, by which its searches are aggregated
+     * The very same instance shall be passed to the searches, e.g. from a variable or a static field,
+     * as every evaluation of a lambda expression or method reference may create a new instance.
+     * @param weightMapper  a weight function, or a weights array of a DGSnapshot or RouteQueryService
+     * @param name
+     */
+    public void nameWeightMapper(Object weightMapper, String name) {
+        this.weightNames.put(weightMapper, name);
+    }
+
+    @Override
+    public void searchCompleted(SearchStats stats) {
+        String weightName = stats.getWeightMapper() == null ? "-"
+                : this.weightNames.getOrDefault(stats.getWeightMapper(), "unnamed");
+        String key = stats.getAlgorithm() + "/" + weightName;
+        Metrics metrics = this.metrics.get(key);
+        if (metrics == null) {
+            metrics = this.metrics.computeIfAbsent(key, k -> new Metrics(stats.getAlgorithm(), weightName));
+        }
+        metrics.numSearches.increment();
+        if (stats.isPathFound()) metrics.numPathsFound.increment();
+        metrics.numSettled.add(stats.getNumSettled());
+        metrics.numRelaxed.add(stats.getNumRelaxed());
+        metrics.numHeapOperations.add(stats.getNumHeapOperations());
+        metrics.numHeuristicCalls.add(stats.getNumHeuristicCalls());
+        metrics.latencies.record(stats.getElapsedNanos());
+    }
+
+    /**
+     * @return  the statistics of every algorithm and weight function that has been used, ordered by their names
+     */
+    @Override
+    public List<SearchSummary> getSummaries() {
+        List<SearchSummary> summaries = new ArrayList<>();
+        for (Metrics metrics : new TreeMap<>(this.metrics).values()) {
+            summaries.add(new SearchSummary(metrics.algorithm, metrics.weightName,
+                    metrics.numSearches.sum(), metrics.numPathsFound.sum(),
+                    metrics.numSettled.sum(), metrics.numRelaxed.sum(),
+                    metrics.numHeapOperations.sum(), metrics.numHeuristicCalls.sum(), metrics.latencies));
+        }
+        return summaries;
+    }
+
+    /**
+     * @param algorithm
+     * @param weightName
+     * @return  the latencies in nanoseconds of all searches by the algorithm with the weight function,
+     *          null if there have not been any
+     */
+    public LatencyHistogram getLatencies(String algorithm, String weightName) {
+        Metrics metrics = this.metrics.get(algorithm + "/" + weightName);
+        return metrics != null ? metrics.latencies : null;
+    }
+
+    /**
+     * forgets the statistics of all searches, but not the names of the weight functions
+     */
+    @Override
+    public void reset() {
+        this.metrics.clear();
+    }
+
+    /**
+     * registers these metrics with the platform MBean server, e.g. for inspection by JConsole or VisualVM
+     * @param name  distinguishes the metrics of different graphs
+     * @return  the name of the MBean
+     * @throws IllegalStateException if the MBean cannot be registered, e.g. if the name is in use already
+     */
+    public ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName("graphs:type=SearchMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("SearchMetrics cannot be registered as " + name, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (SearchSummary summary : this.getSummaries()) {
+            sb.append(summary).append('\n');
+        }
+        return sb.toString();
+    }
+}
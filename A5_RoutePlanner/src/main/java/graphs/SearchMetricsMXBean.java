@@ -0,0 +1,11 @@
+package graphs;
+
+import java.util.List;
+
+/**
+ * JMX view of SearchMetrics, see SearchMetrics.registerMBean
+ */
+public interface SearchMetricsMXBean {
+    List<SearchSummary> getSummaries();
+    void reset();
+}
@@ -0,0 +1,108 @@
+package graphs;
+
+/**
+ * The amount of work that has been done by a single search
+ * A search only measures its work if a SearchListener has been registered with the graph,
+ * otherwise it has no SearchStats at all and every counter update is a single null check.
+ */
+public class SearchStats {
+
+    private final SearchListener listener;
+    private final String algorithm;
+    private final Object weightMapper;
+    private final long startNanos;
+    private long elapsedNanos = 0;
+    private boolean pathFound = false;
+
+    // the counters are updated by the search itself
+    long numSettled = 0;            // vertices whose edges have been explored
+    long numRelaxed = 0;            // edges that have been explored
+    long numHeapOperations = 0;     // insertions, decrease-keys and removals of the priority queue
+    long numHeuristicCalls = 0;     // applications of the minimum weight estimator
+
+    private SearchStats(SearchListener listener, String algorithm, Object weightMapper) {
+        this.listener = listener;
+        this.algorithm = algorithm;
+        this.weightMapper = weightMapper;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * starts the measurement of a search
+     * @param listener      the listener of the graph, may be null
+     * @param algorithm     the name of the algorithm
+     * @param weightMapper  the weight function or weights array of the search, null for traversals
+     * @return  the statistics of the search, null if nobody is listening
+     */
+    static SearchStats start(SearchListener listener, String algorithm, Object weightMapper) {
+        return listener != null ? new SearchStats(listener, algorithm, weightMapper) : null;
+    }
+
+    /**
+     * completes the measurement of a search, and reports it to the listener
+     * @param stats     may be null
+     * @param result    the result of the search, null if no path has been found
+     * @return  the result
+     */
+    static <R> R complete(SearchStats stats, R result) {
+        complete(stats, result != null);
+        return result;
+    }
+
+    /**
+     * completes the measurement of a search, and reports it to the listener
+     * @param stats     may be null
+     * @param pathFound
+     * @return  pathFound
+     */
+    static boolean complete(SearchStats stats, boolean pathFound) {
+        if (stats != null) {
+            stats.elapsedNanos = System.nanoTime() - stats.startNanos;
+            stats.pathFound = pathFound;
+            stats.listener.searchCompleted(stats);
+        }
+        return pathFound;
+    }
+
+    public String getAlgorithm() {
+        return this.algorithm;
+    }
+
+    /**
+     * @return  the weight function or the weights array that has been passed to the search, null for traversals
+     */
+    public Object getWeightMapper() {
+        return this.weightMapper;
+    }
+
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    public boolean isPathFound() {
+        return this.pathFound;
+    }
+
+    public long getNumSettled() {
+        return this.numSettled;
+    }
+
+    public long getNumRelaxed() {
+        return this.numRelaxed;
+    }
+
+    public long getNumHeapOperations() {
+        return this.numHeapOperations;
+    }
+
+    public long getNumHeuristicCalls() {
+        return this.numHeuristicCalls;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %s in %d us, settled=%d relaxed=%d heap=%d heuristic=%d",
+                this.algorithm, this.pathFound ? "found" : "no path", this.elapsedNanos / 1000,
+                this.numSettled, this.numRelaxed, this.numHeapOperations, this.numHeuristicCalls);
+    }
+}
@@ -0,0 +1,108 @@
+package graphs;
+
+/**
+ * The aggregated statistics of all searches by one algorithm with one weight function, see SearchMetrics
+ * Latencies are in microseconds, and the work of a search is averaged over all searches.
+ */
+public class SearchSummary {
+
+    private final String algorithm;
+    private final String weightName;
+    private final long numSearches;
+    private final long numPathsFound;
+    private final double meanSettled;
+    private final double meanRelaxed;
+    private final double meanHeapOperations;
+    private final double meanHeuristicCalls;
+    private final double meanLatency;
+    private final double latency50;
+    private final double latency90;
+    private final double latency99;
+    private final double latency999;
+    private final double maxLatency;
+
+    SearchSummary(String algorithm, String weightName, long numSearches, long numPathsFound,
+                  long numSettled, long numRelaxed, long numHeapOperations, long numHeuristicCalls,
+                  LatencyHistogram latencies) {
+        this.algorithm = algorithm;
+        this.weightName = weightName;
+        this.numSearches = numSearches;
+        this.numPathsFound = numPathsFound;
+        double n = Math.max(1, numSearches);
+        this.meanSettled = numSettled / n;
+        this.meanRelaxed = numRelaxed / n;
+        this.meanHeapOperations = numHeapOperations / n;
+        this.meanHeuristicCalls = numHeuristicCalls / n;
+        this.meanLatency = latencies.getMean() / 1000.0;
+        this.latency50 = latencies.getValueAtPercentile(50.0) / 1000.0;
+        this.latency90 = latencies.getValueAtPercentile(90.0) / 1000.0;
+        this.latency99 = latencies.getValueAtPercentile(99.0) / 1000.0;
+        this.latency999 = latencies.getValueAtPercentile(99.9) / 1000.0;
+        this.maxLatency = latencies.getMax() / 1000.0;
+    }
+
+    public String getAlgorithm() {
+        return this.algorithm;
+    }
+
+    public String getWeightName() {
+        return this.weightName;
+    }
+
+    public long getNumSearches() {
+        return this.numSearches;
+    }
+
+    public long getNumPathsFound() {
+        return this.numPathsFound;
+    }
+
+    public double getMeanSettled() {
+        return this.meanSettled;
+    }
+
+    public double getMeanRelaxed() {
+        return this.meanRelaxed;
+    }
+
+    public double getMeanHeapOperations() {
+        return this.meanHeapOperations;
+    }
+
+    public double getMeanHeuristicCalls() {
+        return this.meanHeuristicCalls;
+    }
+
+    public double getMeanLatency() {
+        return this.meanLatency;
+    }
+
+    public double getLatency50() {
+        return this.latency50;
+    }
+
+    public double getLatency90() {
+        return this.latency90;
+    }
+
+    public double getLatency99() {
+        return this.latency99;
+    }
+
+    public double getLatency999() {
+        return this.latency999;
+    }
+
+    public double getMaxLatency() {
+        return this.maxLatency;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[%s]: %d searches, %d found, settled=%.1f relaxed=%.1f heap=%.1f heuristic=%.1f, " +
+                        "latency us mean=%.1f p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f",
+                this.algorithm, this.weightName, this.numSearches, this.numPathsFound,
+                this.meanSettled, this.meanRelaxed, this.meanHeapOperations, this.meanHeuristicCalls,
+                this.meanLatency, this.latency50, this.latency90, this.latency99, this.latency999, this.maxLatency);
+    }
+}
@@ -0,0 +1,156 @@
+package graphs;
+
+/**
+ * Reusable state of a single-source search on a snapshot with numVertices vertices
+ * The state of all vertices is reset in O(1) by increasing the version stamp,
+ * such that a search only costs time for the vertices it actually reaches, and creates no garbage.
+ * A workspace shall be confined to a single thread.
+ */
+class SearchWorkspace {
+    private final double[] weightSumTo;
+    private final int[] parentEdge;
+    private final int[] stamp;          // the version in which each vertex has been reached
+    private int currentStamp = 0;
+    private final boolean[] marked;
+    private final int[] label;          // a free label per reached vertex, e.g. the origin of its path
+    private final double[] estimate;    // the heuristic estimate of every reached vertex, set by an A* search
+    final IndexedMinHeap frontier;
+    // the vertices that have been reached in the current version
+    private final int[] reached;
+    private int numReached = 0;
+    // the vertices that have been marked in the current version, in the order of marking
+    private final int[] settled;
+    private int numSettled = 0;
+    // explicit stack of a depth-first traversal, with the next edge to be explored of every vertex on it
+    final int[] stack;
+    final int[] nextEdge;
+
+    SearchWorkspace(int numVertices) {
+        this.weightSumTo = new double[numVertices];
+        this.parentEdge = new int[numVertices];
+        this.stamp = new int[numVertices];
+        this.marked = new boolean[numVertices];
+        this.label = new int[numVertices];
+        this.estimate = new double[numVertices];
+        this.frontier = new IndexedMinHeap(numVertices);
+        this.reached = new int[numVertices];
+        this.settled = new int[numVertices];
+        this.stack = new int[numVertices];
+        this.nextEdge = new int[numVertices];
+    }
+
+    int getNumVertices() {
+        return this.stamp.length;
+    }
+
+    /**
+     * forgets about all vertices that have been reached by the previous search
+     */
+    void reset() {
+        for (int i = 0; i < this.numReached; i++) {
+            this.marked[this.reached[i]] = false;
+        }
+        this.numReached = 0;
+        this.numSettled = 0;
+        this.frontier.clear();
+        if (++this.currentStamp == Integer.MAX_VALUE) {
+            // wrap around, which requires a full reset once every 2^31 searches
+            java.util.Arrays.fill(this.stamp, 0);
+            this.currentStamp = 1;
+        }
+    }
+
+    boolean isReached(int v) {
+        return this.stamp[v] == this.currentStamp;
+    }
+
+    /**
+     * @param v
+     * @return  the weight of the shortest path to v sofar, Double.POSITIVE_INFINITY if v has not been reached
+     */
+    double getWeight(int v) {
+        return this.stamp[v] == this.currentStamp ? this.weightSumTo[v] : Double.POSITIVE_INFINITY;
+    }
+
+    int getParentEdge(int v) {
+        return this.parentEdge[v];
+    }
+
+    boolean isMarked(int v) {
+        return this.marked[v];
+    }
+
+    void mark(int v) {
+        this.marked[v] = true;
+        this.settled[this.numSettled++] = v;
+    }
+
+    int getNumSettled() {
+        return this.numSettled;
+    }
+
+    /**
+     * @param i
+     * @return  the i-th vertex that has been marked by the current search
+     */
+    int getSettled(int i) {
+        return this.settled[i];
+    }
+
+    int getLabel(int v) {
+        return this.label[v];
+    }
+
+    void setLabel(int v, int label) {
+        this.label[v] = label;
+    }
+
+    double getEstimate(int v) {
+        return this.estimate[v];
+    }
+
+    void setEstimate(int v, double estimate) {
+        this.estimate[v] = estimate;
+    }
+
+    int getNumReached() {
+        return this.numReached;
+    }
+
+    /**
+     * @param i
+     * @return  the i-th vertex that has been reached by the current search
+     */
+    int getReached(int i) {
+        return this.reached[i];
+    }
+
+    /**
+     * registers v as reached by a traversal, without queueing it
+     * the reached vertices are listed in the order of their first visit, which is the queue of a breadth-first traversal
+     * @param v
+     * @param edge  the edge by which v has been reached, -1 for the start
+     */
+    void visit(int v, int edge) {
+        this.stamp[v] = this.currentStamp;
+        this.reached[this.numReached++] = v;
+        this.parentEdge[v] = edge;
+    }
+
+    /**
+     * registers a (shorter) path to v, and queues v with the given key
+     * @param v
+     * @param weight    the weight of the path to v
+     * @param edge      the last edge of the path, -1 for a source
+     * @param key       the priority of v in the frontier, e.g. weight + estimated remaining weight
+     */
+    void reach(int v, double weight, int edge, double key) {
+        if (this.stamp[v] != this.currentStamp) {
+            this.stamp[v] = this.currentStamp;
+            this.reached[this.numReached++] = v;
+        }
+        this.weightSumTo[v] = weight;
+        this.parentEdge[v] = edge;
+        this.frontier.addOrDecrease(v, key);
+    }
+}
@@ -0,0 +1,256 @@
+package graphs;
+
+import java.util.*;
+
+/**
+ * The strongly connected components of a DGSnapshot, and their condensation into a directed acyclic graph
+ * Two vertices are in the same strongly connected component if each can be reached from the other.
+ * The components are found by Tarjan's algorithm with an explicit stack, such that deep graphs cannot overflow
+ * the call stack, and are numbered in topological order: every edge between different components
+ * leads from a lower component id to a higher one.
+ * Together with the weakly connected components (the connected parts of the graph when edge directions are ignored)
+ * this rejects most pairs of vertices without any path between them in O(1), see mayReach.
+ */
+public class StronglyConnectedComponents<V extends DGVertex<E>, E extends DGEdge<V>> {
+
+    private final DGSnapshot<V,E> snapshot;
+    private final int[] component;          // the component id of every vertex id
+    private final int[] weakComponent;      // the weakly connected component id of every vertex id
+    private final int numComponents;
+    private final int numWeakComponents;
+    private final int[] memberOffsets;      // the first position in members of every component
+    private final int[] members;            // the vertex ids of all vertices, grouped by their component
+    private final int[] dagOffsets;         // the first position in dagTargets of every component
+    private final int[] dagTargets;         // the distinct successor components of every component, ascending
+
+    StronglyConnectedComponents(DGSnapshot<V,E> snapshot) {
+        this.snapshot = snapshot;
+        int n = snapshot.getNumVertices();
+        this.component = new int[n];
+        this.numComponents = this.tarjan();
+        this.weakComponent = new int[n];
+        this.numWeakComponents = this.unionFind();
+
+        // group the vertices by their component
+        this.memberOffsets = new int[this.numComponents + 1];
+        this.members = new int[n];
+        for (int v = 0; v < n; v++) {
+            this.memberOffsets[this.component[v] + 1]++;
+        }
+        for (int c = 0; c < this.numComponents; c++) {
+            this.memberOffsets[c + 1] += this.memberOffsets[c];
+        }
+        int[] next = Arrays.copyOf(this.memberOffsets, this.numComponents);
+        for (int v = 0; v < n; v++) {
+            this.members[next[this.component[v]]++] = v;
+        }
+
+        // collect the distinct edges between components
+        this.dagOffsets = new int[this.numComponents + 1];
+        int[] dagTargets = new int[snapshot.getNumEdges()];
+        int[] lastSource = new int[this.numComponents];
+        Arrays.fill(lastSource, -1);
+        int numDagEdges = 0;
+        for (int c = 0; c < this.numComponents; c++) {
+            this.dagOffsets[c] = numDagEdges;
+            for (int i = this.memberOffsets[c]; i < this.memberOffsets[c + 1]; i++) {
+                int v = this.members[i];
+                for (int e = snapshot.offsets[v]; e < snapshot.offsets[v + 1]; e++) {
+                    int d = this.component[snapshot.targets[e]];
+                    if (d != c && lastSource[d] != c) {
+                        lastSource[d] = c;
+                        dagTargets[numDagEdges++] = d;
+                    }
+                }
+            }
+            Arrays.sort(dagTargets, this.dagOffsets[c], numDagEdges);
+        }
+        this.dagOffsets[this.numComponents] = numDagEdges;
+        this.dagTargets = Arrays.copyOf(dagTargets, numDagEdges);
+    }
+
+    /**
+     * iterative Tarjan: assigns the component ids
+     * @return  the number of components
+     */
+    private int tarjan() {
+        int n = this.snapshot.getNumVertices();
+        int[] offsets = this.snapshot.offsets;
+        int[] targets = this.snapshot.targets;
+        int[] index = new int[n];           // the discovery number of every vertex, 0 if not discovered yet
+        int[] lowLink = new int[n];
+        int[] nextEdge = new int[n];
+        int[] callStack = new int[n];       // the vertices of the current depth-first path
+        int[] stack = new int[n];           // the discovered vertices that have not been assigned a component yet
+        int numDiscovered = 0, stackSize = 0, numComponents = 0;
+        Arrays.fill(this.component, -1);
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] != 0) continue;
+            int depth = 0;
+            index[root] = lowLink[root] = ++numDiscovered;
+            nextEdge[root] = offsets[root];
+            stack[stackSize++] = root;
+            callStack[depth++] = root;
+
+            while (depth > 0) {
+                int v = callStack[depth - 1];
+                if (nextEdge[v] < offsets[v + 1]) {
+                    int w = targets[nextEdge[v]++];
+                    if (index[w] == 0) {
+                        // descend into w
+                        index[w] = lowLink[w] = ++numDiscovered;
+                        nextEdge[w] = offsets[w];
+                        stack[stackSize++] = w;
+                        callStack[depth++] = w;
+                    } else if (this.component[w] < 0) {
+                        // w is still on the stack, so it is in the component of v
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                } else {
+                    // all edges of v have been explored, return to its parent
+                    depth--;
+                    if (depth > 0) {
+                        int parent = callStack[depth - 1];
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+                    }
+                    if (lowLink[v] == index[v]) {
+                        // v is the root of a component, which consists of v and all vertices above it on the stack
+                        int w;
+                        do {
+                            w = stack[--stackSize];
+                            this.component[w] = numComponents;
+                        } while (w != v);
+                        numComponents++;
+                    }
+                }
+            }
+        }
+
+        // tarjan completes every component after all components it can reach, so reverse the numbering
+        for (int v = 0; v < n; v++) {
+            this.component[v] = numComponents - 1 - this.component[v];
+        }
+        return numComponents;
+    }
+
+    /**
+     * assigns the weakly connected component ids by union-find over all edges
+     * @return  the number of weakly connected components
+     */
+    private int unionFind() {
+        int n = this.snapshot.getNumVertices();
+        int[] parent = new int[n];
+        for (int v = 0; v < n; v++) parent[v] = v;
+        for (int e = 0; e < this.snapshot.getNumEdges(); e++) {
+            int a = find(parent, this.snapshot.sources[e]);
+            int b = find(parent, this.snapshot.targets[e]);
+            if (a != b) parent[Math.max(a, b)] = Math.min(a, b);
+        }
+        // every root is the lowest vertex id of its tree, so it is met before all other members
+        int numWeakComponents = 0;
+        for (int v = 0; v < n; v++) {
+            int root = find(parent, v);
+            this.weakComponent[v] = root == v ? numWeakComponents++ : this.weakComponent[root];
+        }
+        return numWeakComponents;
+    }
+
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    public int getNumComponents() {
+        return this.numComponents;
+    }
+
+    public int getNumWeakComponents() {
+        return this.numWeakComponents;
+    }
+
+    /**
+     * @param v     a vertex id of the snapshot
+     * @return  the id of the strongly connected component of v
+     */
+    public int getComponent(int v) {
+        return this.component[v];
+    }
+
+    /**
+     * @param vertexId
+     * @return  the id of the strongly connected component of the vertex, -1 if the vertex cannot be found
+     */
+    public int getComponent(String vertexId) {
+        int v = this.snapshot.indexOf(vertexId);
+        return v >= 0 ? this.component[v] : -1;
+    }
+
+    public int getComponentSize(int c) {
+        return this.memberOffsets[c + 1] - this.memberOffsets[c];
+    }
+
+    /**
+     * @return  the id of the component with the most vertices
+     */
+    public int getLargestComponent() {
+        int largest = -1;
+        for (int c = 0; c < this.numComponents; c++) {
+            if (largest < 0 || this.getComponentSize(c) > this.getComponentSize(largest)) largest = c;
+        }
+        return largest;
+    }
+
+    /**
+     * @param c
+     * @return  all vertices of component c
+     */
+    public List<V> getMembers(int c) {
+        List<V> members = new ArrayList<>(this.getComponentSize(c));
+        for (int i = this.memberOffsets[c]; i < this.memberOffsets[c + 1]; i++) {
+            members.add(this.snapshot.getVertex(this.members[i]));
+        }
+        return members;
+    }
+
+    /**
+     * the edges of the condensation DAG, in which every component is contracted into a single vertex
+     * @param c
+     * @return  the ids of all components that can be entered by a single edge from component c, ascending
+     */
+    public int[] getSuccessors(int c) {
+        return Arrays.copyOfRange(this.dagTargets, this.dagOffsets[c], this.dagOffsets[c + 1]);
+    }
+
+    /**
+     * @return  the number of distinct pairs of components that are linked by an edge
+     */
+    public int getNumCondensationEdges() {
+        return this.dagTargets.length;
+    }
+
+    /**
+     * O(1) test whether a path from one vertex to another may exist
+     * A path can only exist within a weakly connected component, and only towards the same or a higher component id.
+     * @param from  a vertex id of the snapshot
+     * @param to    a vertex id of the snapshot
+     * @return  false if there certainly is no path, true if there is a path or the vertices are in different
+     *          components that still may be linked via the condensation DAG
+     */
+    public boolean mayReach(int from, int to) {
+        return this.component[from] == this.component[to]
+                || (this.component[from] < this.component[to] && this.weakComponent[from] == this.weakComponent[to]);
+    }
+
+    /**
+     * @param from  a vertex id of the snapshot
+     * @param to    a vertex id of the snapshot
+     * @return  true if each vertex can be reached from the other
+     */
+    public boolean isStronglyConnected(int from, int to) {
+        return this.component[from] == this.component[to];
+    }
+}
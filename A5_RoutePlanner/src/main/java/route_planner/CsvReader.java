@@ -0,0 +1,292 @@
+package route_planner;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming reader of ';'-separated csv resources
+ * The resource is read in large blocks through a byte channel, and split into rows and fields without regular expressions.
+ * Numbers are parsed directly from the bytes of a field, and text fields are trimmed, decoded and interned,
+ * such that every distinct name is only converted into a String once.
+ * Fields are not quoted: quotes are kept as part of the text, like the former Scanner import did.
+ */
+class CsvReader implements Closeable {
+    private static final int BLOCK_SIZE = 1 << 16;
+    private static final byte DELIMITER = ';';
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+    private boolean endOfInput = false;
+    private boolean firstRow = true;
+    private long numRows = 0;
+
+    // the current row and the start and end offsets of its fields, without the delimiters
+    private byte[] row = new byte[256];
+    private int rowLength = 0;
+    private int[] fieldStart = new int[16];
+    private int[] fieldEnd = new int[16];
+    private int numFields = 0;
+
+    // open addressing table of all interned names, keyed by their (utf-8) bytes
+    private byte[][] internedBytes = new byte[1024][];
+    private String[] interned = new String[1024];
+    private int numInterned = 0;
+
+    CsvReader(InputStream in) {
+        this.channel = Channels.newChannel(in);
+        this.block.flip();
+    }
+
+    /**
+     * advances to the next non-empty row
+     * @return  false if the end of the input has been reached
+     */
+    boolean nextRow() {
+        do {
+            if (!this.readLine()) return false;
+        } while (this.rowLength == 0);
+
+        this.numRows++;
+        this.numFields = 0;
+        int start = 0;
+        for (int i = 0; i <= this.rowLength; i++) {
+            if (i == this.rowLength || this.row[i] == DELIMITER) {
+                if (this.numFields == this.fieldStart.length) {
+                    this.fieldStart = Arrays.copyOf(this.fieldStart, 2 * this.numFields);
+                    this.fieldEnd = Arrays.copyOf(this.fieldEnd, 2 * this.numFields);
+                }
+                // trim white space at both ends, like String.trim()
+                int s = start, e = i;
+                while (s < e && (this.row[s] & 0xff) <= ' ') s++;
+                while (e > s && (this.row[e - 1] & 0xff) <= ' ') e--;
+                this.fieldStart[this.numFields] = s;
+                this.fieldEnd[this.numFields] = e;
+                this.numFields++;
+                start = i + 1;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return  the number of rows that have been read sofar, including the header
+     */
+    long getNumRows() {
+        return this.numRows;
+    }
+
+    int getNumFields() {
+        return this.numFields;
+    }
+
+    boolean isEmpty(int field) {
+        return field >= this.numFields || this.fieldStart[field] == this.fieldEnd[field];
+    }
+
+    /**
+     * @param field
+     * @return  the trimmed text of the field, the same String instance for every occurrence of the same text
+     */
+    String getString(int field) {
+        int s = this.fieldStart[field];
+        int e = this.fieldEnd[field];
+        int hash = 0;
+        for (int i = s; i < e; i++) hash = 31 * hash + this.row[i];
+
+        int mask = this.interned.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (this.interned[slot] != null) {
+            if (this.equalBytes(this.internedBytes[slot], s, e)) return this.interned[slot];
+            slot = (slot + 1) & mask;
+        }
+
+        String text = new String(this.row, s, e - s, StandardCharsets.UTF_8);
+        this.internedBytes[slot] = Arrays.copyOfRange(this.row, s, e);
+        this.interned[slot] = text;
+        if (++this.numInterned * 2 > this.interned.length) this.growInterned();
+        return text;
+    }
+
+    int getInt(int field) {
+        int s = this.fieldStart[field];
+        int e = this.fieldEnd[field];
+        boolean negative = s < e && this.row[s] == '-';
+        if (negative || (s < e && this.row[s] == '+')) s++;
+        if (s == e) throw this.numberFormatException(field);
+
+        long value = 0;
+        for (int i = s; i < e; i++) {
+            int digit = this.row[i] - '0';
+            if (digit < 0 || digit > 9) throw this.numberFormatException(field);
+            value = 10 * value + digit;
+            if (value > (long)Integer.MAX_VALUE + 1) throw this.numberFormatException(field);
+        }
+        if (negative) value = -value;
+        if (value > Integer.MAX_VALUE) throw this.numberFormatException(field);
+        return (int)value;
+    }
+
+    /**
+     * parses a decimal number with optional fraction and exponent
+     * numbers of at most 15 significant digits and a small exponent are calculated exactly from a
+     * long mantissa and a power of ten, which gives the same correctly rounded result as Double.parseDouble
+     */
+    double getDouble(int field) {
+        int s = this.fieldStart[field];
+        int e = this.fieldEnd[field];
+        int i = s;
+        boolean negative = i < e && this.row[i] == '-';
+        if (negative || (i < e && this.row[i] == '+')) i++;
+
+        long mantissa = 0;
+        int numDigits = 0;
+        int exponent = 0;
+        boolean anyDigits = false;
+        for (; i < e && this.row[i] >= '0' && this.row[i] <= '9'; i++) {
+            anyDigits = true;
+            if (mantissa != 0 || this.row[i] != '0') {
+                mantissa = 10 * mantissa + (this.row[i] - '0');
+                numDigits++;
+            }
+        }
+        if (i < e && this.row[i] == '.') {
+            for (i++; i < e && this.row[i] >= '0' && this.row[i] <= '9'; i++) {
+                anyDigits = true;
+                if (mantissa != 0 || this.row[i] != '0') {
+                    mantissa = 10 * mantissa + (this.row[i] - '0');
+                    numDigits++;
+                }
+                exponent--;
+            }
+        }
+        if (!anyDigits) throw this.numberFormatException(field);
+        if (i < e && (this.row[i] == 'e' || this.row[i] == 'E')) {
+            // rare notation, no need for a fast path
+            return Double.parseDouble(this.fieldText(field));
+        }
+        if (i != e) throw this.numberFormatException(field);
+
+        if (numDigits > 15 || exponent < -22) {
+            return Double.parseDouble(this.fieldText(field));
+        }
+        double value = mantissa / POWERS_OF_TEN[-exponent];
+        return negative ? -value : value;
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * copies the bytes of the next line into the row buffer, without the line terminator
+     * @return  false if there are no more lines
+     */
+    private boolean readLine() {
+        this.rowLength = 0;
+        boolean anyBytes = false;
+        while (true) {
+            if (!this.block.hasRemaining()) {
+                if (!this.fillBlock()) break;
+            }
+            anyBytes = true;
+            byte[] bytes = this.block.array();
+            int pos = this.block.position();
+            int limit = this.block.limit();
+            int end = pos;
+            while (end < limit && bytes[end] != '\n') end++;
+            this.appendToRow(bytes, pos, end - pos);
+            if (end < limit) {
+                this.block.position(end + 1);
+                break;
+            }
+            this.block.position(limit);
+        }
+        if (!anyBytes) return false;
+
+        if (this.rowLength > 0 && this.row[this.rowLength - 1] == '\r') this.rowLength--;
+        if (this.firstRow) {
+            // skip the utf-8 byte order mark
+            this.firstRow = false;
+            if (this.rowLength >= 3 && (this.row[0] & 0xff) == 0xEF
+                    && (this.row[1] & 0xff) == 0xBB && (this.row[2] & 0xff) == 0xBF) {
+                System.arraycopy(this.row, 3, this.row, 0, this.rowLength - 3);
+                this.rowLength -= 3;
+            }
+        }
+        return true;
+    }
+
+    private boolean fillBlock() {
+        if (this.endOfInput) return false;
+        try {
+            this.block.clear();
+            int n;
+            do {
+                n = this.channel.read(this.block);
+            } while (n == 0);
+            this.block.flip();
+            if (n < 0) this.endOfInput = true;
+            return this.block.hasRemaining();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void appendToRow(byte[] bytes, int offset, int length) {
+        if (this.rowLength + length > this.row.length) {
+            this.row = Arrays.copyOf(this.row, Math.max(2 * this.row.length, this.rowLength + length));
+        }
+        System.arraycopy(bytes, offset, this.row, this.rowLength, length);
+        this.rowLength += length;
+    }
+
+    private boolean equalBytes(byte[] key, int s, int e) {
+        if (key.length != e - s) return false;
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != this.row[s + i]) return false;
+        }
+        return true;
+    }
+
+    private void growInterned() {
+        byte[][] oldBytes = this.internedBytes;
+        String[] oldInterned = this.interned;
+        this.internedBytes = new byte[2 * oldBytes.length][];
+        this.interned = new String[2 * oldInterned.length];
+        int mask = this.interned.length - 1;
+        for (int i = 0; i < oldInterned.length; i++) {
+            if (oldInterned[i] == null) continue;
+            int hash = 0;
+            for (byte b : oldBytes[i]) hash = 31 * hash + b;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (this.interned[slot] != null) slot = (slot + 1) & mask;
+            this.internedBytes[slot] = oldBytes[i];
+            this.interned[slot] = oldInterned[i];
+        }
+    }
+
+    private String fieldText(int field) {
+        return new String(this.row, this.fieldStart[field],
+                this.fieldEnd[field] - this.fieldStart[field], StandardCharsets.UTF_8);
+    }
+
+    private NumberFormatException numberFormatException(int field) {
+        return new NumberFormatException(String.format("Invalid number '%s' in field %d of row %d",
+                this.fieldText(field), field + 1, this.numRows));
+    }
+}
@@ -5,7 +5,6 @@ import graphs.DirectedGraph;
 
 import java.io.PrintStream;
 import java.util.HashSet;
-import java.util.Locale;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -65,23 +64,22 @@ public class Junction implements DGVertex<Road>
         return variability;
     }
 
+    /**
+     * @return  the radius of the dot of the junction on an svg image, relative to the population at the junction
+     */
+    double getSvgRadius() {
+        return 0.1 + 0.3 * Math.log(1+this.population/2000);
+    }
+
     /**
      * draws the junction onto an svg image with a given colour
      * @param svgWriter
      * @param colour
      */
     public void svgDraw(PrintStream svgWriter, String colour) {
-        // calculate the size of the dot relative to population at the junction
-        double radius = 0.1 + 0.3 * Math.log(1+this.population/2000);
-        //radius = 0.1;
-        int fontSize = 3;
-
-        // accounts for the reversed y-direction of the svg coordinate system relative to RD-coordinates
-        svgWriter.printf(Locale.ENGLISH,"<circle cx='%.3f' cy='%.3f' r='%.3f' fill='%s'/>\n",
-                this.locationX, -this.locationY, radius, colour);
-        svgWriter.printf(Locale.ENGLISH,"<text x='%.3f' y='%.3f' font-size='%d' fill='%s' text-anchor='middle'>%s</text>\n",
-                this.locationX, -this.locationY-1.3, fontSize, colour, this.name);
-
+        StringBuilder svg = new StringBuilder(160);
+        this.svgDraw(svg, colour);
+        svgWriter.print(svg);
     }
 
     /**
@@ -89,9 +87,35 @@ public class Junction implements DGVertex<Road>
      * @param svgWriter
      */
     public void svgDrawRoads(PrintStream svgWriter) {
+        StringBuilder svg = new StringBuilder(100 * this.roads.size());
         for (Road r: this.roads) {
-            r.svgDraw(svgWriter, null);
+            r.svgDraw(svg, null);
         }
+        svgWriter.print(svg);
+    }
+
+    /**
+     * draws the junction onto an svg image with a given colour
+     * @param svg   the buffer of the image, see SvgRenderer
+     * @param colour
+     */
+    void svgDraw(StringBuilder svg, String colour) {
+        int fontSize = 3;
+
+        // accounts for the reversed y-direction of the svg coordinate system relative to RD-coordinates
+        svg.append("<circle cx='");
+        SvgRenderer.appendFixed(svg, this.locationX);
+        svg.append("' cy='");
+        SvgRenderer.appendFixed(svg, -this.locationY);
+        svg.append("' r='");
+        SvgRenderer.appendFixed(svg, this.getSvgRadius());
+        svg.append("' fill='").append(colour).append("'/>\n");
+        svg.append("<text x='");
+        SvgRenderer.appendFixed(svg, this.locationX);
+        svg.append("' y='");
+        SvgRenderer.appendFixed(svg, -this.locationY-1.3);
+        svg.append("' font-size='").append(fontSize).append("' fill='").append(colour)
+                .append("' text-anchor='middle'>").append(this.name).append("</text>\n");
     }
 
     @Override
@@ -0,0 +1,242 @@
+package route_planner;
+
+import java.util.*;
+
+/**
+ * Static 2-d tree of junctions by their RD-coordinates, for fast spatial lookups
+ * The tree is stored implicitly in arrays: the median of every range lo <= i < hi is at (lo + hi) / 2,
+ * the left subtree occupies lo <= i < mid and the right subtree mid < i < hi.
+ * The splitting coordinate alternates between x (even depth) and y (odd depth).
+ * The index reflects the locations of the junctions at the time it has been built.
+ */
+public class JunctionIndex {
+    private final Junction[] junctions;     // in tree order
+    private final double[] xs;
+    private final double[] ys;
+
+    public JunctionIndex(Collection<Junction> junctions) {
+        this.junctions = junctions.toArray(new Junction[0]);
+        int n = this.junctions.length;
+        this.xs = new double[n];
+        this.ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            this.xs[i] = this.junctions[i].getLocationX();
+            this.ys[i] = this.junctions[i].getLocationY();
+        }
+        this.build(0, n, true);
+    }
+
+    public int size() {
+        return this.junctions.length;
+    }
+
+    /**
+     * finds the junction closest to the given location, e.g. for snapping a position onto the road map
+     * @param x
+     * @param y
+     * @return  the nearest junction, null if the index is empty
+     */
+    public Junction nearest(double x, double y) {
+        if (this.junctions.length == 0) return null;
+        double[] best = { Double.POSITIVE_INFINITY };
+        int[] bestIndex = { -1 };
+        this.nearest(0, this.junctions.length, true, x, y, best, bestIndex);
+        return this.junctions[bestIndex[0]];
+    }
+
+    /**
+     * finds the k junctions closest to the given location
+     * @param x
+     * @param y
+     * @param k
+     * @return  at most k junctions, ordered by increasing distance
+     */
+    public List<Junction> kNearest(double x, double y, int k) {
+        k = Math.min(k, this.junctions.length);
+        if (k <= 0) return new ArrayList<>();
+        // bounded max-heap of the k best candidates sofar, by squared distance
+        int[] heap = new int[k];
+        double[] heapKeys = new double[k];
+        int[] size = { 0 };
+        this.kNearest(0, this.junctions.length, true, x, y, heap, heapKeys, size);
+
+        // extract the candidates from far to near
+        Junction[] result = new Junction[size[0]];
+        for (int i = size[0] - 1; i >= 0; i--) {
+            result[i] = this.junctions[heap[0]];
+            heap[0] = heap[i];
+            heapKeys[0] = heapKeys[i];
+            siftDown(heap, heapKeys, i, 0);
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @param radius
+     * @return  all junctions within the given distance of the location, in no particular order
+     */
+    public List<Junction> withinRadius(double x, double y, double radius) {
+        List<Junction> result = new ArrayList<>();
+        this.withinRadius(0, this.junctions.length, true, x, y, radius * radius, result);
+        return result;
+    }
+
+    /**
+     * @param minX
+     * @param minY
+     * @param maxX
+     * @param maxY
+     * @return  all junctions inside the bounding box (inclusive), in no particular order
+     */
+    public List<Junction> withinBox(double minX, double minY, double maxX, double maxY) {
+        List<Junction> result = new ArrayList<>();
+        this.withinBox(0, this.junctions.length, true, minX, minY, maxX, maxY, result);
+        return result;
+    }
+
+    /**
+     * places the median of the range by the splitting coordinate in the middle, and recursively builds both halves
+     */
+    private void build(int lo, int hi, boolean splitX) {
+        if (hi - lo <= 1) return;
+        int mid = (lo + hi) >>> 1;
+        this.select(lo, hi - 1, mid, splitX ? this.xs : this.ys);
+        this.build(lo, mid, !splitX);
+        this.build(mid + 1, hi, !splitX);
+    }
+
+    /**
+     * quickselect: rearranges the range left..right such that position k holds the element of rank k by the given key
+     */
+    private void select(int left, int right, int k, double[] keys) {
+        while (right > left) {
+            double pivot = keys[(left + right) >>> 1];
+            int i = left, j = right;
+            while (i <= j) {
+                while (keys[i] < pivot) i++;
+                while (keys[j] > pivot) j--;
+                if (i <= j) this.swap(i++, j--);
+            }
+            if (k <= j) right = j;
+            else if (k >= i) left = i;
+            else return;
+        }
+    }
+
+    private void swap(int i, int j) {
+        Junction junction = this.junctions[i];
+        this.junctions[i] = this.junctions[j];
+        this.junctions[j] = junction;
+        double x = this.xs[i];
+        this.xs[i] = this.xs[j];
+        this.xs[j] = x;
+        double y = this.ys[i];
+        this.ys[i] = this.ys[j];
+        this.ys[j] = y;
+    }
+
+    private double squaredDistance(int i, double x, double y) {
+        double dX = this.xs[i] - x;
+        double dY = this.ys[i] - y;
+        return dX * dX + dY * dY;
+    }
+
+    private void nearest(int lo, int hi, boolean splitX, double x, double y, double[] best, int[] bestIndex) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        double d = this.squaredDistance(mid, x, y);
+        if (d < best[0]) {
+            best[0] = d;
+            bestIndex[0] = mid;
+        }
+        // search the side of the location first, and the other side only if it may hold a closer junction
+        double delta = splitX ? x - this.xs[mid] : y - this.ys[mid];
+        if (delta < 0) {
+            this.nearest(lo, mid, !splitX, x, y, best, bestIndex);
+            if (delta * delta < best[0]) this.nearest(mid + 1, hi, !splitX, x, y, best, bestIndex);
+        } else {
+            this.nearest(mid + 1, hi, !splitX, x, y, best, bestIndex);
+            if (delta * delta < best[0]) this.nearest(lo, mid, !splitX, x, y, best, bestIndex);
+        }
+    }
+
+    private void kNearest(int lo, int hi, boolean splitX, double x, double y,
+                          int[] heap, double[] heapKeys, int[] size) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        double d = this.squaredDistance(mid, x, y);
+        if (size[0] < heap.length) {
+            // the heap is not full yet, add the candidate at the bottom
+            int i = size[0]++;
+            heap[i] = mid;
+            heapKeys[i] = d;
+            while (i > 0 && heapKeys[(i - 1) / 2] < heapKeys[i]) {
+                swap(heap, heapKeys, i, (i - 1) / 2);
+                i = (i - 1) / 2;
+            }
+        } else if (d < heapKeys[0]) {
+            // replace the farthest candidate
+            heap[0] = mid;
+            heapKeys[0] = d;
+            siftDown(heap, heapKeys, size[0], 0);
+        }
+
+        double delta = splitX ? x - this.xs[mid] : y - this.ys[mid];
+        int nearLo = delta < 0 ? lo : mid + 1, nearHi = delta < 0 ? mid : hi;
+        int farLo = delta < 0 ? mid + 1 : lo, farHi = delta < 0 ? hi : mid;
+        this.kNearest(nearLo, nearHi, !splitX, x, y, heap, heapKeys, size);
+        if (size[0] < heap.length || delta * delta < heapKeys[0]) {
+            this.kNearest(farLo, farHi, !splitX, x, y, heap, heapKeys, size);
+        }
+    }
+
+    private static void siftDown(int[] heap, double[] heapKeys, int size, int i) {
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heapKeys[child + 1] > heapKeys[child]) child++;
+            if (heapKeys[child] <= heapKeys[i]) break;
+            swap(heap, heapKeys, i, child);
+            i = child;
+        }
+    }
+
+    private static void swap(int[] heap, double[] heapKeys, int i, int j) {
+        int v = heap[i];
+        heap[i] = heap[j];
+        heap[j] = v;
+        double key = heapKeys[i];
+        heapKeys[i] = heapKeys[j];
+        heapKeys[j] = key;
+    }
+
+    private void withinRadius(int lo, int hi, boolean splitX, double x, double y,
+                              double squaredRadius, List<Junction> result) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        if (this.squaredDistance(mid, x, y) <= squaredRadius) result.add(this.junctions[mid]);
+        double delta = splitX ? x - this.xs[mid] : y - this.ys[mid];
+        if (delta <= 0 || delta * delta <= squaredRadius) {
+            this.withinRadius(lo, mid, !splitX, x, y, squaredRadius, result);
+        }
+        if (delta >= 0 || delta * delta <= squaredRadius) {
+            this.withinRadius(mid + 1, hi, !splitX, x, y, squaredRadius, result);
+        }
+    }
+
+    private void withinBox(int lo, int hi, boolean splitX,
+                           double minX, double minY, double maxX, double maxY, List<Junction> result) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        double mx = this.xs[mid], my = this.ys[mid];
+        if (mx >= minX && mx <= maxX && my >= minY && my <= maxY) result.add(this.junctions[mid]);
+        double split = splitX ? mx : my;
+        if ((splitX ? minX : minY) <= split) {
+            this.withinBox(lo, mid, !splitX, minX, minY, maxX, maxY, result);
+        }
+        if ((splitX ? maxX : maxY) >= split) {
+            this.withinBox(mid + 1, hi, !splitX, minX, minY, maxX, maxY, result);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package route_planner;
+
+import graphs.DGSnapshot;
+import graphs.DirectedGraph;
+import graphs.DynamicShortestPathTree;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Keeps the shortest path trees of a set of registered origins in a road map up-to-date,
+ * while the lengths and maximum speeds of the roads change, e.g. because of traffic incidents.
+ * Every change of a road only repairs the parts of the trees that are affected by the change.
+ * The service does not follow changes in the structure of the road map, i.e. added or removed junctions or roads.
+ */
+public class LiveRouteService implements Consumer<Road> {
+
+    private final RoadMap roadMap;
+    private final ToDoubleFunction<Road> weightMapper;
+    private final DGSnapshot<Junction, Road> snapshot;
+    private final double[] weights;             // the current weight of every road, aligned with the snapshot
+    private final Map<String, DynamicShortestPathTree<Junction, Road>> trees = new HashMap<>();
+
+    /**
+     * starts the service and registers it with the road map for changes of roads
+     * @param roadMap
+     * @param weightMapper    provides a function, by which the non-negative weight of a road can be retrieved or calculated
+     */
+    public LiveRouteService(RoadMap roadMap, ToDoubleFunction<Road> weightMapper) {
+        this.roadMap = roadMap;
+        this.weightMapper = weightMapper;
+        this.snapshot = roadMap.freeze();
+        this.weights = this.snapshot.compileWeights(weightMapper);
+        roadMap.addRoadChangeListener(this);
+    }
+
+    /**
+     * unregisters the service from the road map
+     */
+    public void close() {
+        this.roadMap.removeRoadChangeListener(this);
+    }
+
+    /**
+     * calculates and maintains the shortest path tree from the given origin
+     * @param originId
+     */
+    public synchronized void addOrigin(String originId) {
+        if (!this.trees.containsKey(originId)) {
+            this.trees.put(originId, new DynamicShortestPathTree<>(this.snapshot, this.weights, originId));
+        }
+    }
+
+    public synchronized void removeOrigin(String originId) {
+        this.trees.remove(originId);
+    }
+
+    /**
+     * @param originId  a registered origin
+     * @param targetId
+     * @return  the current shortest path from origin to target
+     *          returns null if the target cannot be reached
+     * @throws  IllegalArgumentException if the origin has not been registered
+     */
+    public synchronized DirectedGraph<Junction, Road>.DGPath getRoute(String originId, String targetId) {
+        return this.getTree(originId).getPathTo(targetId);
+    }
+
+    /**
+     * @param originId  a registered origin
+     * @return  the number of junctions that have been reconsidered by the most recent repair of the tree of the origin
+     */
+    public synchronized int getNumAffected(String originId) {
+        return this.getTree(originId).getNumAffected();
+    }
+
+    private DynamicShortestPathTree<Junction, Road> getTree(String originId) {
+        DynamicShortestPathTree<Junction, Road> tree = this.trees.get(originId);
+        if (tree == null) {
+            throw new IllegalArgumentException("Origin " + originId + " has not been registered");
+        }
+        return tree;
+    }
+
+    /**
+     * recalculates the weight of a changed road and repairs all trees accordingly
+     * @param road
+     */
+    @Override
+    public synchronized void accept(Road road) {
+        int e = this.snapshot.indexOfEdge(road);
+        if (e < 0) return;
+
+        double oldWeight = this.weights[e];
+        this.weights[e] = this.weightMapper.applyAsDouble(road);
+        if (this.weights[e] == oldWeight) return;
+
+        for (DynamicShortestPathTree<Junction, Road> tree : this.trees.values()) {
+            tree.weightChanged(e, oldWeight);
+        }
+    }
+}
@@ -3,7 +3,6 @@ package route_planner;
 import graphs.DGEdge;
 
 import java.io.PrintStream;
-import java.util.Locale;
 import java.util.Objects;
 
 public class Road implements DGEdge<Junction>
@@ -13,6 +12,7 @@ public class Road implements DGEdge<Junction>
     private Junction to;        // the junction where this road segment ends
     private double length;      // the fysical length of the segment in km
     private int maxSpeed;       // the maximum driving speed on the segment in km/h
+    RoadMap roadMap = null;     // the map that holds this road segment, which is notified of changes to the segment
 
     /*
         Roadsegments shall be considered uni-directional.
@@ -67,7 +67,9 @@ public class Road implements DGEdge<Junction>
     }
 
     public void setLength(double length) {
+        if (this.roadMap != null) this.roadMap.checkRoadChange(this, length, this.maxSpeed);
         this.length = length;
+        if (this.roadMap != null) this.roadMap.roadChanged(this);
     }
 
     public int getMaxSpeed() {
@@ -75,7 +77,24 @@ public class Road implements DGEdge<Junction>
     }
 
     public void setMaxSpeed(int maxSpeed) {
+        if (this.roadMap != null) this.roadMap.checkRoadChange(this, this.length, maxSpeed);
         this.maxSpeed = maxSpeed;
+        if (this.roadMap != null) this.roadMap.roadChanged(this);
+    }
+
+    /**
+     * @return  the time in hours to travel the road segment at its maximum speed
+     */
+    public double getTravelTime() {
+        return this.length / this.maxSpeed;
+    }
+
+    /**
+     * @return  the length of the road segment as drawn on an svg image, i.e. the distance between its junctions
+     */
+    double getSvgLength() {
+        return Math.hypot(this.getTo().getLocationX() - this.getFrom().getLocationX(),
+                this.getTo().getLocationY() - this.getFrom().getLocationY());
     }
 
     /**
@@ -85,6 +104,18 @@ public class Road implements DGEdge<Junction>
      * @param colour
      */
     public void svgDraw(PrintStream svgWriter, String colour) {
+        StringBuilder svg = new StringBuilder(100);
+        this.svgDraw(svg, colour);
+        svgWriter.print(svg);
+    }
+
+    /**
+     * Draws the road segment onto a .svg image with the specified colour
+     * If no colour is provided, a default will be calculated on the basis of the maxSpeed
+     * @param svg   the buffer of the image, see SvgRenderer
+     * @param colour
+     */
+    void svgDraw(StringBuilder svg, String colour) {
         if (colour == null) {
             if (this.maxSpeed >= 100) colour = "darkorange";
             else if (this.maxSpeed >= 80) colour = "gold";
@@ -94,10 +125,17 @@ public class Road implements DGEdge<Junction>
         double width = 0.2 + this.maxSpeed * 0.008;
 
         // accounts for the reversed y-direction of the svg coordinate system relative to RD-coordinates
-        svgWriter.printf(Locale.ENGLISH, "<line x1='%.3f' y1='%.3f' x2='%.3f' y2='%.3f' stroke-width='%.3f' stroke='%s'/>\n",
-                this.getFrom().getLocationX(), -this.getFrom().getLocationY(),
-                this.getTo().getLocationX(), -this.getTo().getLocationY(),
-                width, colour);
+        svg.append("<line x1='");
+        SvgRenderer.appendFixed(svg, this.getFrom().getLocationX());
+        svg.append("' y1='");
+        SvgRenderer.appendFixed(svg, -this.getFrom().getLocationY());
+        svg.append("' x2='");
+        SvgRenderer.appendFixed(svg, this.getTo().getLocationX());
+        svg.append("' y2='");
+        SvgRenderer.appendFixed(svg, -this.getTo().getLocationY());
+        svg.append("' stroke-width='");
+        SvgRenderer.appendFixed(svg, width);
+        svg.append("' stroke='").append(colour).append("'/>\n");
     }
 
     @Override
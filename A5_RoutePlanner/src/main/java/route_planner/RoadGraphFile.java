@@ -0,0 +1,450 @@
+package route_planner;
+
+import graphs.DGSnapshot;
+import graphs.IndexedMinHeap;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Compact binary file of a RoadMap, which is opened through a read-only memory mapping
+ * such that routes can be queried immediately, without parsing and without materializing Junction and Road objects.
+ *
+ * The file consists of a header and a sequence of arrays, in big-endian byte order:
+ *  header:     magic, version, numJunctions, numRoads, numStrings, numStringBytes   (6 ints)
+ *  junctions:  x[numJunctions], y[numJunctions]                                   (doubles, in km)
+ *  roads:      length[numRoads]                                                   (doubles, in km)
+ *  junctions:  population[numJunctions]                                           (ints)
+ *  adjacency:  firstRoad[numJunctions+1], to[numRoads]                            (ints, compressed sparse rows)
+ *  roads:      maxSpeed[numRoads], name[numRoads]                                 (ints)
+ *  strings:    stringOffset[numStrings+1] (ints), followed by the utf-8 bytes of all strings
+ * The name of junction v is string v of the string table, the road names follow after all junction names.
+ * Junctions are stored in the order of their ids, such that they can be found by binary search,
+ * and the roads from junction v are numbered firstRoad[v] <= r < firstRoad[v+1].
+ * The numbering of junctions and roads matches the snapshot of the RoadMap that has been written.
+ */
+public class RoadGraphFile {
+    private static final int MAGIC = 0x52474646;     // "RGFF"
+    private static final int VERSION = 2;          // version 1 held an identity array of junction names
+    private static final int HEADER_SIZE = 6 * Integer.BYTES;
+
+    /**
+     * provides the weight of a road from its properties in the file
+     */
+    public interface RoadWeight {
+        double weight(double length, int maxSpeed);
+    }
+
+    private final ByteBuffer buffer;
+    private final int numJunctions;
+    private final int numRoads;
+    private final int numStrings;
+    // the byte positions of all arrays in the buffer
+    private final int xPos, yPos, lengthPos, populationPos,
+            firstRoadPos, toPos, maxSpeedPos, roadNamePos, stringOffsetPos, stringBytesPos;
+
+    private RoadGraphFile(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a road graph file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported road graph file version " + buffer.getInt(4));
+        }
+        this.numJunctions = buffer.getInt(8);
+        this.numRoads = buffer.getInt(12);
+        this.numStrings = buffer.getInt(16);
+        int numStringBytes = buffer.getInt(20);
+        if (this.numJunctions < 0 || this.numRoads < 0 || this.numStrings < this.numJunctions || numStringBytes < 0) {
+            throw new IllegalArgumentException("Corrupt road graph file header");
+        }
+
+        // the file size is checked in long arithmetic, before any of the int positions is calculated
+        long n = this.numJunctions, m = this.numRoads;
+        long fileSize = HEADER_SIZE + 20 * n + 20 * m + 4 * (n + 1) + 4 * (this.numStrings + 1L) + numStringBytes;
+        if (buffer.capacity() != fileSize) {
+            throw new IllegalArgumentException("Truncated or corrupt road graph file");
+        }
+        this.xPos = HEADER_SIZE;
+        this.yPos = this.xPos + this.numJunctions * Double.BYTES;
+        this.lengthPos = this.yPos + this.numJunctions * Double.BYTES;
+        this.populationPos = this.lengthPos + this.numRoads * Double.BYTES;
+        this.firstRoadPos = this.populationPos + this.numJunctions * Integer.BYTES;
+        this.toPos = this.firstRoadPos + (this.numJunctions + 1) * Integer.BYTES;
+        this.maxSpeedPos = this.toPos + this.numRoads * Integer.BYTES;
+        this.roadNamePos = this.maxSpeedPos + this.numRoads * Integer.BYTES;
+        this.stringOffsetPos = this.roadNamePos + this.numRoads * Integer.BYTES;
+        this.stringBytesPos = this.stringOffsetPos + (this.numStrings + 1) * Integer.BYTES;
+
+        // the bounds of the adjacency and string arrays, which can be checked without a pass over the file
+        if (this.getFirstRoad(0) != 0 || this.getFirstRoad(this.numJunctions) != this.numRoads
+                || buffer.getInt(this.stringOffsetPos) != 0
+                || buffer.getInt(this.stringBytesPos - Integer.BYTES) != numStringBytes) {
+            throw new IllegalArgumentException("Corrupt road graph file");
+        }
+    }
+
+    /**
+     * the junctions and roads to be written into a file, by their numbers in the file:
+     * junctions are numbered in the order of their names, which shall be unique,
+     * and the roads from junction v are numbered getFirstRoad(v) <= r < getFirstRoad(v+1)
+     */
+    interface Source {
+        int getNumJunctions();
+        int getNumRoads();
+        String getJunctionName(int v);
+        double getLocationX(int v);
+        double getLocationY(int v);
+        int getPopulation(int v);
+        int getFirstRoad(int v);
+        int getRoadTo(int r);
+        double getRoadLength(int r);
+        int getRoadMaxSpeed(int r);
+        String getRoadName(int r);
+    }
+
+    /**
+     * writes the current junctions and roads of the map into a binary file
+     * @param roadMap
+     * @param file
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public static void write(RoadMap roadMap, Path file) {
+        DGSnapshot<Junction, Road> snapshot = roadMap.freeze();
+        int n = snapshot.getNumVertices();
+        int m = snapshot.getNumEdges();
+
+        // the edges of the snapshot are numbered consecutively per from-vertex
+        int[] firstRoad = new int[n + 1];
+        int r = 0;
+        for (int v = 0; v < n; v++) {
+            firstRoad[v] = r;
+            while (r < m && snapshot.getEdge(r).getFrom() == snapshot.getVertex(v)) r++;
+        }
+        firstRoad[n] = m;
+
+        write(new Source() {
+            @Override
+            public int getNumJunctions() {
+                return n;
+            }
+
+            @Override
+            public int getNumRoads() {
+                return m;
+            }
+
+            @Override
+            public String getJunctionName(int v) {
+                return snapshot.getVertex(v).getName();
+            }
+
+            @Override
+            public double getLocationX(int v) {
+                return snapshot.getVertex(v).getLocationX();
+            }
+
+            @Override
+            public double getLocationY(int v) {
+                return snapshot.getVertex(v).getLocationY();
+            }
+
+            @Override
+            public int getPopulation(int v) {
+                return snapshot.getVertex(v).getPopulation();
+            }
+
+            @Override
+            public int getFirstRoad(int v) {
+                return firstRoad[v];
+            }
+
+            @Override
+            public int getRoadTo(int r) {
+                return snapshot.indexOf(snapshot.getEdge(r).getTo().getId());
+            }
+
+            @Override
+            public double getRoadLength(int r) {
+                return snapshot.getEdge(r).getLength();
+            }
+
+            @Override
+            public int getRoadMaxSpeed(int r) {
+                return snapshot.getEdge(r).getMaxSpeed();
+            }
+
+            @Override
+            public String getRoadName(int r) {
+                return snapshot.getEdge(r).getName();
+            }
+        }, file);
+    }
+
+    /**
+     * streams the junctions and roads of the source into a binary file
+     * The junction names take the first entries of the string table, followed by the distinct road names,
+     * such that no table of all junction names is held in memory
+     * @param source
+     * @param file
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    static void write(Source source, Path file) {
+        int n = source.getNumJunctions();
+        int m = source.getNumRoads();
+
+        // collect the distinct names of all roads into the string table, after the names of all junctions
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<byte[]> roadNameStrings = new ArrayList<>();
+        int[] roadNames = new int[m];
+        for (int r = 0; r < m; r++) {
+            roadNames[r] = n + stringIdOf(source.getRoadName(r), stringIds, roadNameStrings);
+        }
+        long numStringBytes = roadNameStrings.stream().mapToInt(s -> s.length).sum();
+        for (int v = 0; v < n; v++) {
+            numStringBytes += source.getJunctionName(v).getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (HEADER_SIZE + 24L * n + 20L * m + 4L * (n + roadNameStrings.size() + 2) + numStringBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Road graph file would exceed 2GB");
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file.toFile()), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+            out.writeInt(m);
+            out.writeInt(n + roadNameStrings.size());
+            out.writeInt((int)numStringBytes);
+
+            for (int v = 0; v < n; v++) out.writeDouble(source.getLocationX(v));
+            for (int v = 0; v < n; v++) out.writeDouble(source.getLocationY(v));
+            for (int r = 0; r < m; r++) out.writeDouble(source.getRoadLength(r));
+            for (int v = 0; v < n; v++) out.writeInt(source.getPopulation(v));
+            for (int v = 0; v <= n; v++) out.writeInt(source.getFirstRoad(v));
+            for (int r = 0; r < m; r++) out.writeInt(source.getRoadTo(r));
+            for (int r = 0; r < m; r++) out.writeInt(source.getRoadMaxSpeed(r));
+            for (int r = 0; r < m; r++) out.writeInt(roadNames[r]);
+
+            // the offsets of all strings, followed by their bytes
+            int offset = 0;
+            for (int v = 0; v < n; v++) {
+                out.writeInt(offset);
+                offset += source.getJunctionName(v).getBytes(StandardCharsets.UTF_8).length;
+            }
+            for (byte[] s : roadNameStrings) {
+                out.writeInt(offset);
+                offset += s.length;
+            }
+            out.writeInt(offset);
+            for (int v = 0; v < n; v++) out.write(source.getJunctionName(v).getBytes(StandardCharsets.UTF_8));
+            for (byte[] s : roadNameStrings) out.write(s);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int stringIdOf(String s, Map<String, Integer> stringIds, List<byte[]> strings) {
+        return stringIds.computeIfAbsent(s, k -> {
+            strings.add(k.getBytes(StandardCharsets.UTF_8));
+            return strings.size() - 1;
+        });
+    }
+
+    /**
+     * maps a binary road graph file into memory
+     * @param file
+     * @return
+     * @throws UncheckedIOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a road graph file of a supported version
+     */
+    public static RoadGraphFile open(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping remains valid after the channel has been closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new RoadGraphFile(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int getNumJunctions() {
+        return this.numJunctions;
+    }
+
+    public int getNumRoads() {
+        return this.numRoads;
+    }
+
+    /**
+     * finds a junction by binary search on the names
+     * @param name
+     * @return  the index of the junction, -1 if there is no junction with the given name
+     */
+    public int indexOf(String name) {
+        int low = 0, high = this.numJunctions - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = this.getJunctionName(mid).compareTo(name);
+            if (c < 0) low = mid + 1;
+            else if (c > 0) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    public String getJunctionName(int v) {
+        return this.getString(v);
+    }
+
+    public double getLocationX(int v) {
+        return this.buffer.getDouble(this.xPos + v * Double.BYTES);
+    }
+
+    public double getLocationY(int v) {
+        return this.buffer.getDouble(this.yPos + v * Double.BYTES);
+    }
+
+    public int getPopulation(int v) {
+        return this.buffer.getInt(this.populationPos + v * Integer.BYTES);
+    }
+
+    public int getFirstRoad(int v) {
+        return this.buffer.getInt(this.firstRoadPos + v * Integer.BYTES);
+    }
+
+    public int getRoadTo(int r) {
+        return this.buffer.getInt(this.toPos + r * Integer.BYTES);
+    }
+
+    public double getRoadLength(int r) {
+        return this.buffer.getDouble(this.lengthPos + r * Double.BYTES);
+    }
+
+    public int getRoadMaxSpeed(int r) {
+        return this.buffer.getInt(this.maxSpeedPos + r * Integer.BYTES);
+    }
+
+    public String getRoadName(int r) {
+        return this.getString(this.buffer.getInt(this.roadNamePos + r * Integer.BYTES));
+    }
+
+    private String getString(int s) {
+        int from = this.buffer.getInt(this.stringOffsetPos + s * Integer.BYTES);
+        int to = this.buffer.getInt(this.stringOffsetPos + (s + 1) * Integer.BYTES);
+        byte[] bytes = new byte[to - from];
+        this.buffer.duplicate().position(this.stringBytesPos + from).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * calculates the weights of all roads in one pass over the file
+     * @param roadWeight
+     * @return  the weights of all roads, indexed by road number
+     */
+    public double[] compileWeights(RoadWeight roadWeight) {
+        double[] weights = new double[this.numRoads];
+        for (int r = 0; r < this.numRoads; r++) {
+            weights[r] = roadWeight.weight(this.getRoadLength(r), this.getRoadMaxSpeed(r));
+        }
+        return weights;
+    }
+
+    /**
+     * Calculates the shortest route between two junctions by dijkstra search on the mapped adjacency arrays
+     * @param fromName
+     * @param toName
+     * @param weights   the non-negative weights of all roads, e.g. from compileWeights
+     * @return  the names of all junctions along the route, from the start to the target,
+     *          null if any of the junctions cannot be found or no route exists
+     */
+    public List<String> shortestRoute(String fromName, String toName, double[] weights) {
+        int start = this.indexOf(fromName);
+        int target = this.indexOf(toName);
+        if (start < 0 || target < 0) return null;
+
+        int[] parent = new int[this.numJunctions];
+        if (this.search(start, target, weights, parent) == Double.POSITIVE_INFINITY) return null;
+
+        LinkedList<String> route = new LinkedList<>();
+        for (int v = target; v >= 0; v = parent[v]) {
+            route.addFirst(this.getJunctionName(v));
+        }
+        return route;
+    }
+
+    /**
+     * Calculates the weight of the shortest route between two junctions
+     * @param fromName
+     * @param toName
+     * @param weights   the non-negative weights of all roads, e.g. from compileWeights
+     * @return  the weight of the shortest route, Double.POSITIVE_INFINITY if no route exists
+     */
+    public double shortestRouteWeight(String fromName, String toName, double[] weights) {
+        int start = this.indexOf(fromName);
+        int target = this.indexOf(toName);
+        if (start < 0 || target < 0) return Double.POSITIVE_INFINITY;
+        return this.search(start, target, weights, new int[this.numJunctions]);
+    }
+
+    /**
+     * dijkstra search from start, which stops as soon as the target has been marked
+     * @return  the weight of the shortest route, with the predecessor of every junction on the route in parent
+     */
+    private double search(int start, int target, double[] weights, int[] parent) {
+        double[] weightSumTo = new double[this.numJunctions];
+        Arrays.fill(weightSumTo, Double.POSITIVE_INFINITY);
+        IndexedMinHeap frontier = new IndexedMinHeap(this.numJunctions);
+        weightSumTo[start] = 0.0;
+        parent[start] = -1;
+        frontier.addOrDecrease(start, 0.0);
+
+        while (!frontier.isEmpty()) {
+            int v = frontier.poll();
+            if (v == target) break;
+            int lastRoad = this.getFirstRoad(v + 1);
+            for (int r = this.getFirstRoad(v); r < lastRoad; r++) {
+                int w = this.getRoadTo(r);
+                double possibleNewLength = weightSumTo[v] + weights[r];
+                if (possibleNewLength < weightSumTo[w]) {
+                    weightSumTo[w] = possibleNewLength;
+                    parent[w] = v;
+                    frontier.addOrDecrease(w, possibleNewLength);
+                }
+            }
+        }
+        return weightSumTo[target];
+    }
+
+    /**
+     * materializes the complete map of Junction and Road objects from the file
+     * @return
+     */
+    public RoadMap toRoadMap() {
+        RoadMap roadMap = new RoadMap(this.numJunctions);
+        Junction[] junctions = new Junction[this.numJunctions];
+        for (int v = 0; v < this.numJunctions; v++) {
+            junctions[v] = new Junction(this.getJunctionName(v));
+            junctions[v].setLocationX(this.getLocationX(v));
+            junctions[v].setLocationY(this.getLocationY(v));
+            junctions[v].setPopulation(this.getPopulation(v));
+            roadMap.addOrGetVertex(junctions[v]);
+        }
+        for (int v = 0; v < this.numJunctions; v++) {
+            int lastRoad = this.getFirstRoad(v + 1);
+            for (int r = this.getFirstRoad(v); r < lastRoad; r++) {
+                Road road = new Road(this.getRoadName(r), junctions[v], junctions[this.getRoadTo(r)]);
+                road.setLength(this.getRoadLength(r));
+                road.setMaxSpeed(this.getRoadMaxSpeed(r));
+                roadMap.addOrGetEdge(road);
+            }
+        }
+        return roadMap;
+    }
+}
@@ -2,13 +2,16 @@ package route_planner;
 
 import graphs.DirectedGraph;
 
-import java.io.FileNotFoundException;
-import java.io.PrintStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Locale;
-import java.util.Random;
-import java.util.Scanner;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
 
 public class RoadMap extends DirectedGraph<Junction, Road> {
 
@@ -16,15 +19,27 @@ public class RoadMap extends DirectedGraph<Junction, Road> {
         super();
     }
 
+    /**
+     * creates an empty map for bulk loading of the expected number of junctions
+     * @param expectedNumJunctions
+     */
+    public RoadMap(int expectedNumJunctions) {
+        super(expectedNumJunctions);
+    }
+
     public RoadMap(String junctionsResource, String roadsResource) {
         this();
         System.out.printf("\nImporting junctions and roads from %s and %s...\n",
                 junctionsResource, roadsResource);;
+        long started = System.nanoTime();
         int nJunctions = importJunctions(junctionsResource);
         int nRoads = importRoads(roadsResource);
+        double seconds = (System.nanoTime() - started) / 1E9;
         this.removeUnconnectedVertices();
         System.out.printf("%d junctions and %d bi-directional roads have been imported.\n",
                 nJunctions, nRoads);
+        System.out.printf("%d rows have been read in %.3f seconds (%.0f rows/s).\n",
+                this.numImportedRows, seconds, this.numImportedRows / seconds);
         System.out.printf("%d junctions and %d one-way roads have been stored into the graph.\n",
                 this.getNumVertices(), this.getNumEdges());
     }
@@ -38,7 +53,134 @@ public class RoadMap extends DirectedGraph<Junction, Road> {
         randomizer = new Random(seed);
     }
 
-    private static final String DELIMITER = ";";
+    // the spatial index of the junctions, which is discarded when junctions are added or removed
+    private JunctionIndex junctionIndex = null;
+
+    // the number of csv rows that have been read by the importers, for reporting of the import rate
+    private long numImportedRows = 0;
+
+    // listeners to be notified of changes in the length or maximum speed of any road segment in the map
+    private final List<Consumer<Road>> roadChangeListeners = new ArrayList<>();
+
+    /**
+     * registers a listener that will be called after the length or the maximum speed of any road in the map has changed
+     * @param listener
+     */
+    public void addRoadChangeListener(Consumer<Road> listener) {
+        this.roadChangeListeners.add(listener);
+    }
+
+    public void removeRoadChangeListener(Consumer<Road> listener) {
+        this.roadChangeListeners.remove(listener);
+    }
+
+    // the registered weight profiles by their name, starting with the built-in length and travel time
+    private final Map<String, WeightProfile> weightProfiles = new LinkedHashMap<>();
+    {
+        this.weightProfiles.put(WeightProfile.LENGTH, new WeightProfile(this, WeightProfile.LENGTH,
+                Road::getLength, Junction::getDistance));
+        this.weightProfiles.put(WeightProfile.TRAVEL_TIME, new WeightProfile(this, WeightProfile.TRAVEL_TIME,
+                Road::getTravelTime, (from, to) -> from.getDistance(to) / WeightProfile.MAX_SPEED));
+    }
+
+    /**
+     * registers a named weighting of the roads, which is compiled into an array of weights
+     * and which is kept up-to-date with changes of the length and maximum speed of the roads
+     * @param name
+     * @param weightMapper    provides a function, by which the non-negative weight of a road can be retrieved or calculated
+     *                        the weight shall not decrease when a road gets slower or longer
+     * @param minimumWeightEstimator    optional lower bound of the weight of any path between two junctions,
+     *                        by which aStarShortestPath can reduce the number of visited junctions
+     * @return  the profile, which can be passed to the searches
+     * @throws IllegalArgumentException if the name is in use already, or if the weights are negative
+     *                        or decrease when a road gets slower or longer, e.g. an inverted travel time
+     */
+    public WeightProfile addWeightProfile(String name, ToDoubleFunction<Road> weightMapper,
+                                          ToDoubleBiFunction<Junction, Junction> minimumWeightEstimator) {
+        if (this.weightProfiles.containsKey(name)) {
+            throw new IllegalArgumentException("Weight profile " + name + " has been registered already");
+        }
+        WeightProfile profile = new WeightProfile(this, name, weightMapper, minimumWeightEstimator);
+        // compile the profile right away, such that invalid weights are rejected at registration
+        profile.getSnapshot();
+        this.weightProfiles.put(name, profile);
+        return profile;
+    }
+
+    /**
+     * @param name  e.g. WeightProfile.LENGTH or WeightProfile.TRAVEL_TIME
+     * @return  the registered weight profile, null if no profile has been registered by the name
+     */
+    public WeightProfile getWeightProfile(String name) {
+        return this.weightProfiles.get(name);
+    }
+
+    public Collection<WeightProfile> getWeightProfiles() {
+        return Collections.unmodifiableCollection(this.weightProfiles.values());
+    }
+
+    /**
+     * checks a change of the length or maximum speed of a road against all weight profiles,
+     * before the road is changed, such that a rejected change leaves the road and all profiles untouched
+     * @param road
+     * @param length    the new length of the road
+     * @param maxSpeed  the new maximum speed of the road
+     * @throws IllegalArgumentException if any profile would weigh the changed road negative
+     */
+    void checkRoadChange(Road road, double length, int maxSpeed) {
+        for (WeightProfile profile : this.weightProfiles.values()) {
+            profile.checkWeight(road, length, maxSpeed);
+        }
+    }
+
+    /**
+     * notifies all weight profiles and listeners of a change in the given road segment
+     * @param road
+     */
+    void roadChanged(Road road) {
+        for (WeightProfile profile : this.weightProfiles.values()) {
+            profile.roadChanged(road);
+        }
+        for (Consumer<Road> listener : this.roadChangeListeners) {
+            listener.accept(road);
+        }
+    }
+
+    /**
+     * @return  the spatial index of all junctions in the map, which is rebuilt after junctions have been added or removed
+     */
+    public JunctionIndex getJunctionIndex() {
+        if (this.junctionIndex == null) {
+            this.junctionIndex = new JunctionIndex(this.getVertices());
+        }
+        return this.junctionIndex;
+    }
+
+    @Override
+    public Junction addOrGetVertex(Junction newJunction) {
+        Junction junction = super.addOrGetVertex(newJunction);
+        if (junction == newJunction) this.junctionIndex = null;
+        return junction;
+    }
+
+    @Override
+    public void removeUnconnectedVertices() {
+        super.removeUnconnectedVertices();
+        this.junctionIndex = null;
+    }
+
+    /**
+     * Adds newRoad to the map, and registers the map with the road, such that the map gets notified of changes
+     * @param newRoad
+     * @return  the duplicate of newRoad that already existed in the map
+     *          or newRoad itselves if it just has been added.
+     */
+    @Override
+    public Road addOrGetEdge(Road newRoad) {
+        Road road = super.addOrGetEdge(newRoad);
+        road.roadMap = this;
+        return road;
+    }
 
     /**
      * imports a list of junctions from a resource file in the project.
@@ -49,31 +191,45 @@ public class RoadMap extends DirectedGraph<Junction, Road> {
      */
     public int importJunctions(String resourceName) {
         if (resourceName == null) return 0;
+        return this.importJunctions(RoadMap.class.getClassLoader().getResourceAsStream(resourceName));
+    }
+
+    /**
+     * imports a list of junctions from a csv file in the same format as the resource files
+     * @param file
+     * @return
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public int importJunctions(Path file) {
+        try {
+            return this.importJunctions(Files.newInputStream(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int importJunctions(InputStream in) {
         int numLoaded = 0;
 
-        Scanner scanner = new Scanner(
-                RoadMap.class.getClassLoader().getResourceAsStream(resourceName));
-
-        scanner.useDelimiter(DELIMITER);
-        scanner.useLocale(Locale.ENGLISH);
-
-        // skip header line
-        String header = scanner.nextLine();
-        // System.out.println(header);
-
-        while (scanner.hasNext()) {
-            Junction junction = new Junction();
-            scanner.nextInt(); // skip code
-            junction.setName(scanner.next().trim());
-            junction.setLocationX(scanner.nextDouble());
-            junction.setLocationY(scanner.nextDouble());
-            scanner.next(); // skip province
-            junction.setPopulation(scanner.nextInt());
-
-            // add the junction to the DirectedGraph data structure
-            this.addOrGetVertex(junction);
-            numLoaded++;
-            scanner.nextLine();
+        try (CsvReader reader = new CsvReader(in)) {
+
+            // skip header line
+            reader.nextRow();
+
+            while (reader.nextRow()) {
+                Junction junction = new Junction();
+                // skip code
+                junction.setName(reader.getString(1));
+                junction.setLocationX(reader.getDouble(2));
+                junction.setLocationY(reader.getDouble(3));
+                // skip province
+                junction.setPopulation(reader.getInt(5));
+
+                // add the junction to the DirectedGraph data structure
+                this.addOrGetVertex(junction);
+                numLoaded++;
+            }
+            this.numImportedRows += reader.getNumRows();
         }
 
         return numLoaded;
@@ -90,52 +246,101 @@ public class RoadMap extends DirectedGraph<Junction, Road> {
      */
     public int importRoads(String resourceName) {
         if (resourceName == null) return 0;
+        return this.importRoads(RoadMap.class.getClassLoader().getResourceAsStream(resourceName));
+    }
+
+    /**
+     * imports a list of road segments from a csv file in the same format as the resource files
+     * @param file
+     * @return
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public int importRoads(Path file) {
+        try {
+            return this.importRoads(Files.newInputStream(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int importRoads(InputStream in) {
         int numLoaded = 0;
 
-        Scanner scanner = new Scanner(
-                RoadMap.class.getClassLoader().getResourceAsStream(resourceName));
+        try (CsvReader reader = new CsvReader(in)) {
 
-        scanner.useDelimiter(DELIMITER);
-        scanner.useLocale(Locale.ENGLISH);
+            // skip header line
+            reader.nextRow();
 
-        // skip header line
-        String header = scanner.nextLine();
-        // System.out.println(header);
+            while (reader.nextRow()) {
+                // road name
+                String name = reader.getString(0);
+                int speedlimit = reader.getInt(1);
 
-        while (scanner.hasNext()) {
-            // road name
-            String name = scanner.next().trim();
-            int speedlimit = scanner.nextInt();
+                // first junction name: the start of the road
+                // retrieve the associated junction from the DirectedGraph data structure
+                // the interned names have their hash codes cached for all repeated lookups
+                Junction prevJunction = this.getVertexById(reader.getString(2));
 
-            // first junction name: the start of the road
-            String jName = scanner.next().trim();
-            // retrieve the associated junction from the DirectedGraph data structure
-            Junction prevJunction = this.getVertexById(jName);
+                // process the list of junctions connected by this road
+                for (int field = 3; !reader.isEmpty(field) && prevJunction != null; field++) {
+                    // next junction
+                    Junction nextJunction = this.getVertexById(reader.getString(field));
 
-            // process the list of junctions connected by this road
-            while (scanner.hasNext() && prevJunction != null) {
-                // next junction
-                jName = scanner.next().trim();
-                if (jName == null || jName.isEmpty()) {
-                    break;
-                }
-                Junction nextJunction = this.getVertexById(jName);
-
-                // configure two road segments for this connection, in opposite directions
-                if (nextJunction != null) {
-                    // add the road segments to the DirectedGraph data structures
-                    this.addOrGetEdge(new Road(name, prevJunction, nextJunction, speedlimit));
-                    this.addOrGetEdge(new Road(name, nextJunction, prevJunction, speedlimit));
-                    numLoaded++;
-                    prevJunction = nextJunction;
+                    // configure two road segments for this connection, in opposite directions
+                    if (nextJunction != null) {
+                        // add the road segments to the DirectedGraph data structures
+                        this.addOrGetEdge(new Road(name, prevJunction, nextJunction, speedlimit));
+                        this.addOrGetEdge(new Road(name, nextJunction, prevJunction, speedlimit));
+                        numLoaded++;
+                        prevJunction = nextJunction;
+                    }
                 }
             }
-            scanner.nextLine();
+            this.numImportedRows += reader.getNumRows();
         }
 
         return numLoaded;
     }
 
+    /**
+     * Calculates the shortest path from start to target by the precompiled weights of a weight profile
+     * @param startId
+     * @param targetId
+     * @param profile   a weight profile of this map
+     * @return  the shortest path from start to target
+     *          returns null if either start or target cannot be matched with a junction in the map
+     *                          or no path can be found from start to target
+     */
+    public DGPath dijkstraShortestPath(String startId, String targetId, WeightProfile profile) {
+        this.checkWeightProfile(profile);
+        // the snapshot and the weights are read together, such that a concurrent change cannot misalign them
+        WeightProfile.Compiled compiled = profile.getCompiled();
+        return compiled.snapshot.dijkstraShortestPath(startId, targetId, compiled.weights);
+    }
+
+    /**
+     * Calculates the shortest path from start to target by the precompiled weights of a weight profile,
+     * guided by the minimum weight estimator of the profile, if it has one
+     * @param startId
+     * @param targetId
+     * @param profile   a weight profile of this map
+     * @return  the shortest path from start to target
+     *          returns null if either start or target cannot be matched with a junction in the map
+     *                          or no path can be found from start to target
+     */
+    public DGPath aStarShortestPath(String startId, String targetId, WeightProfile profile) {
+        this.checkWeightProfile(profile);
+        WeightProfile.Compiled compiled = profile.getCompiled();
+        return compiled.snapshot.aStarShortestPath(startId, targetId, compiled.weights,
+                profile.getMinimumWeightEstimator());
+    }
+
+    private void checkWeightProfile(WeightProfile profile) {
+        if (profile.getRoadMap() != this) {
+            throw new IllegalArgumentException("Weight profile " + profile.getName() + " belongs to another map");
+        }
+    }
+
     /**
      * produces an .svg file in the target classpath folder, which depicts the roadMap and the optional path
      * .svg files can be viewed with a regular browser
@@ -144,37 +349,9 @@ public class RoadMap extends DirectedGraph<Junction, Road> {
      */
     public void svgDrawMap(String resourceName, DGPath path) {
         try {
-            Path resources = Paths.get("./target/classes");
-            String svgPath = resources.toAbsolutePath() + "/" + resourceName;
-            PrintStream svgWriter = new PrintStream(svgPath);
-
-            // header for an .svg file
-            svgWriter.println("<?xml version='1.0' standalone='no'?>");
-            // configure the viewBox to match the coordinate ranges of the Dutch RD-coordinate system
-            svgWriter.printf("<svg width='20cm' height='30cm' viewBox='%d %d %d %d' preserveAspectRatio='xMidYMin'\n",
-                    0, -625, 300, 300);
-            svgWriter.println("     version='1.1' xmlns='http://www.w3.org/2000/svg'>");
-
-            // first draw all road segments with their default colour
-            for (Junction junction: this.getVertices()) {
-                junction.svgDrawRoads(svgWriter);
-            }
-
-            // on top of that, draw all junctions with a colour depending on their status in the optional path
-            for (Junction junction: this.getVertices()) {
-                junction.svgDraw(svgWriter,
-                        path != null && path.getVisited().contains(junction) ? "yellowgreen" : "black");
-            }
-
-            // on top of that, highlight the path, if any has been provided
-            if (path != null) {
-                for (Road r: path.getEdges()) {
-                    r.svgDraw(svgWriter, "lime");
-                }
-            }
-
-            svgWriter.println("</svg>");
-        } catch (FileNotFoundException e) {
+            // the default viewport of the renderer matches the coordinate ranges of the Dutch RD-coordinate system
+            new SvgRenderer(this).render(Paths.get("./target/classes", resourceName), path);
+        } catch (UncheckedIOException e) {
             e.printStackTrace();
         }
     }
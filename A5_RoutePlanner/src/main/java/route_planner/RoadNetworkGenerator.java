@@ -0,0 +1,581 @@
+package route_planner;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Deterministic generator of synthetic road networks of any size, for load testing of the route planner
+ *
+ * The network is grown like a real one:
+ *  - cities of Zipf distributed importance are spread over the RD-coordinate range of the Netherlands,
+ *    and most junctions are clustered around the city centers, the others are rural and belong to the nearest city
+ *  - within a city, the junctions are numbered by increasing distance from the center, and every junction
+ *    is linked to its nearest junction closer to the center by a local road, which makes every city a tree
+ *  - a minority of junctions gets extra links to their nearest neighbours, which closes loops
+ *  - every city center is linked to the nearest more important center and to its nearest other center,
+ *    by motorways between the most important cities and by regional roads otherwise
+ * This yields a connected network with almost 3 road segments per junction on average, mostly between 1 and 4.
+ *
+ * Junctions are named J followed by their zero-padded number, such that the order of their names is their number.
+ * The same seed produces the same network, and RoadMap.reSeedRandomizer(seed) is applied before junctions are
+ * created, such that the lengths of the roads are the same in a generated map, in a map that is imported
+ * from the generated csv files after reseeding with the same seed, and in the generated graph file.
+ */
+public class RoadNetworkGenerator {
+
+    // the RD-coordinate range of the Netherlands in km
+    private static final double MIN_X = 13.0, MAX_X = 278.0, MIN_Y = 306.0, MAX_Y = 620.0;
+    private static final int NUM_JUNCTIONS_PER_CITY = 400;
+    private static final double RURAL_FRACTION = 0.25;
+    private static final int TOTAL_POPULATION = 17_500_000;
+
+    /**
+     * receives the generated junctions in the order of their numbers, followed by all bi-directional links
+     */
+    interface Sink {
+        void junction(int v, String name, double x, double y, int population) throws IOException;
+        void link(int v, int w, String name, int maxSpeed) throws IOException;
+    }
+
+    private final int numJunctions;
+    private final long seed;
+    private final int numCities;
+    private final int nameWidth;
+
+    // the properties of every junction, by junction number
+    private double[] xs, ys;
+    private int[] population;
+    private int[] cityOf;
+    private int[] parent;           // the junction closer to the city center that this junction is linked to, -1 for centers
+    private int[] loops;            // up to two extra neighbours of every junction, -1 if none
+    // the properties of every city, by importance
+    private int[] cityStart;        // the number of the first junction of every city, which is its center
+    private int[] cityParent;       // the more important city that every city is linked to, -1 for the capital
+    private int[] cityLoop;         // the nearest other city that every city is linked to
+
+    /**
+     * @param numJunctions
+     * @param seed
+     */
+    public RoadNetworkGenerator(int numJunctions, long seed) {
+        this.numJunctions = numJunctions;
+        this.seed = seed;
+        this.numCities = Math.max(1, numJunctions / NUM_JUNCTIONS_PER_CITY);
+        this.nameWidth = String.valueOf(Math.max(0, numJunctions - 1)).length();
+    }
+
+    public int getNumJunctions() {
+        return this.numJunctions;
+    }
+
+    /**
+     * generates the network into a new map
+     * @return
+     */
+    public RoadMap generate() {
+        RoadMap roadMap = new RoadMap(this.numJunctions);
+        this.generateInto(roadMap);
+        return roadMap;
+    }
+
+    /**
+     * streams the network into a map, creating two road segments in opposite directions for every link
+     * @param roadMap
+     */
+    public void generateInto(RoadMap roadMap) {
+        Junction[] junctions = new Junction[this.numJunctions];
+        RoadMap.reSeedRandomizer(this.seed);
+        try {
+            this.emit(new Sink() {
+                @Override
+                public void junction(int v, String name, double x, double y, int population) {
+                    junctions[v] = new Junction(name);
+                    junctions[v].setLocationX(x);
+                    junctions[v].setLocationY(y);
+                    junctions[v].setPopulation(population);
+                    roadMap.addOrGetVertex(junctions[v]);
+                }
+
+                @Override
+                public void link(int v, int w, String name, int maxSpeed) {
+                    roadMap.addOrGetEdge(new Road(name, junctions[v], junctions[w], maxSpeed));
+                    roadMap.addOrGetEdge(new Road(name, junctions[w], junctions[v], maxSpeed));
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * streams the network into csv files with the same format as the resource files,
+     * which can be imported by RoadMap.importJunctions(Path) and RoadMap.importRoads(Path)
+     * @param junctionsFile
+     * @param roadsFile
+     * @throws UncheckedIOException if the files cannot be written
+     */
+    public void writeCsv(Path junctionsFile, Path roadsFile) {
+        try (BufferedWriter junctions = Files.newBufferedWriter(junctionsFile, StandardCharsets.UTF_8);
+             BufferedWriter roads = Files.newBufferedWriter(roadsFile, StandardCharsets.UTF_8)) {
+            junctions.write("Code;Naam;X;Y;Provincie;Inwoners;Oppervlakte;Inw/km2\n");
+            roads.write("name;speed limit;junctions;;\n");
+            StringBuilder row = new StringBuilder();
+            String[] names = new String[this.numJunctions];
+            this.emit(new Sink() {
+                @Override
+                public void junction(int v, String name, double x, double y, int population) throws IOException {
+                    names[v] = name;
+                    row.setLength(0);
+                    row.append(v).append(';').append(name).append(';');
+                    SvgRenderer.appendFixed(row, x);
+                    row.append(';');
+                    SvgRenderer.appendFixed(row, y);
+                    row.append(";;").append(population).append(";;\n");
+                    junctions.append(row);
+                }
+
+                @Override
+                public void link(int v, int w, String name, int maxSpeed) throws IOException {
+                    row.setLength(0);
+                    row.append(name).append(';').append(maxSpeed).append(';')
+                            .append(names[v]).append(';').append(names[w]).append(";;\n");
+                    roads.append(row);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * writes the network into a binary graph file, see RoadGraphFile
+     * @param file
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public void writeGraphFile(Path file) {
+        this.grow();
+        int n = this.numJunctions;
+
+        // collect the links, and the variability of every junction as Junction draws it from the RoadMap randomizer
+        double[] variability = new double[n];
+        Random randomizer = new Random(this.seed);
+        int[][] links = { new int[n], new int[n], new int[n] };     // from, to, and the speed limit of every link
+        int[] numLinks = { 0 };
+        try {
+            this.emit(new Sink() {
+                @Override
+                public void junction(int v, String name, double x, double y, int population) {
+                    variability[v] = randomizer.nextDouble();
+                }
+
+                @Override
+                public void link(int v, int w, String name, int maxSpeed) {
+                    int l = numLinks[0]++;
+                    if (l == links[0].length) {
+                        for (int i = 0; i < links.length; i++) links[i] = Arrays.copyOf(links[i], 2 * l);
+                    }
+                    links[0][l] = v;
+                    links[1][l] = w;
+                    links[2][l] = maxSpeed;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // group the road segments in both directions by their from junction
+        int m = 2 * numLinks[0];
+        int[] firstRoad = new int[n + 1];
+        for (int l = 0; l < numLinks[0]; l++) {
+            firstRoad[links[0][l] + 1]++;
+            firstRoad[links[1][l] + 1]++;
+        }
+        for (int v = 0; v < n; v++) firstRoad[v + 1] += firstRoad[v];
+        int[] next = Arrays.copyOf(firstRoad, n);
+        int[] to = new int[m];
+        int[] link = new int[m];
+        for (int l = 0; l < numLinks[0]; l++) {
+            int r = next[links[0][l]]++;
+            to[r] = links[1][l];
+            link[r] = l;
+            r = next[links[1][l]]++;
+            to[r] = links[0][l];
+            link[r] = l;
+        }
+
+        RoadGraphFile.write(new RoadGraphFile.Source() {
+            @Override
+            public int getNumJunctions() {
+                return n;
+            }
+
+            @Override
+            public int getNumRoads() {
+                return m;
+            }
+
+            @Override
+            public String getJunctionName(int v) {
+                return junctionName(v);
+            }
+
+            @Override
+            public double getLocationX(int v) {
+                return xs[v];
+            }
+
+            @Override
+            public double getLocationY(int v) {
+                return ys[v];
+            }
+
+            @Override
+            public int getPopulation(int v) {
+                return population[v];
+            }
+
+            @Override
+            public int getFirstRoad(int v) {
+                return firstRoad[v];
+            }
+
+            @Override
+            public int getRoadTo(int r) {
+                return to[r];
+            }
+
+            @Override
+            public double getRoadLength(int r) {
+                // the same length as the Road constructor calculates
+                int v = to[r], w = links[0][link[r]] == v ? links[1][link[r]] : links[0][link[r]];
+                double dX = xs[v] - xs[w], dY = ys[v] - ys[w];
+                return Math.sqrt(dX*dX + dY*dY) * (1.05 + 0.1 * (variability[w] + variability[v]));
+            }
+
+            @Override
+            public int getRoadMaxSpeed(int r) {
+                return links[2][link[r]];
+            }
+
+            @Override
+            public String getRoadName(int r) {
+                return roadName(links[0][link[r]], links[1][link[r]], links[2][link[r]]);
+            }
+        }, file);
+    }
+
+    /**
+     * emits all junctions and links of the network into the sink
+     */
+    private void emit(Sink sink) throws IOException {
+        this.grow();
+        for (int v = 0; v < this.numJunctions; v++) {
+            sink.junction(v, this.junctionName(v), this.xs[v], this.ys[v], this.population[v]);
+        }
+
+        for (int v = 0; v < this.numJunctions; v++) {
+            // the local road towards the city center
+            if (this.parent[v] >= 0) {
+                this.emitLink(sink, v, this.parent[v]);
+            }
+            // the extra links, once for every pair
+            for (int i = 0; i < 2; i++) {
+                int w = this.loops[2 * v + i];
+                if (w >= 0 && (v < w || (this.loops[2 * w] != v && this.loops[2 * w + 1] != v))) {
+                    this.emitLink(sink, v, w);
+                }
+            }
+        }
+
+        for (int c = 0; c < this.numCities; c++) {
+            if (this.cityParent[c] >= 0) {
+                this.emitLink(sink, this.cityStart[c], this.cityStart[this.cityParent[c]]);
+            }
+            int d = this.cityLoop[c];
+            if (d >= 0 && (c < d || this.cityLoop[d] != c)) {
+                this.emitLink(sink, this.cityStart[c], this.cityStart[d]);
+            }
+        }
+    }
+
+    /**
+     * J followed by the number of the junction, padded with zeros
+     */
+    private String junctionName(int v) {
+        String number = Integer.toString(v);
+        StringBuilder name = new StringBuilder(1 + this.nameWidth).append('J');
+        for (int i = number.length(); i < this.nameWidth; i++) name.append('0');
+        return name.append(number).toString();
+    }
+
+    private void emitLink(Sink sink, int v, int w) throws IOException {
+        int maxSpeed = this.maxSpeed(v, w);
+        sink.link(v, w, roadName(v, w, maxSpeed), maxSpeed);
+    }
+
+    /**
+     * the speed class of a link: motorways between the centers of the most important cities, regional roads
+     * between the other centers and in the country side, and local roads within cities
+     */
+    private int maxSpeed(int v, int w) {
+        if (this.isCenter(v) && this.isCenter(w)) {
+            int rank = Math.max(this.cityOf[v], this.cityOf[w]);
+            if (rank < Math.max(2, this.numCities / 20)) return 120;
+            if (rank < Math.max(2, this.numCities / 5)) return 100;
+            return 80;
+        }
+        return Math.hypot(this.xs[w] - this.xs[v], this.ys[w] - this.ys[v]) >= 2.0 ? 80 : 50;
+    }
+
+    private String roadName(int v, int w, int maxSpeed) {
+        int city = Math.min(this.cityOf[v], this.cityOf[w]);
+        switch (maxSpeed) {
+            case 120: return "A" + (1 + city);
+            case 100: return "N" + (1 + city);
+            case 80: return "N" + (100 + city % 900);
+            default: return "S" + (1 + city % 999);
+        }
+    }
+
+    private boolean isCenter(int v) {
+        return this.cityStart[this.cityOf[v]] == v;
+    }
+
+    /**
+     * places all junctions and determines all links, once
+     */
+    private void grow() {
+        if (this.xs != null) return;
+        int n = this.numJunctions;
+        Random random = new Random(this.seed);
+
+        // the city centers, with Zipf distributed weights; the first city is the most important
+        double[] centerX = new double[this.numCities];
+        double[] centerY = new double[this.numCities];
+        double[] cumulativeWeight = new double[this.numCities];
+        double totalWeight = 0.0;
+        for (int c = 0; c < this.numCities; c++) {
+            centerX[c] = MIN_X + (MAX_X - MIN_X) * random.nextDouble();
+            centerY[c] = MIN_Y + (MAX_Y - MIN_Y) * random.nextDouble();
+            totalWeight += 1.0 / (c + 1);
+            cumulativeWeight[c] = totalWeight;
+        }
+        Grid centers = new Grid(centerX, centerY, 0, this.numCities);
+
+        // place every junction but the centers, in a city or in the country side
+        double[] x = new double[n];
+        double[] y = new double[n];
+        int[] city = new int[n];
+        int[] numMembers = new int[this.numCities + 1];
+        int[] nearest = new int[1];
+        for (int c = 0; c < Math.min(n, this.numCities); c++) {
+            x[c] = centerX[c];
+            y[c] = centerY[c];
+            city[c] = c;
+        }
+        for (int v = this.numCities; v < n; v++) {
+            if (random.nextDouble() < RURAL_FRACTION) {
+                x[v] = MIN_X + (MAX_X - MIN_X) * random.nextDouble();
+                y[v] = MIN_Y + (MAX_Y - MIN_Y) * random.nextDouble();
+                centers.nearest(x[v], y[v], c -> true, nearest, 1);
+                city[v] = nearest[0];
+            } else {
+                int c = Arrays.binarySearch(cumulativeWeight, totalWeight * random.nextDouble());
+                c = Math.min(c < 0 ? -c - 1 : c, this.numCities - 1);
+                // more important cities are spread wider
+                double spread = 1.0 + 4.0 / Math.sqrt(c + 1);
+                x[v] = Math.min(MAX_X, Math.max(MIN_X, centerX[c] + spread * random.nextGaussian()));
+                y[v] = Math.min(MAX_Y, Math.max(MIN_Y, centerY[c] + spread * random.nextGaussian()));
+                city[v] = c;
+            }
+        }
+        for (int v = 0; v < n; v++) numMembers[city[v] + 1]++;
+
+        // number the junctions by city, and within a city by distance to its center, the center first
+        this.cityStart = new int[this.numCities];
+        for (int c = 0; c < this.numCities; c++) numMembers[c + 1] += numMembers[c];
+        long[] order = new long[n];
+        int[] next = Arrays.copyOf(numMembers, this.numCities);
+        for (int v = 0; v < n; v++) {
+            int c = city[v];
+            float distance = v == c ? -1.0f : (float)Math.hypot(x[v] - centerX[c], y[v] - centerY[c]);
+            // the distance is non-negative for all but the center, so its bits sort like the distance itself
+            order[next[c]++] = (distance < 0 ? 0L : (long)Float.floatToIntBits(distance) + 1) << 32 | v;
+        }
+        this.xs = new double[n];
+        this.ys = new double[n];
+        this.cityOf = new int[n];
+        this.population = new int[n];
+        for (int c = 0; c < this.numCities; c++) {
+            Arrays.sort(order, numMembers[c], numMembers[c + 1]);
+            this.cityStart[c] = numMembers[c];
+        }
+        for (int i = 0; i < n; i++) {
+            int v = (int)order[i];
+            // whole metres, which survive the 3 decimals of the csv files exactly
+            this.xs[i] = Math.round(x[v] * 1000.0) / 1000.0;
+            this.ys[i] = Math.round(y[v] * 1000.0) / 1000.0;
+            this.cityOf[i] = city[v];
+            this.population[i] = this.isCenter(i)
+                    ? (int)(TOTAL_POPULATION / ((city[v] + 1) * totalWeight))
+                    : random.nextInt(2000);
+        }
+
+        // every city gets its own grid, such that searches within a city are not slowed down by the others
+        Grid[] grids = new Grid[this.numCities];
+        for (int c = 0; c < this.numCities; c++) {
+            grids[c] = new Grid(this.xs, this.ys, numMembers[c], numMembers[c + 1]);
+        }
+
+        // link every junction to its nearest junction closer to the center of the same city
+        this.parent = new int[n];
+        for (int v = 0; v < n; v++) {
+            final int last = v;
+            this.parent[v] = this.isCenter(v) ? -1
+                    : grids[this.cityOf[v]].nearest(this.xs[v], this.ys[v], w -> w < last, nearest, 1) > 0 ? nearest[0] : -1;
+        }
+
+        // one in three junctions gets extra links to its nearest neighbours in the same city, apart from the tree links
+        this.loops = new int[2 * n];
+        Arrays.fill(this.loops, -1);
+        int[] neighbours = new int[2];
+        for (int v = 0; v < n; v++) {
+            double draw = random.nextDouble();
+            int numLoops = draw < 0.25 ? 1 : draw < 0.33 ? 2 : 0;
+            if (numLoops == 0) continue;
+            final int self = v;
+            int found = grids[this.cityOf[v]].nearest(this.xs[v], this.ys[v],
+                    w -> w != self && this.parent[self] != w && this.parent[w] != self, neighbours, numLoops);
+            for (int i = 0; i < found; i++) this.loops[2 * v + i] = neighbours[i];
+        }
+
+        // link every city center to the nearest more important center, and to the nearest other center
+        this.cityParent = new int[this.numCities];
+        this.cityLoop = new int[this.numCities];
+        for (int c = 0; c < this.numCities; c++) {
+            final int self = c;
+            this.cityParent[c] = centers.nearest(centerX[c], centerY[c], d -> d < self, nearest, 1) > 0 ? nearest[0] : -1;
+        }
+        for (int c = 0; c < this.numCities; c++) {
+            final int self = c;
+            this.cityLoop[c] = centers.nearest(centerX[c], centerY[c],
+                    d -> d != self && d != this.cityParent[self] && this.cityParent[d] != self, nearest, 1) > 0
+                    ? nearest[0] : -1;
+        }
+    }
+
+    /**
+     * uniform grid of points for nearest neighbour searches by expanding rings of cells
+     */
+    private static class Grid {
+        private final double[] xs, ys;
+        private final double minX, minY;
+        private final double cellSize;
+        private final int numColumns, numRows;
+        private final int[] cellStart;      // the first position in points of every cell, row by row
+        private final int[] points;         // the point numbers, grouped by cell
+
+        /**
+         * @param xs
+         * @param ys
+         * @param first     the first point of the grid
+         * @param last      the point after the last point of the grid
+         */
+        Grid(double[] xs, double[] ys, int first, int last) {
+            this.xs = xs;
+            this.ys = ys;
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for (int p = first; p < last; p++) {
+                minX = Math.min(minX, xs[p]);
+                minY = Math.min(minY, ys[p]);
+                maxX = Math.max(maxX, xs[p]);
+                maxY = Math.max(maxY, ys[p]);
+            }
+            this.minX = first < last ? minX : 0.0;
+            this.minY = first < last ? minY : 0.0;
+            // about two points per cell on average
+            double area = first < last ? (maxX - minX) * (maxY - minY) : 0.0;
+            this.cellSize = Math.max(1e-3, Math.sqrt(2.0 * area / Math.max(1, last - first)));
+            this.numColumns = first < last ? (int)((maxX - minX) / this.cellSize) + 1 : 1;
+            this.numRows = first < last ? (int)((maxY - minY) / this.cellSize) + 1 : 1;
+            this.cellStart = new int[this.numColumns * this.numRows + 1];
+            this.points = new int[last - first];
+            for (int p = first; p < last; p++) {
+                this.cellStart[this.cellOf(xs[p], ys[p]) + 1]++;
+            }
+            for (int cell = 0; cell < this.numColumns * this.numRows; cell++) {
+                this.cellStart[cell + 1] += this.cellStart[cell];
+            }
+            // the points of every cell are in ascending order
+            int[] next = Arrays.copyOf(this.cellStart, this.numColumns * this.numRows);
+            for (int p = first; p < last; p++) {
+                this.points[next[this.cellOf(xs[p], ys[p])]++] = p;
+            }
+        }
+
+        private int column(double x) {
+            return Math.min(this.numColumns - 1, Math.max(0, (int)((x - this.minX) / this.cellSize)));
+        }
+
+        private int row(double y) {
+            return Math.min(this.numRows - 1, Math.max(0, (int)((y - this.minY) / this.cellSize)));
+        }
+
+        private int cellOf(double x, double y) {
+            return this.row(y) * this.numColumns + this.column(x);
+        }
+
+        /**
+         * finds the k nearest accepted points
+         * @param x
+         * @param y
+         * @param accept
+         * @param result    receives the nearest points, by increasing distance
+         * @param k         at most result.length
+         * @return  the number of points found
+         */
+        int nearest(double x, double y, IntPredicate accept, int[] result, int k) {
+            double[] distances = new double[k];
+            int found = 0;
+            int column = this.column(x), row = this.row(y);
+            int maxRing = Math.max(this.numColumns, this.numRows);
+            for (int ring = 0; ring <= maxRing; ring++) {
+                for (int r = row - ring; r <= row + ring; r++) {
+                    if (r < 0 || r >= this.numRows) continue;
+                    // the full top and bottom rows of the ring, and only its two sides in between
+                    int step = r == row - ring || r == row + ring ? 1 : Math.max(1, 2 * ring);
+                    for (int c = column - ring; c <= column + ring; c += step) {
+                        if (c < 0 || c >= this.numColumns) continue;
+                        int cell = r * this.numColumns + c;
+                        for (int i = this.cellStart[cell]; i < this.cellStart[cell + 1]; i++) {
+                            int p = this.points[i];
+                            double dX = this.xs[p] - x, dY = this.ys[p] - y;
+                            double d = dX*dX + dY*dY;
+                            if ((found < k || d < distances[found - 1]) && accept.test(p)) {
+                                // insert p into the sorted result
+                                int j = found < k ? found++ : found - 1;
+                                while (j > 0 && distances[j - 1] > d) {
+                                    distances[j] = distances[j - 1];
+                                    result[j] = result[j - 1];
+                                    j--;
+                                }
+                                distances[j] = d;
+                                result[j] = p;
+                            }
+                        }
+                    }
+                }
+                // all points beyond this ring are farther away than ring cells
+                if (found == k && distances[k - 1] <= ring * this.cellSize * ring * this.cellSize) break;
+            }
+            return found;
+        }
+    }
+}
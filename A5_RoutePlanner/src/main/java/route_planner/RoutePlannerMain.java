@@ -1,6 +1,18 @@
 package route_planner;
 
+import graphs.AllPairsShortestPaths;
+import graphs.ContractionHierarchy;
 import graphs.DirectedGraph;
+import graphs.LandmarkHeuristic;
+import graphs.ReachableSet;
+import graphs.RouteCache;
+import graphs.SearchMetrics;
+import graphs.StronglyConnectedComponents;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class RoutePlannerMain {
 
@@ -25,10 +37,81 @@ public class RoutePlannerMain {
         // provide a map into the target classpath
         roadMap.svgDrawMap("RoadmapNL.svg", null);
 
-        // Run various types of searches
+        // export the map in 2 x 2 tiles, and a zoomed view of the Randstad without the smallest details
+        SvgRenderer renderer = new SvgRenderer(roadMap);
+        List<Path> tiles = renderer.renderTiles(Paths.get("./target/classes"), "RoadmapNL", 2, 2, null);
+        renderer.setViewport(70.0, 420.0, 170.0, 520.0);
+        renderer.setMinimumFeatureSize(0.5);
+        renderer.render(Paths.get("./target/classes", "RoadmapRandstad.svg"), null);
+        System.out.printf("SVG-tiles: %s\n", tiles.stream().map(Path::getFileName).collect(Collectors.toList()));
+
+        // Run various types of searches, and measure the work they do
         final String FROM_ID = "Amsterdam";
         final String TO_ID = "Staphorst";
+        SearchMetrics searchMetrics = new SearchMetrics();
+        roadMap.setSearchListener(searchMetrics);
         doPathSearches(roadMap, FROM_ID, TO_ID);
+        roadMap.setSearchListener(null);
+        System.out.printf("Search-metrics:\n%s\n", searchMetrics);
+
+        // save the map into a binary graph file and query the memory mapped file, without any Junction or Road objects
+        Path graphFile = Paths.get("./target/classes", "RoadmapNL.graph");
+        RoadGraphFile.write(roadMap, graphFile);
+        RoadGraphFile mappedMap = RoadGraphFile.open(graphFile);
+        double[] mappedLengths = mappedMap.compileWeights((length, maxSpeed) -> length);
+        System.out.printf("Mapped-Shortest-Path: Weight=%f %s\n\n",
+                mappedMap.shortestRouteWeight(FROM_ID, TO_ID, mappedLengths),
+                mappedMap.shortestRoute(FROM_ID, TO_ID, mappedLengths));
+
+        // snap an arbitrary RD-position onto the nearest junctions of the map
+        JunctionIndex junctionIndex = roadMap.getJunctionIndex();
+        System.out.printf("Nearest-junction to (140.0, 480.0): %s, 3-nearest: %s, within 10km: %d junctions\n\n",
+                junctionIndex.nearest(140.0, 480.0).getName(),
+                junctionIndex.kNearest(140.0, 480.0, 3).stream().map(Junction::getName).collect(Collectors.toList()),
+                junctionIndex.withinRadius(140.0, 480.0, 10.0).size());
+
+        // find all junctions within 30 minutes of driving from Amsterdam or Utrecht, in minutes of travel time
+        ReachableSet<Junction, Road> isochrone = roadMap.reachableWithin(List.of(FROM_ID, "Utrecht"), 30.0,
+                e -> 60.0 * e.getLength() / e.getMaxSpeed());
+        System.out.printf("Isochrone-30min-Amsterdam-Utrecht: %d junctions, farthest %s (%.1f min from %s)\n\n",
+                isochrone.size(), isochrone.getVertex(isochrone.size() - 1).getName(),
+                isochrone.getWeight(isochrone.size() - 1), isochrone.getOrigin(isochrone.size() - 1).getName());
+
+        // analyse the connectivity of the road network
+        StronglyConnectedComponents<Junction, Road> components = roadMap.stronglyConnectedComponents();
+        System.out.printf("Strongly-connected-components: %d (%d weakly connected), largest %d junctions, %d condensation edges\n\n",
+                components.getNumComponents(), components.getNumWeakComponents(),
+                components.getComponentSize(components.getLargestComponent()), components.getNumCondensationEdges());
+
+        // generate a synthetic map for load testing, which is reproducible from its seed
+        RoadMap syntheticMap = new RoadNetworkGenerator(20000, 19670427L).generate();
+        DirectedGraph<Junction, Road>.DGPath syntheticPath = syntheticMap.dijkstraShortestPath("J00000", "J19999", Road::getLength);
+        System.out.printf("Synthetic-map: %d junctions, %d roads, Dijkstra-Shortest-Path J00000-J19999: %d roads, %.1f km\n\n",
+                syntheticMap.getNumVertices(), syntheticMap.getNumEdges(),
+                syntheticPath.getEdges().size(), syntheticPath.getTotalWeight());
+
+        // precalculate the table of all shortest distances, and save it for instant reload
+        AllPairsShortestPaths distanceTable = roadMap.allPairsShortestPaths(Road::getLength, AllPairsShortestPaths.Method.AUTO);
+        Path tableFile = Paths.get("./target/classes", "DistancesNL.apsp");
+        distanceTable.save(tableFile);
+        distanceTable = AllPairsShortestPaths.load(tableFile);
+        System.out.printf("All-pairs-shortest-paths: method=%s, %d junctions, %d KB, %s-%s=%f\n\n",
+                distanceTable.getMethod(), distanceTable.getNumVertices(), distanceTable.getMemoryFootprint() / 1024,
+                FROM_ID, TO_ID, distanceTable.getDistance(FROM_ID, TO_ID));
+
+        // keep track of the live routes from Amsterdam
+        LiveRouteService liveRoutes = new LiveRouteService(roadMap, Road::getTravelTime);
+        liveRoutes.addOrigin(FROM_ID);
+
+        // cache the routes that are asked for over and over, until a road on them changes
+        RouteCache<Junction, Road> routeCache = new RouteCache<>(roadMap.freeze(), 1000, 100000);
+        routeCache.addProfile("shortest", Road::getLength);
+        routeCache.addProfile("fastest", Road::getTravelTime);
+        roadMap.addRoadChangeListener(routeCache);
+        for (int i = 0; i < 3; i++) {
+            routeCache.getRoute(FROM_ID, TO_ID, "shortest");
+            routeCache.getRoute(FROM_ID, TO_ID, "fastest");
+        }
 
         // now we have an accident between Diemen and Weesp...
         roadMap.getVertexById("Diemen").getEdges().stream().filter(e -> e.getTo().equals(roadMap.getVertexById("Weesp"))).findFirst().get().setMaxSpeed(5);
@@ -36,9 +119,20 @@ public class RoutePlannerMain {
         // find the fastest route avoiding the accident
         DirectedGraph.DGPath path =
                 roadMap.dijkstraShortestPathByAStar(FROM_ID, TO_ID,
-                        e -> e.getMaxSpeed() / e.getLength()
+                        Road::getTravelTime
                 );
         System.out.println("DijkstraByAStar-accident-Weesp: " + path);
+        DirectedGraph<Junction, Road>.DGPath profileRoute =
+                roadMap.aStarShortestPath(FROM_ID, TO_ID, roadMap.getWeightProfile(WeightProfile.TRAVEL_TIME));
+        System.out.println("Profile-accident-Weesp: " + profileRoute);
+        DirectedGraph<Junction, Road>.DGPath liveRoute = liveRoutes.getRoute(FROM_ID, TO_ID);
+        System.out.printf("Live-route-accident-Weesp: %s (%d junctions repaired)\n",
+                liveRoute, liveRoutes.getNumAffected(FROM_ID));
+        liveRoutes.close();
+        DirectedGraph<Junction, Road>.DGPath cachedRoute = routeCache.getRoute(FROM_ID, TO_ID, "fastest");
+        routeCache.getRoute(FROM_ID, TO_ID, "shortest");
+        System.out.printf("Route-cache-accident-Weesp: %s\nRoute-cache: %s\n", cachedRoute, routeCache);
+        roadMap.removeRoadChangeListener(routeCache);
         roadMap.svgDrawMap(String.format("DSPACC-%s-%s.svg", FROM_ID, TO_ID), path);
     }
 
@@ -69,27 +163,61 @@ public class RoutePlannerMain {
                 Road::getLength);
         System.out.println("Dijkstra-Shortest-Path return: " + path);
 
+        // find the routes by bi-directional dijkstra with minimum total length
+        path = roadMap.bidirectionalDijkstra(fromId, toId,
+                Road::getLength);
+        System.out.println("Bidirectional-Dijkstra: " + path);
+
         // find the routes by A* Shortest Path with minimum total length
-        path = roadMap.aStarShortestPath(fromId, toId,
+        path = roadMap.aStarShortestPathAsDouble(fromId, toId,
                 Road::getLength,
-                (e, i) -> Math.sqrt(Math.pow(e.getLocationX() - i.getLocationX(), 2) + Math.pow(e.getLocationY() - i.getLocationY(), 2))
+                Junction::getDistance
         );
         System.out.println("AStar-Shortest-Path: " + path);
         roadMap.svgDrawMap(String.format("ASSP-%s-%s.svg", fromId, toId), path);
-        path = roadMap.aStarShortestPath(toId, fromId,
+        path = roadMap.aStarShortestPathAsDouble(toId, fromId,
                 Road::getLength,
-                (e, i) -> Math.sqrt(Math.pow(e.getLocationX() - i.getLocationX(), 2) + Math.pow(e.getLocationY() - i.getLocationY(), 2))
+                Junction::getDistance
         );
         System.out.println("AStar-Shortest-Path return: " + path);
 
+        // find the routes by bi-directional A* with minimum total length
+        path = roadMap.bidirectionalAStar(fromId, toId,
+                Road::getLength,
+                Junction::getDistance
+        );
+        System.out.println("Bidirectional-AStar: " + path);
+
         // find the routes by A* Shortest Path with minimum total travel time
-        path = roadMap.aStarShortestPath(fromId, toId,
-                e -> e.getMaxSpeed() / e.getLength(),
-                (e, i) -> Math.sqrt(Math.pow(e.getLocationX() - i.getLocationX(), 2) + Math.pow(e.getLocationY() - i.getLocationY(), 2)) / 120
+        path = roadMap.aStarShortestPathAsDouble(fromId, toId,
+                Road::getTravelTime,
+                (e, i) -> e.getDistance(i) / 120
         );
         System.out.println("AStar-Fastest-Route: " + path);
         roadMap.svgDrawMap(String.format("ASFR-%s-%s.svg", fromId, toId), path);
 
+        // find the same route by the precompiled travel time profile of the map
+        path = roadMap.aStarShortestPath(fromId, toId, roadMap.getWeightProfile(WeightProfile.TRAVEL_TIME));
+        System.out.println("Profile-Fastest-Route: " + path);
+
+        // find the same routes by A* with landmark based estimates
+        LandmarkHeuristic<Junction, Road> shortestLandmarks = roadMap.buildLandmarkHeuristic(Road::getLength,
+                8, LandmarkHeuristic.Selection.AVOID);
+        path = roadMap.aStarShortestPathAsDouble(fromId, toId, Road::getLength, shortestLandmarks);
+        System.out.println("ALT-Shortest-Path: " + path);
+        LandmarkHeuristic<Junction, Road> fastestLandmarks = roadMap.buildLandmarkHeuristic(Road::getTravelTime,
+                8, LandmarkHeuristic.Selection.AVOID);
+        path = roadMap.aStarShortestPathAsDouble(fromId, toId, Road::getTravelTime, fastestLandmarks);
+        System.out.println("ALT-Fastest-Route: " + path);
+
+        // find the same routes from contraction hierarchies of the map
+        ContractionHierarchy<Junction, Road> shortestHierarchy = roadMap.buildContractionHierarchy(Road::getLength);
+        path = shortestHierarchy.shortestPath(fromId, toId);
+        System.out.println("CH-Shortest-Path: " + path);
+        ContractionHierarchy<Junction, Road> fastestHierarchy = roadMap.buildContractionHierarchy(Road::getTravelTime);
+        path = fastestHierarchy.shortestPath(fromId, toId);
+        System.out.println("CH-Fastest-Route: " + path);
+
         System.out.println();
     }
 
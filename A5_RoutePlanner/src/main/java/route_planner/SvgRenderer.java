@@ -0,0 +1,257 @@
+package route_planner;
+
+import graphs.DirectedGraph;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Streams a RoadMap into .svg images
+ * All elements are appended into a reusable StringBuilder with a fixed-point number formatter,
+ * and the builder is flushed to the output every FLUSH_SIZE characters.
+ * Elements outside the viewport are culled, and so are details smaller than the minimum feature size,
+ * such that zoomed views and overviews of large maps only contain what can be seen.
+ * A map can be exported as a grid of tiles, which are rendered in parallel.
+ */
+public class SvgRenderer {
+
+    private static final int FLUSH_SIZE = 1 << 16;
+    // junctions just outside the viewport are still drawn, for their labels may extend into it
+    private static final double LABEL_MARGIN = 5.0;
+    private static final double WIDTH_CM = 20.0;
+
+    private final RoadMap roadMap;
+    // the viewport in RD-coordinates, unbounded by default
+    private double minX = Double.NEGATIVE_INFINITY, minY = Double.NEGATIVE_INFINITY;
+    private double maxX = Double.POSITIVE_INFINITY, maxY = Double.POSITIVE_INFINITY;
+    private double minimumFeatureSize = 0.0;
+
+    public SvgRenderer(RoadMap roadMap) {
+        this.roadMap = roadMap;
+    }
+
+    /**
+     * restricts the image to the given range of RD-coordinates
+     * Without a viewport, all elements are drawn onto a canvas of 20cm x 30cm with the viewBox of the complete Netherlands
+     * @param minX
+     * @param minY
+     * @param maxX
+     * @param maxY
+     */
+    public void setViewport(double minX, double minY, double maxX, double maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    /**
+     * sets the level of detail: roads shorter than the given size and junctions with a smaller diameter are not drawn,
+     * unless they are part of the highlighted path
+     * @param minimumFeatureSize    in km
+     */
+    public void setMinimumFeatureSize(double minimumFeatureSize) {
+        this.minimumFeatureSize = minimumFeatureSize;
+    }
+
+    /**
+     * renders the viewport into a file
+     * @param file
+     * @param path  an optional path to be highlighted, with its visited junctions
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public void render(Path file, DirectedGraph<Junction, Road>.DGPath path) {
+        this.render(file, path, this.minX, this.minY, this.maxX, this.maxY);
+    }
+
+    /**
+     * renders the viewport
+     * @param out
+     * @param path  an optional path to be highlighted, with its visited junctions
+     * @throws IOException
+     */
+    public void render(Writer out, DirectedGraph<Junction, Road>.DGPath path) throws IOException {
+        this.render(out, path, this.minX, this.minY, this.maxX, this.maxY);
+    }
+
+    /**
+     * renders the viewport as a grid of tiles in parallel, into files named baseName-column-row.svg
+     * Without a viewport, the bounding box of all junctions is divided into tiles
+     * @param directory
+     * @param baseName
+     * @param numColumns
+     * @param numRows
+     * @param path  an optional path to be highlighted, with its visited junctions
+     * @return  the files of all tiles, row by row from the top left
+     * @throws UncheckedIOException if any file cannot be written
+     */
+    public List<Path> renderTiles(Path directory, String baseName, int numColumns, int numRows,
+                                  DirectedGraph<Junction, Road>.DGPath path) {
+        double minX = this.minX, minY = this.minY, maxX = this.maxX, maxY = this.maxY;
+        if (!this.hasViewport()) {
+            DoubleSummaryStatistics xs = this.roadMap.getVertices().stream().mapToDouble(Junction::getLocationX).summaryStatistics();
+            DoubleSummaryStatistics ys = this.roadMap.getVertices().stream().mapToDouble(Junction::getLocationY).summaryStatistics();
+            minX = xs.getMin();
+            minY = ys.getMin();
+            maxX = xs.getMax();
+            maxY = ys.getMax();
+        }
+        double tileWidth = (maxX - minX) / numColumns;
+        double tileHeight = (maxY - minY) / numRows;
+        final double left = minX, top = maxY;
+        return IntStream.range(0, numColumns * numRows).parallel().mapToObj(tile -> {
+            int column = tile % numColumns;
+            int row = tile / numColumns;
+            Path file = directory.resolve(String.format("%s-%d-%d.svg", baseName, column, row));
+            // rows are counted from the top, i.e. from the highest y-coordinate
+            double tileMinX = left + column * tileWidth;
+            double tileMaxY = top - row * tileHeight;
+            this.render(file, path, tileMinX, tileMaxY - tileHeight, tileMinX + tileWidth, tileMaxY);
+            return file;
+        }).collect(Collectors.toList());
+    }
+
+    private void render(Path file, DirectedGraph<Junction, Road>.DGPath path,
+                        double minX, double minY, double maxX, double maxY) {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            this.render(out, path, minX, minY, maxX, maxY);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void render(Writer out, DirectedGraph<Junction, Road>.DGPath path,
+                        double minX, double minY, double maxX, double maxY) throws IOException {
+        StringBuilder svg = new StringBuilder(FLUSH_SIZE + 1024);
+        Set<Junction> visited = path != null ? path.getVisited() : Collections.emptySet();
+
+        // header for an .svg file
+        svg.append("<?xml version='1.0' standalone='no'?>\n");
+        if (Double.isInfinite(maxX - minX) || Double.isInfinite(maxY - minY)) {
+            // configure the viewBox to match the coordinate ranges of the Dutch RD-coordinate system
+            svg.append("<svg width='20cm' height='30cm' viewBox='0 -625 300 300' preserveAspectRatio='xMidYMin'\n");
+        } else {
+            // configure the viewBox and the height of the canvas to match the viewport,
+            // accounting for the reversed y-direction of the svg coordinate system
+            svg.append("<svg width='");
+            appendNumber(svg, WIDTH_CM);
+            svg.append("cm' height='");
+            appendNumber(svg, WIDTH_CM * (maxY - minY) / (maxX - minX));
+            svg.append("cm' viewBox='");
+            appendNumber(svg, minX);
+            svg.append(' ');
+            appendNumber(svg, -maxY);
+            svg.append(' ');
+            appendNumber(svg, maxX - minX);
+            svg.append(' ');
+            appendNumber(svg, maxY - minY);
+            svg.append("' preserveAspectRatio='xMidYMin'\n");
+        }
+        svg.append("     version='1.1' xmlns='http://www.w3.org/2000/svg'>\n");
+
+        // first draw all road segments with their default colour
+        for (Junction junction : this.roadMap.getVertices()) {
+            for (Road road : junction.getEdges()) {
+                if (this.isVisible(road, minX, minY, maxX, maxY) && road.getSvgLength() >= this.minimumFeatureSize) {
+                    road.svgDraw(svg, null);
+                    flushIfFull(svg, out);
+                }
+            }
+        }
+
+        // on top of that, draw all junctions with a colour depending on their status in the optional path
+        for (Junction junction : this.roadMap.getVertices()) {
+            boolean isVisited = visited.contains(junction);
+            if (this.isVisible(junction, minX, minY, maxX, maxY)
+                    && (isVisited || 2 * junction.getSvgRadius() >= this.minimumFeatureSize)) {
+                junction.svgDraw(svg, isVisited ? "yellowgreen" : "black");
+                flushIfFull(svg, out);
+            }
+        }
+
+        // on top of that, highlight the path, if any has been provided
+        if (path != null) {
+            for (Road road : path.getEdges()) {
+                if (this.isVisible(road, minX, minY, maxX, maxY)) road.svgDraw(svg, "lime");
+            }
+        }
+
+        svg.append("</svg>\n");
+        out.append(svg);
+    }
+
+    private boolean hasViewport() {
+        return !Double.isInfinite(this.maxX - this.minX) && !Double.isInfinite(this.maxY - this.minY);
+    }
+
+    private boolean isVisible(Road road, double minX, double minY, double maxX, double maxY) {
+        Junction from = road.getFrom(), to = road.getTo();
+        return Math.max(from.getLocationX(), to.getLocationX()) >= minX
+                && Math.min(from.getLocationX(), to.getLocationX()) <= maxX
+                && Math.max(from.getLocationY(), to.getLocationY()) >= minY
+                && Math.min(from.getLocationY(), to.getLocationY()) <= maxY;
+    }
+
+    private boolean isVisible(Junction junction, double minX, double minY, double maxX, double maxY) {
+        return junction.getLocationX() >= minX - LABEL_MARGIN && junction.getLocationX() <= maxX + LABEL_MARGIN
+                && junction.getLocationY() >= minY - LABEL_MARGIN && junction.getLocationY() <= maxY + LABEL_MARGIN;
+    }
+
+    private static void flushIfFull(StringBuilder svg, Writer out) throws IOException {
+        if (svg.length() >= FLUSH_SIZE) {
+            out.append(svg);
+            svg.setLength(0);
+        }
+    }
+
+    /**
+     * appends a whole number without decimals, and any other number with 3 decimals
+     */
+    private static void appendNumber(StringBuilder svg, double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            svg.append((long)value);
+        } else {
+            appendFixed(svg, value);
+        }
+    }
+
+    /**
+     * appends the value with 3 decimals, with exactly the same result as printf(Locale.ENGLISH, "%.3f", value)
+     * The value is scaled and rounded in double arithmetic, which is exact enough unless the value lies very close
+     * to a rounding tie, or is too large; those rare cases are rounded half up on the shortest decimal representation
+     * of the value, as the Formatter does.
+     * @param svg
+     * @param value
+     */
+    static void appendFixed(StringBuilder svg, double value) {
+        double scaled = Math.abs(value) * 1000.0;
+        double fraction = scaled - Math.floor(scaled);
+        if (!(scaled < 1e9) || Math.abs(fraction - 0.5) < 1e-6) {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                svg.append(String.format(Locale.ENGLISH, "%.3f", value));
+                return;
+            }
+            if (value < 0) svg.append('-');
+            svg.append(BigDecimal.valueOf(Math.abs(value)).setScale(3, RoundingMode.HALF_UP).toPlainString());
+            return;
+        }
+
+        long units = (long)(scaled + 0.5);
+        // negative values keep their sign, even if they round to zero
+        if (value < 0 || 1.0 / value < 0) svg.append('-');
+        svg.append(units / 1000).append('.');
+        int decimals = (int)(units % 1000);
+        if (decimals < 100) svg.append('0');
+        if (decimals < 10) svg.append('0');
+        svg.append(decimals);
+    }
+}
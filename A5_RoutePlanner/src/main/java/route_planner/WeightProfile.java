@@ -0,0 +1,188 @@
+package route_planner;
+
+import graphs.DGSnapshot;
+
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A named weighting of all roads in a road map, which is compiled once into a double[] aligned with the edge ids
+ * of the snapshot of the map, such that searches by the profile read the weight of every road from an array.
+ * The profile is registered with its road map, and the weight of a single road is recalculated
+ * when its length or maximum speed changes. The profile is compiled again after roads have been added or removed.
+ * The weights are never modified once they have been handed out: a change of a road replaces them by a modified copy,
+ * such that running searches keep reading consistent weights.
+ * Profiles are obtained from RoadMap.addWeightProfile and RoadMap.getWeightProfile.
+ */
+public class WeightProfile {
+
+    public static final String LENGTH = "length";               // the length of the roads in km
+    public static final String TRAVEL_TIME = "travelTime";      // the travel time at maximum speed in hours
+
+    // the highest speed limit in the Netherlands in km/h, by which no road can be travelled faster
+    static final int MAX_SPEED = 130;
+
+    private final RoadMap roadMap;
+    private final String name;
+    private final ToDoubleFunction<Road> weightMapper;
+    private final ToDoubleBiFunction<Junction, Junction> minimumWeightEstimator;
+    // the snapshot and the weights that are aligned with it, which are published together
+    private volatile Compiled compiled = null;
+
+    static final class Compiled {
+        final DGSnapshot<Junction, Road> snapshot;
+        final double[] weights;
+
+        private Compiled(DGSnapshot<Junction, Road> snapshot, double[] weights) {
+            this.snapshot = snapshot;
+            this.weights = weights;
+        }
+    }
+
+    WeightProfile(RoadMap roadMap, String name, ToDoubleFunction<Road> weightMapper,
+                  ToDoubleBiFunction<Junction, Junction> minimumWeightEstimator) {
+        this.roadMap = roadMap;
+        this.name = name;
+        this.weightMapper = weightMapper;
+        this.minimumWeightEstimator = minimumWeightEstimator;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public ToDoubleFunction<Road> getWeightMapper() {
+        return this.weightMapper;
+    }
+
+    /**
+     * @return  a lower bound of the weight of any path between two junctions, or null if the profile has none
+     */
+    public ToDoubleBiFunction<Junction, Junction> getMinimumWeightEstimator() {
+        return this.minimumWeightEstimator;
+    }
+
+    RoadMap getRoadMap() {
+        return this.roadMap;
+    }
+
+    /**
+     * @return  the current snapshot of the road map, with the weights of this profile compiled for it
+     */
+    public DGSnapshot<Junction, Road> getSnapshot() {
+        return this.getCompiled().snapshot;
+    }
+
+    /**
+     * @return  the weights of all roads, aligned with the edge ids of getSnapshot()
+     *          the array is shared with the profile and shall not be modified
+     */
+    public double[] getWeights() {
+        return this.getCompiled().weights;
+    }
+
+    /**
+     * @return  the current snapshot of the road map together with the weights that are aligned with it
+     */
+    Compiled getCompiled() {
+        DGSnapshot<Junction, Road> current = this.roadMap.freeze();
+        Compiled compiled = this.compiled;
+        if (compiled == null || compiled.snapshot != current) {
+            compiled = this.compile(current);
+        }
+        return compiled;
+    }
+
+    /**
+     * calculates the weight of all roads in the snapshot
+     * @param snapshot
+     * @throws IllegalArgumentException if the weight of any road is negative,
+     *          or if the weight decreases when a road gets slower or longer
+     */
+    private synchronized Compiled compile(DGSnapshot<Junction, Road> snapshot) {
+        if (this.compiled != null && this.compiled.snapshot == snapshot) return this.compiled;
+        for (int e = 0; e < snapshot.getNumEdges(); e++) {
+            Road sample = snapshot.getEdge(e);
+            if (sample.getLength() > 0.0 && sample.getMaxSpeed() > 0) {
+                this.checkMonotonicity(sample);
+                break;
+            }
+        }
+        double[] weights = new double[snapshot.getNumEdges()];
+        for (int e = 0; e < weights.length; e++) {
+            weights[e] = this.weightOf(snapshot.getEdge(e));
+        }
+        this.compiled = new Compiled(snapshot, weights);
+        return this.compiled;
+    }
+
+    /**
+     * recalculates the weight of a road after its length or maximum speed has changed
+     * the weights are replaced by a copy, as running searches may be reading the current weights
+     * roads that are not part of the compiled snapshot will be weighted when the profile is compiled again
+     * @param road  a road of which the new weight has been validated by checkWeight
+     */
+    synchronized void roadChanged(Road road) {
+        Compiled compiled = this.compiled;
+        if (compiled == null) return;
+        int e = compiled.snapshot.indexOfEdge(road);
+        if (e < 0) return;
+        double weight = this.weightOf(road);
+        // e.g. the length of a road does not change its weight by a profile of hops
+        if (Double.compare(weight, compiled.weights[e]) == 0) return;
+        double[] weights = compiled.weights.clone();
+        weights[e] = weight;
+        this.compiled = new Compiled(compiled.snapshot, weights);
+    }
+
+    /**
+     * checks the weight of a road with a new length and maximum speed, before the road itself is changed
+     * @param road
+     * @param length
+     * @param maxSpeed
+     * @throws IllegalArgumentException if the weight would be negative
+     */
+    void checkWeight(Road road, double length, int maxSpeed) {
+        Road probe = new Road(road.getName(), road.getFrom(), road.getTo());
+        probe.setLength(length);
+        probe.setMaxSpeed(maxSpeed);
+        this.weightOf(probe);
+    }
+
+    private double weightOf(Road road) {
+        double weight = this.weightMapper.applyAsDouble(road);
+        if (!(weight >= 0.0)) {
+            throw new IllegalArgumentException(String.format("Weight profile %s provides weight %f for road %s from %s",
+                    this.name, weight, road, road.getFrom().getName()));
+        }
+        return weight;
+    }
+
+    /**
+     * guards against profiles that favour slow or long roads, like an inverted travel time maxSpeed / length,
+     * by weighing copies of a sample road that are slower and longer than the sample
+     * the sample shall have a positive length and maximum speed,
+     * and the copies do not belong to any map, so the map is not notified of their changes
+     * @param sample
+     */
+    private void checkMonotonicity(Road sample) {
+        Road probe = new Road(sample.getName(), sample.getFrom(), sample.getTo());
+        probe.setLength(sample.getLength());
+        probe.setMaxSpeed(sample.getMaxSpeed());
+        double weight = this.weightMapper.applyAsDouble(probe);
+        probe.setMaxSpeed(Math.max(1, sample.getMaxSpeed() / 2));
+        double slowerWeight = this.weightMapper.applyAsDouble(probe);
+        probe.setMaxSpeed(sample.getMaxSpeed());
+        probe.setLength(2 * sample.getLength());
+        double longerWeight = this.weightMapper.applyAsDouble(probe);
+        if (slowerWeight < weight || longerWeight < weight) {
+            throw new IllegalArgumentException("Weight profile " + this.name +
+                    " decreases when a road gets slower or longer, is it inverted?");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
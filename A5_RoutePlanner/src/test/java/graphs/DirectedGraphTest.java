@@ -4,6 +4,19 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class DirectedGraphTest {
@@ -85,6 +98,25 @@ class DirectedGraphTest {
         assertEquals(1, africa.getNumEdges());
     }
 
+    @Test
+    void checkPresizedBulkLoad() {
+        DirectedGraph<Country, Border> world = new DirectedGraph<>(1000);
+        Country[] countries = new Country[1000];
+        for (int i = 0; i < countries.length; i++) {
+            countries[i] = world.addOrGetVertex(new Country("C" + i));
+        }
+        for (int i = 0; i < countries.length; i++) {
+            world.addOrGetEdge(new Border(countries[i], countries[(i + 1) % countries.length]));
+        }
+        Border border = world.getVertexById("C7").getEdges().iterator().next();
+        assertSame(border, world.addOrGetEdge(new Border(countries[7], countries[8])));
+        assertThrows(IllegalArgumentException.class, () -> world.addOrGetEdge(new Border(new Country("C7"), countries[8])));
+
+        assertEquals(1000, world.getNumVertices());
+        assertEquals(1000, world.getNumEdges());
+        assertEquals(999, world.dijkstraShortestPath("C1", "C0", b -> 1.0).getEdges().size());
+    }
+
     @Test
     void checkDFSearch() {
         DirectedGraph.DGPath path = europe.depthFirstSearch("UK","LUX");
@@ -277,6 +309,22 @@ class DirectedGraphTest {
         assertEquals(path.getEdges().get(1), be_lux, "Second part of the path");
     }
 
+    @Test
+    void checkDSPSearchWeightedRoute() {
+        // make every border crossing into Belgium expensive, such that the route via France is preferred
+        DirectedGraph.DGPath path = europe.dijkstraShortestPath("UK", "LUX", b -> b.getTo() == be ? 5.0 : 1.0);
+        Country UK = europe.getVertexById("UK");
+        Country FR = europe.getVertexById("FR");
+        Country LUX = europe.getVertexById("LUX");
+
+        Border uk_fr = UK.getEdges().stream().filter(e -> e.getTo().equals(FR)).findFirst().get();
+        Border fr_lux = FR.getEdges().stream().filter(e -> e.getTo().equals(LUX)).findFirst().get();
+
+        assertEquals(2.0, path.getTotalWeight(), 0.0001);
+        assertEquals(path.getEdges().get(0), uk_fr, "First part of the path");
+        assertEquals(path.getEdges().get(1), fr_lux, "Second part of the path");
+    }
+
     @Test
     void checkASSearch() {
         DirectedGraph.DGPath path = europe.aStarShortestPath("UK", "LUX", b -> 3.0, (v1,v2) -> 3.0);
@@ -317,6 +365,29 @@ class DirectedGraphTest {
         assertEquals(path.getEdges().get(1), be_lux, "Second part of the path");
     }
 
+    @Test
+    void checkASSearchMatchesDSPSearch() {
+        DirectedGraph.DGPath dspPath = europe.dijkstraShortestPath("UK", "LUX", b -> b.getTo() == be ? 5.0 : 1.0);
+        DirectedGraph.DGPath asPath = europe.aStarShortestPath("UK", "LUX", b -> b.getTo() == be ? 5.0 : 1.0,
+                (v1, v2) -> v1 == v2 ? 0.0 : 1.0);
+        assertNotNull(asPath);
+        assertEquals(dspPath.getTotalWeight(), asPath.getTotalWeight(), 0.0001);
+        assertEquals(dspPath.getEdges(), asPath.getEdges());
+        assertTrue(asPath.getVisited().size() <= dspPath.getVisited().size());
+    }
+
+    @Test
+    void checkPrimitiveSearchesMatchBoxedSearches() {
+        DirectedGraph.DGPath path = europe.dijkstraShortestPathAsDouble("UK", "LUX", b -> b.getTo() == be ? 5.0 : 1.0);
+        assertEquals(europe.dijkstraShortestPath("UK", "LUX", b -> b.getTo() == be ? 5.0 : 1.0).getEdges(), path.getEdges());
+        assertEquals(2.0, path.getTotalWeight(), 0.0001);
+
+        path = europe.aStarShortestPathAsDouble("UK", "LUX", b -> 3.0, (v1, v2) -> 3.0);
+        assertEquals(europe.aStarShortestPath("UK", "LUX", b -> 3.0, (v1, v2) -> 3.0).getEdges(), path.getEdges());
+        assertEquals(6.0, path.getTotalWeight(), 0.0001);
+        assertNull(europe.aStarShortestPathAsDouble("UK", "HU", b -> 3.0, (v1, v2) -> 3.0));
+    }
+
     @Test
     void checkDSPBASSearch() {
         DirectedGraph.DGPath path = europe.dijkstraShortestPathByAStar("UK", "LUX", b -> 4.0);
@@ -326,4 +397,573 @@ class DirectedGraphTest {
         assertEquals(path.getTotalWeight(), 4.0 * path.getEdges().size(), 0.0001);
         assertTrue(path.getVisited().size() > path.getEdges().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void checkDeepTraversals() {
+        DirectedGraph<Country, Border> chain = new DirectedGraph<>(100000);
+        Country previous = chain.addOrGetVertex(new Country("C0"));
+        for (int i = 1; i < 100000; i++) {
+            Country next = chain.addOrGetVertex(new Country("C" + i));
+            chain.addOrGetEdge(new Border(previous, next));
+            previous = next;
+        }
+        assertEquals(99999, chain.depthFirstSearch("C0", "C99999").getEdges().size());
+        assertEquals(99999, chain.breadthFirstSearch("C0", "C99999").getEdges().size());
+
+        DGSnapshot<Country, Border> snapshot = chain.freeze();
+        assertEquals(99999, snapshot.depthFirstSearch("C0", "C99999").getEdges().size());
+        assertEquals(100000, snapshot.breadthFirstSearch("C0", "C99999").getVisited().size());
+        assertTrue(snapshot.depthFirstSearch("C0", "C99999", false).getVisited().isEmpty());
+        assertNull(snapshot.breadthFirstSearch("C99999", "C0", false));
+    }
+
+    @Test
+    void checkStronglyConnectedComponents() {
+        DirectedGraph<Country, Border> alps = new DirectedGraph<>();
+        Country fr = alps.addOrGetVertex(new Country("FR")), de = alps.addOrGetVertex(new Country("DE"));
+        Country at = alps.addOrGetVertex(new Country("AT")), hu = alps.addOrGetVertex(new Country("HU"));
+        Country ch = alps.addOrGetVertex(new Country("CH")), it = alps.addOrGetVertex(new Country("IT"));
+        alps.addEdges(new Border(fr, de), new Border(de, fr), new Border(at, hu), new Border(hu, at),
+                new Border(de, ch), new Border(at, ch), new Border(ch, it));
+        StronglyConnectedComponents<Country, Border> components = alps.stronglyConnectedComponents();
+        DGSnapshot<Country, Border> snapshot = alps.freeze();
+        int f = snapshot.indexOf("FR"), d = snapshot.indexOf("DE"), c = snapshot.indexOf("CH"), h = snapshot.indexOf("HU");
+
+        assertEquals(4, components.getNumComponents());
+        assertEquals(1, components.getNumWeakComponents());
+        assertEquals(2, components.getComponentSize(components.getLargestComponent()));
+        assertTrue(components.isStronglyConnected(f, d));
+        assertFalse(components.isStronglyConnected(f, c));
+        assertTrue(components.getComponent("FR") < components.getComponent("CH"));
+        assertTrue(components.getComponent("CH") < components.getComponent("IT"));
+        assertArrayEquals(new int[] { components.getComponent("IT") }, components.getSuccessors(components.getComponent("CH")));
+        assertEquals(3, components.getNumCondensationEdges());
+
+        assertTrue(components.mayReach(f, c));
+        assertFalse(components.mayReach(c, f));
+        // unrelated components in the same weakly connected component are rejected in one direction only
+        assertNotEquals(components.mayReach(f, h), components.mayReach(h, f));
+        assertNull(alps.dijkstraShortestPath("IT", "FR", b -> 1.0));
+        assertNull(snapshot.breadthFirstSearch("CH", "HU"));
+        assertEquals(3, alps.dijkstraShortestPath("FR", "IT", b -> 1.0).getEdges().size());
+
+        // searches on the graph itself do not depend on the components of an earlier snapshot
+        it.getEdges().add(new Border(it, fr));
+        assertEquals(1, alps.dijkstraShortestPath("IT", "FR", b -> 1.0).getEdges().size());
+        assertEquals(1, alps.aStarShortestPath("IT", "FR", b -> 1.0, (v, w) -> 0.0).getEdges().size());
+
+        // europe falls apart into the western countries and romania with hungary
+        assertEquals(2, europe.stronglyConnectedComponents().getNumWeakComponents());
+        assertFalse(europe.stronglyConnectedComponents().mayReach(europe.freeze().indexOf("NL"), europe.freeze().indexOf("RO")));
+        assertEquals(-1, africa.stronglyConnectedComponents().getLargestComponent());
+    }
+
+    @Test
+    void checkFreeze() {
+        DGSnapshot<Country, Border> snapshot = europe.freeze();
+        assertEquals(europe.getNumVertices(), snapshot.getNumVertices());
+        assertEquals(europe.getNumEdges(), snapshot.getNumEdges());
+        assertEquals(nl, snapshot.getVertex(snapshot.indexOf("NL")));
+        assertEquals(-1, snapshot.indexOf("XX"));
+        for (int e = 0; e < snapshot.getNumEdges(); e++) {
+            assertEquals(snapshot.getVertex(snapshot.sources[e]), snapshot.getEdge(e).getFrom());
+            assertEquals(snapshot.getVertex(snapshot.targets[e]), snapshot.getEdge(e).getTo());
+        }
+    }
+
+    @Test
+    void checkSnapshotSearchesMatchGraphSearches() {
+        DGSnapshot<Country, Border> snapshot = europe.freeze();
+        double[] weights = snapshot.compileWeights(b -> b.getTo() == be ? 5.0 : 1.0);
+
+        assertEquals(europe.depthFirstSearch("UK", "LUX").getEdges(),
+                snapshot.depthFirstSearch("UK", "LUX").getEdges());
+        assertEquals(europe.depthFirstSearch("UK", "LUX").getVisited(),
+                snapshot.depthFirstSearch("UK", "LUX").getVisited());
+        assertEquals(europe.breadthFirstSearchIterative("UK", "LUX").getEdges(),
+                snapshot.breadthFirstSearch("UK", "LUX").getEdges());
+
+        DirectedGraph<Country, Border>.DGPath path = snapshot.dijkstraShortestPath("UK", "LUX", weights);
+        DirectedGraph<Country, Border>.DGPath expected = europe.dijkstraShortestPath("UK", "LUX", b -> b.getTo() == be ? 5.0 : 1.0);
+        assertEquals(expected.getTotalWeight(), path.getTotalWeight(), 0.0001);
+        assertEquals(expected.getEdges(), path.getEdges());
+        assertEquals(expected.getVisited(), path.getVisited());
+
+        path = snapshot.aStarShortestPath("UK", "LUX", snapshot.compileWeights(b -> 2.0), (v1, v2) -> 2.0);
+        expected = europe.aStarShortestPath("UK", "LUX", b -> 2.0, (v1, v2) -> 2.0);
+        assertEquals(expected.getTotalWeight(), path.getTotalWeight(), 0.0001);
+        assertEquals(expected.getEdges(), path.getEdges());
+
+        assertNull(snapshot.depthFirstSearch("UK", "HU"));
+        assertNull(snapshot.breadthFirstSearch("UK", "HU"));
+        assertNull(snapshot.dijkstraShortestPath("UK", "HU", weights));
+        assertEquals(0, snapshot.dijkstraShortestPath("HU", "HU", weights).getEdges().size());
+    }
+
+    @Test
+    void checkBidirectionalSearches() {
+        DirectedGraph.DGPath expected = europe.dijkstraShortestPath("UK", "LUX", b -> b.getTo() == be ? 5.0 : 1.0);
+        DirectedGraph.DGPath path = europe.bidirectionalDijkstra("UK", "LUX", b -> b.getTo() == be ? 5.0 : 1.0);
+        assertNotNull(path);
+        assertEquals(uk, path.getStart());
+        assertEquals(expected.getTotalWeight(), path.getTotalWeight(), 0.0001);
+        assertEquals(expected.getEdges(), path.getEdges());
+
+        path = europe.bidirectionalAStar("UK", "LUX", b -> b.getTo() == be ? 5.0 : 1.0,
+                (v1, v2) -> v1 == v2 ? 0.0 : 1.0);
+        assertEquals(expected.getTotalWeight(), path.getTotalWeight(), 0.0001);
+        assertEquals(expected.getEdges(), path.getEdges());
+
+        assertNull(europe.bidirectionalDijkstra("UK", "HU", b -> 1.0));
+        assertEquals(0, europe.bidirectionalDijkstra("HU", "HU", b -> 1.0).getEdges().size());
+        assertEquals(1, europe.bidirectionalDijkstra("RO", "HU", b -> 1.0).getEdges().size());
+    }
+
+    @Test
+    void checkFreezeIsDiscardedOnChanges() {
+        DGSnapshot<Country, Border> snapshot = europe.freeze();
+        assertSame(snapshot, europe.freeze());
+        europe.addOrGetEdge(new Border(ro, uk));
+        assertNotSame(snapshot, europe.freeze());
+        assertNotNull(europe.bidirectionalDijkstra("RO", "LUX", b -> 1.0));
+        ro.getEdges().remove(new Border(ro, uk));
+    }
+
+    @Test
+    void checkContractionHierarchy() {
+        ContractionHierarchy<Country, Border> hierarchy = europe.buildContractionHierarchy(b -> b.getTo() == be ? 5.0 : 1.0);
+        for (Country from : europe.getVertices()) {
+            for (Country to : europe.getVertices()) {
+                DirectedGraph.DGPath expected = europe.dijkstraShortestPath(from.getId(), to.getId(), b -> b.getTo() == be ? 5.0 : 1.0);
+                DirectedGraph<Country, Border>.DGPath path = hierarchy.shortestPath(from.getId(), to.getId());
+                if (expected == null) {
+                    assertNull(path);
+                    continue;
+                }
+                assertEquals(from, path.getStart());
+                assertEquals(expected.getTotalWeight(), path.getTotalWeight(), 0.0001);
+                // the unpacked path shall consist of connected, original edges
+                Country current = from;
+                double weight = 0.0;
+                for (Border b : path.getEdges()) {
+                    assertSame(current, b.getFrom());
+                    assertTrue(b.getFrom().getEdges().contains(b));
+                    weight += b.getTo() == be ? 5.0 : 1.0;
+                    current = b.getTo();
+                }
+                assertEquals(to, current);
+                assertEquals(path.getTotalWeight(), weight, 0.0001);
+            }
+        }
+        assertNull(hierarchy.shortestPath("UK", "XX"));
+    }
+
+    @Test
+    void checkLandmarkHeuristic() {
+        for (LandmarkHeuristic.Selection selection : LandmarkHeuristic.Selection.values()) {
+            LandmarkHeuristic<Country, Border> landmarks = europe.buildLandmarkHeuristic(b -> b.getTo() == be ? 5.0 : 1.0,
+                    3, selection);
+            assertEquals(3, landmarks.getNumLandmarks());
+            for (Country from : europe.getVertices()) {
+                for (Country to : europe.getVertices()) {
+                    DirectedGraph.DGPath expected = europe.dijkstraShortestPath(from.getId(), to.getId(), b -> b.getTo() == be ? 5.0 : 1.0);
+                    if (expected == null) continue;
+                    // the estimate shall be a lower bound of the actual shortest path
+                    assertTrue(landmarks.apply(from, to) <= expected.getTotalWeight() + 0.0001);
+                    DirectedGraph.DGPath path = europe.aStarShortestPath(from.getId(), to.getId(), b -> b.getTo() == be ? 5.0 : 1.0, landmarks);
+                    assertEquals(expected.getTotalWeight(), path.getTotalWeight(), 0.0001);
+                }
+            }
+            assertEquals(0.0, landmarks.apply(lux, lux), 0.0001);
+        }
+    }
+
+    @Test
+    void checkDynamicShortestPathTree() {
+        DGSnapshot<Country, Border> snapshot = europe.freeze();
+        double[] weights = snapshot.compileWeights(b -> 1.0);
+        DynamicShortestPathTree<Country, Border> tree = new DynamicShortestPathTree<>(snapshot, weights, "UK");
+        assertEquals(2.0, tree.getWeightTo("LUX"), 0.0001);
+        assertEquals(Double.POSITIVE_INFINITY, tree.getWeightTo("HU"));
+        assertNull(tree.getPathTo("HU"));
+
+        // close all borders into Luxembourg except the one from Germany
+        for (Country c : new Country[] { be, fr }) {
+            int e = snapshot.indexOfEdge(new Border(c, lux));
+            double oldWeight = weights[e];
+            weights[e] = 10.0;
+            tree.weightChanged(e, oldWeight);
+        }
+        assertEquals(3.0, tree.getWeightTo("LUX"), 0.0001);
+        DirectedGraph<Country, Border>.DGPath path = tree.getPathTo("LUX");
+        assertEquals(3, path.getEdges().size());
+        assertEquals(de, path.getEdges().getLast().getFrom());
+
+        // and open the one from France again
+        int e = snapshot.indexOfEdge(new Border(fr, lux));
+        weights[e] = 1.0;
+        tree.weightChanged(e, 10.0);
+        assertEquals(2.0, tree.getWeightTo("LUX"), 0.0001);
+        assertEquals(fr, tree.getPathTo("LUX").getEdges().getLast().getFrom());
+        assertEquals(1, tree.getNumAffected());
+    }
+
+    @Test
+    void checkDistanceMatrix() {
+        List<String> ids = List.of("UK", "LUX", "HU", "XX");
+        DistanceMatrix<Country, Border> matrix = europe.distanceMatrix(ids, ids, b -> b.getTo() == be ? 5.0 : 1.0, true);
+        double[][] distances = matrix.getDistances();
+        assertEquals(4, distances.length);
+        assertEquals(0.0, distances[0][0], 0.0001);
+        assertEquals(2.0, distances[0][1], 0.0001);
+        assertEquals(Double.POSITIVE_INFINITY, distances[0][2]);
+        assertEquals(Double.POSITIVE_INFINITY, distances[0][3]);
+        assertEquals(Double.POSITIVE_INFINITY, distances[3][0]);
+        assertEquals(europe.dijkstraShortestPath("LUX", "UK", b -> b.getTo() == be ? 5.0 : 1.0).getTotalWeight(),
+                distances[1][0], 0.0001);
+
+        DirectedGraph<Country, Border>.DGPath path = matrix.getPath(0, 1);
+        assertEquals(uk, path.getStart());
+        assertEquals(2, path.getEdges().size());
+        assertEquals(lux, path.getEdges().getLast().getTo());
+        assertNull(matrix.getPath(0, 2));
+
+        DistanceMatrix<Country, Border> withoutPaths = europe.distanceMatrix(ids, ids, b -> 1.0, false);
+        assertThrows(IllegalStateException.class, () -> withoutPaths.getPath(0, 1));
+
+        // every row matches a separate search, also when the workspaces are reused across many sources
+        List<String> all = europe.getVertices().stream().map(Country::getId).collect(Collectors.toList());
+        DistanceMatrix<Country, Border> complete = europe.distanceMatrix(all, all, b -> b.getTo() == be ? 5.0 : 1.0, true);
+        for (int i = 0; i < all.size(); i++) {
+            for (int j = 0; j < all.size(); j++) {
+                DirectedGraph<Country, Border>.DGPath expected =
+                        europe.dijkstraShortestPath(all.get(i), all.get(j), b -> b.getTo() == be ? 5.0 : 1.0);
+                assertEquals(expected != null ? expected.getTotalWeight() : Double.POSITIVE_INFINITY,
+                        complete.getDistance(i, j), 0.0001);
+                assertEquals(expected != null ? expected.getTotalWeight() : null,
+                        complete.getPath(i, j) != null ? complete.getPath(i, j).getTotalWeight() : null);
+            }
+        }
+
+        // without any target in the graph, all distances are infinite
+        DistanceMatrix<Country, Border> noTargets = europe.distanceMatrix(ids, List.of("XX", "YY"), b -> 1.0, true);
+        for (double[] row : noTargets.getDistances()) {
+            assertArrayEquals(new double[] { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY }, row);
+        }
+        assertNull(noTargets.getPath(0, 1));
+    }
+
+    @Test
+    void checkRouteQueryService() {
+        try (RouteQueryService<Country, Border> service = europe.startRouteQueryService(b -> b.getTo() == be ? 5.0 : 1.0, 3)) {
+            String[] startIds = { "UK", "LUX", "UK", "XX", "HU", "UK", "NL" };
+            String[] targetIds = { "LUX", "UK", "HU", "UK", "HU", "UK", "BE" };
+            double[] weights = service.shortestPathWeights(startIds, targetIds);
+            List<DirectedGraph<Country, Border>.DGPath> paths = service.shortestPaths(startIds, targetIds);
+            assertEquals(startIds.length, weights.length);
+            assertEquals(startIds.length, paths.size());
+
+            for (int i = 0; i < startIds.length; i++) {
+                DirectedGraph<Country, Border>.DGPath expected =
+                        europe.dijkstraShortestPath(startIds[i], targetIds[i], b -> b.getTo() == be ? 5.0 : 1.0);
+                if (expected == null) {
+                    assertEquals(Double.POSITIVE_INFINITY, weights[i]);
+                    assertNull(paths.get(i));
+                } else {
+                    assertEquals(expected.getTotalWeight(), weights[i], 0.0001);
+                    assertEquals(expected.getTotalWeight(), paths.get(i).getTotalWeight(), 0.0001);
+                    assertEquals(expected.getEdges().size(), paths.get(i).getEdges().size());
+                }
+            }
+            assertEquals(weights[0], service.shortestPathWeight("UK", "LUX"), 0.0001);
+        }
+    }
+
+    @Test
+    void checkRouteCache() {
+        Set<Border> closed = new HashSet<>();
+        RouteCache<Country, Border> cache = new RouteCache<>(europe.freeze(), 2, 100);
+        cache.addProfile("hops", b -> 1.0);
+        cache.addProfile("open", b -> closed.contains(b) ? 10.0 : 1.0);
+        assertThrows(IllegalArgumentException.class, () -> cache.addProfile("hops", b -> 2.0));
+        assertThrows(IllegalArgumentException.class, () -> cache.getRoute("UK", "LUX", "XX"));
+
+        DirectedGraph<Country, Border>.DGPath path = cache.getRoute("UK", "LUX", "open");
+        assertEquals(2.0, path.getTotalWeight(), 0.0001);
+        assertEquals(path.getEdges(), cache.getRoute("UK", "LUX", "open").getEdges());
+        assertNull(cache.getRoute("UK", "HU", "open"));
+        assertNull(cache.getRoute("UK", "HU", "open"));
+        assertNull(cache.getRoute("UK", "XX", "open"));
+        assertEquals(2, cache.getNumHits());
+        assertEquals(2, cache.getNumMisses());
+
+        // closing a border on the cached path only invalidates that path
+        Border border = path.getEdges().getLast();
+        closed.add(border);
+        cache.accept(border);
+        assertEquals(1, cache.getNumInvalidations());
+        assertEquals(1, cache.size());
+        path = cache.getRoute("UK", "LUX", "open");
+        assertEquals(2.0, path.getTotalWeight(), 0.0001);
+        assertFalse(path.getEdges().contains(border));
+
+        // opening it again may provide a shortcut for any path, or a path for any query without one
+        closed.clear();
+        cache.accept(border);
+        assertEquals(3, cache.getNumInvalidations());
+        assertEquals(0, cache.size());
+
+        // the least recently used path is evicted
+        assertNull(cache.getRoute("UK", "HU", "open"));
+        assertEquals(2, cache.getRoute("NL", "FR", "hops").getEdges().size());
+        assertEquals(2, cache.getRoute("UK", "LUX", "hops").getEdges().size());
+        assertEquals(1, cache.getNumEvictions());
+        assertEquals(2, cache.size());
+        assertEquals(4, cache.getNumCachedEdges());
+        assertEquals(6, cache.getNumMisses());
+    }
+
+    @Test
+    void checkRouteCacheReopenedRoad() {
+        Set<Border> closed = new HashSet<>();
+        RouteCache<Country, Border> cache = new RouteCache<>(europe.freeze(), 10, 100);
+        cache.addProfile("open", b -> closed.contains(b) ? Double.POSITIVE_INFINITY : 1.0);
+        assertEquals(0, cache.getRoute("LUX", "LUX", "open").getEdges().size());
+
+        // closing all borders into Luxembourg caches that there is no route
+        List<Border> intoLuxembourg = new ArrayList<>();
+        for (Country country : europe.getVertices()) {
+            for (Border border : country.getEdges()) {
+                if (border.getTo() == lux) intoLuxembourg.add(border);
+            }
+        }
+        closed.addAll(intoLuxembourg);
+        for (Border border : intoLuxembourg) cache.accept(border);
+        assertNull(cache.getRoute("UK", "LUX", "open"));
+        assertNull(cache.getRoute("UK", "LUX", "open"));
+        assertEquals(1, cache.getNumHits());
+
+        // reopening a single border provides the route again
+        Border reopened = intoLuxembourg.get(0);
+        closed.remove(reopened);
+        cache.accept(reopened);
+        DirectedGraph<Country, Border>.DGPath path = cache.getRoute("UK", "LUX", "open");
+        assertNotNull(path);
+        assertEquals(reopened, path.getEdges().getLast());
+        assertEquals(europe.dijkstraShortestPath("UK", "LUX", b -> closed.contains(b) ? Double.POSITIVE_INFINITY : 1.0)
+                .getTotalWeight(), path.getTotalWeight(), 0.0001);
+
+        // the path from Luxembourg to itself does not depend on any weight
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getNumInvalidations());
+    }
+
+    @Test
+    void checkReachableWithin() {
+        ReachableSet<Country, Border> reachable = europe.reachableWithin(List.of("UK"), 2.0, b -> b.getTo() == be ? 5.0 : 1.0);
+        assertEquals(uk, reachable.getVertex(0));
+        assertEquals(0.0, reachable.getWeight(0));
+        for (Country country : europe.getVertices()) {
+            DirectedGraph<Country, Border>.DGPath path =
+                    europe.dijkstraShortestPath("UK", country.getId(), b -> b.getTo() == be ? 5.0 : 1.0);
+            boolean withinBudget = path != null && path.getTotalWeight() <= 2.0;
+            assertEquals(withinBudget, reachable.toMap().containsKey(country));
+            if (withinBudget) assertEquals(path.getTotalWeight(), reachable.toMap().get(country), 0.0001);
+        }
+        for (int i = 1; i < reachable.size(); i++) {
+            assertTrue(reachable.getWeight(i - 1) <= reachable.getWeight(i));
+        }
+
+        ReachableSet<Country, Border> fromBoth = europe.reachableWithin(List.of("UK", "HU", "XX"), 0.0, b -> 1.0);
+        assertEquals(2, fromBoth.size());
+        assertEquals(hu, fromBoth.getOrigin(fromBoth.getVertices().indexOf(hu)));
+        ReachableSet<Country, Border> fromRomania = europe.reachableWithin(List.of("UK", "RO"), 1.0, b -> 1.0);
+        assertEquals(ro, fromRomania.getOrigin(fromRomania.getVertices().indexOf(hu)));
+    }
+
+    @Test
+    void checkKShortestPaths() {
+        List<DirectedGraph<Country, Border>.DGPath> paths = europe.kShortestPaths("UK", "LUX", 5, b -> b.getTo() == be ? 5.0 : 1.0);
+        assertFalse(paths.isEmpty());
+        assertTrue(paths.size() <= 5);
+        assertEquals(europe.dijkstraShortestPath("UK", "LUX", b -> b.getTo() == be ? 5.0 : 1.0).getTotalWeight(),
+                paths.get(0).getTotalWeight(), 0.0001);
+        for (int i = 0; i < paths.size(); i++) {
+            DirectedGraph<Country, Border>.DGPath path = paths.get(i);
+            if (i > 0) {
+                assertTrue(paths.get(i - 1).getTotalWeight() <= path.getTotalWeight());
+                assertNotEquals(paths.get(i - 1).getEdges(), path.getEdges());
+            }
+            // every path is loopless and leads from UK to LUX
+            assertEquals(path.getEdges().size() + 1, path.getVisited().size());
+            assertEquals(uk, path.getEdges().getFirst().getFrom());
+            assertEquals(lux, path.getEdges().getLast().getTo());
+        }
+        assertEquals(1, europe.kShortestPaths("HU", "HU", 3, b -> 1.0).size());
+        assertTrue(europe.kShortestPaths("UK", "HU", 3, b -> 1.0).isEmpty());
+    }
+
+    @Test
+    void checkKShortestPathsMatchAllSimplePaths() {
+        // a 3x3 grid of two-way borders, with many equally short alternatives between opposite corners
+        Country[][] grid = new Country[3][3];
+        for (int r = 0; r < 3; r++) {
+            for (int c = 0; c < 3; c++) {
+                grid[r][c] = africa.addOrGetVertex(new Country("G" + r + c));
+                if (r > 0) africa.addEdges(new Border(grid[r][c], grid[r-1][c]), new Border(grid[r-1][c], grid[r][c]));
+                if (c > 0) africa.addEdges(new Border(grid[r][c], grid[r][c-1]), new Border(grid[r][c-1], grid[r][c]));
+            }
+        }
+        List<ToDoubleFunction<Border>> weightMappers = List.of(b -> 1.0,
+                b -> b.getFrom() == grid[1][1] || b.getTo() == grid[1][1] ? 2.0 : 1.0);
+
+        for (ToDoubleFunction<Border> weightMapper : weightMappers) {
+            List<List<Border>> simplePaths = new ArrayList<>();
+            allSimplePaths(grid[0][0], grid[2][2], new ArrayList<>(), new HashSet<>(List.of(grid[0][0])), simplePaths);
+            assertEquals(12, simplePaths.size());
+            List<Double> expectedWeights = simplePaths.stream()
+                    .map(p -> p.stream().mapToDouble(weightMapper).sum())
+                    .sorted().collect(Collectors.toList());
+
+            for (int k = 1; k <= simplePaths.size() + 2; k++) {
+                List<DirectedGraph<Country, Border>.DGPath> paths = africa.kShortestPaths("G00", "G22", k, weightMapper);
+                assertEquals(Math.min(k, simplePaths.size()), paths.size(), "k = " + k);
+                // ties may be resolved either way, but the weights are those of the k shortest simple paths
+                assertEquals(expectedWeights.subList(0, paths.size()),
+                        paths.stream().map(DirectedGraph.DGPath::getTotalWeight).collect(Collectors.toList()), "k = " + k);
+                Set<List<Border>> found = new HashSet<>();
+                for (DirectedGraph<Country, Border>.DGPath path : paths) {
+                    assertTrue(simplePaths.contains(path.getEdges()), "k = " + k);
+                    assertTrue(found.add(path.getEdges()), "k = " + k);
+                    assertEquals(path.getEdges().stream().mapToDouble(weightMapper).sum(),
+                            path.getTotalWeight(), 0.0001);
+                }
+                if (k >= simplePaths.size()) assertEquals(new HashSet<>(simplePaths), found);
+            }
+        }
+    }
+
+    /**
+     * collects all paths from v to the target that visit every vertex at most once
+     */
+    private static void allSimplePaths(Country v, Country target, List<Border> path, Set<Country> onPath,
+                                       List<List<Border>> simplePaths) {
+        if (v == target) {
+            simplePaths.add(new ArrayList<>(path));
+            return;
+        }
+        for (Border border : v.getEdges()) {
+            if (!onPath.add(border.getTo())) continue;
+            path.add(border);
+            allSimplePaths(border.getTo(), target, path, onPath, simplePaths);
+            path.remove(path.size() - 1);
+            onPath.remove(border.getTo());
+        }
+    }
+
+    @Test
+    void checkAllPairsShortestPaths() throws IOException {
+        AllPairsShortestPaths floyd = europe.allPairsShortestPaths(b -> b.getTo() == be ? 5.0 : 1.0,
+                AllPairsShortestPaths.Method.FLOYD_WARSHALL);
+        AllPairsShortestPaths dijkstra = europe.allPairsShortestPaths(b -> b.getTo() == be ? 5.0 : 1.0,
+                AllPairsShortestPaths.Method.DIJKSTRA);
+        assertEquals(8, floyd.getNumVertices());
+        assertTrue(floyd.getMemoryFootprint() >= 8 * 8 * Double.BYTES);
+        for (Country from : europe.getVertices()) {
+            for (Country to : europe.getVertices()) {
+                DirectedGraph<Country, Border>.DGPath path =
+                        europe.dijkstraShortestPath(from.getId(), to.getId(), b -> b.getTo() == be ? 5.0 : 1.0);
+                double expected = path != null ? path.getTotalWeight() : Double.POSITIVE_INFINITY;
+                assertEquals(expected, floyd.getDistance(from.getId(), to.getId()), 0.0001);
+                assertEquals(expected, dijkstra.getDistance(from.getId(), to.getId()), 0.0001);
+            }
+        }
+        assertEquals(Double.POSITIVE_INFINITY, floyd.getDistance("UK", "XX"));
+
+        Path file = Files.createTempFile("apsp", ".bin");
+        try {
+            floyd.save(file);
+            AllPairsShortestPaths loaded = AllPairsShortestPaths.load(file);
+            assertEquals(floyd.getVertexIds(), loaded.getVertexIds());
+            assertEquals(AllPairsShortestPaths.Method.FLOYD_WARSHALL, loaded.getMethod());
+            assertEquals(floyd.getDistance("UK", "LUX"), loaded.getDistance("UK", "LUX"));
+
+            // the rows of larger tables are mapped in several regions, here of 3 rows and of a single row
+            for (long maxRegionBytes : new long[] { 3 * 8 * Double.BYTES, 1 }) {
+                AllPairsShortestPaths regions = AllPairsShortestPaths.load(file, maxRegionBytes);
+                for (int from = 0; from < 8; from++) {
+                    for (int to = 0; to < 8; to++) {
+                        assertEquals(floyd.getDistance(from, to), regions.getDistance(from, to));
+                    }
+                }
+            }
+            // a loaded table can be saved again
+            Path copy = Files.createTempFile("apsp", ".bin");
+            try {
+                loaded.save(copy);
+                assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(copy));
+            } finally {
+                Files.delete(copy);
+            }
+
+            // truncated files and unknown methods are rejected
+            byte[] bytes = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - Double.BYTES));
+            assertThrows(IllegalArgumentException.class, () -> AllPairsShortestPaths.load(file));
+            Files.write(file, Arrays.copyOf(bytes, 20));
+            assertThrows(IllegalArgumentException.class, () -> AllPairsShortestPaths.load(file));
+            bytes[11] = 7;
+            Files.write(file, bytes);
+            assertThrows(IllegalArgumentException.class, () -> AllPairsShortestPaths.load(file));
+            // tables beyond MAX_VERTICES are rejected before anything is mapped
+            bytes[11] = 1;
+            ByteBuffer.wrap(bytes).putInt(12, AllPairsShortestPaths.MAX_VERTICES + 1);
+            Files.write(file, bytes);
+            assertThrows(IllegalArgumentException.class, () -> AllPairsShortestPaths.load(file));
+        } finally {
+            Files.delete(file);
+        }
+
+        // the table of a larger graph does not fit into an array
+        for (int i = 0; i <= AllPairsShortestPaths.MAX_VERTICES; i++) {
+            africa.addOrGetVertex(new Country("C" + i));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> africa.allPairsShortestPaths(b -> 1.0, AllPairsShortestPaths.Method.DIJKSTRA));
+    }
+
+    @Test
+    void checkSearchMetrics() {
+        SearchMetrics metrics = new SearchMetrics();
+        Function<Border, Double> hops = b -> 1.0;
+        metrics.nameWeightMapper(hops, "hops");
+        europe.setSearchListener(metrics);
+        try {
+            DirectedGraph<Country, Border>.DGPath path = europe.dijkstraShortestPath("UK", "LUX", hops);
+            europe.dijkstraShortestPath("UK", "RO", hops);
+            europe.breadthFirstSearch("UK", "LUX");
+            europe.aStarShortestPathAsDouble("UK", "LUX", b -> 1.0, (v, w) -> 0.0);
+        } finally {
+            europe.setSearchListener(null);
+        }
+        europe.dijkstraShortestPath("UK", "LUX", hops);
+
+        List<SearchSummary> summaries = metrics.getSummaries();
+        assertEquals(List.of("AStar", "BFS", "Dijkstra"), summaries.stream().map(SearchSummary::getAlgorithm).collect(Collectors.toList()));
+        assertEquals(List.of("unnamed", "-", "hops"), summaries.stream().map(SearchSummary::getWeightName).collect(Collectors.toList()));
+        SearchSummary dijkstra = summaries.get(2);
+        assertEquals(2, dijkstra.getNumSearches());
+        assertEquals(1, dijkstra.getNumPathsFound());
+        assertTrue(dijkstra.getMeanSettled() > 0 && dijkstra.getMeanRelaxed() >= dijkstra.getMeanSettled());
+        assertTrue(dijkstra.getMeanHeapOperations() > 0);
+        assertEquals(0.0, dijkstra.getMeanHeuristicCalls());
+        assertTrue(summaries.get(0).getMeanHeuristicCalls() > 0);
+        assertEquals(2, metrics.getLatencies("Dijkstra", "hops").getCount());
+        assertTrue(dijkstra.getLatency50() <= dijkstra.getMaxLatency());
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++) histogram.record(value * 1000);
+        assertEquals(500000, histogram.getValueAtPercentile(50.0), 500000 / 64.0);
+        assertEquals(1000000, histogram.getValueAtPercentile(100.0));
+    }
+}
@@ -0,0 +1,291 @@
+package route_planner;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    private static final byte[] BOM = { (byte)0xEF, (byte)0xBB, (byte)0xBF };
+
+    private static CsvReader reader(String text) {
+        return new CsvReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void checkByteOrderMark() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(BOM);
+        out.writeBytes("Code;Naam\n1;Ærø\n".getBytes(StandardCharsets.UTF_8));
+        CsvReader reader = new CsvReader(new ByteArrayInputStream(out.toByteArray()));
+        assertTrue(reader.nextRow());
+        assertEquals("Code", reader.getString(0));
+        assertTrue(reader.nextRow());
+        assertEquals(1, reader.getInt(0));
+        assertEquals("Ærø", reader.getString(1));
+        assertFalse(reader.nextRow());
+
+        // only a byte order mark at the start of the input is skipped
+        reader = reader("a\n\uFEFFb\n");
+        assertTrue(reader.nextRow());
+        assertTrue(reader.nextRow());
+        assertEquals("\uFEFFb", reader.getString(0));
+    }
+
+    @Test
+    void checkQuotedAndEmptyFields() {
+        CsvReader reader = reader("\"Den Haag\"; 'Delft' ;;  ;x\r\n\n\r\n;\nlast");
+        assertTrue(reader.nextRow());
+        assertEquals(5, reader.getNumFields());
+        // fields are not quoted, quotes are part of the trimmed text, like with the former Scanner import
+        assertEquals("\"Den Haag\"", reader.getString(0));
+        assertEquals("'Delft'", reader.getString(1));
+        assertTrue(reader.isEmpty(2));
+        assertTrue(reader.isEmpty(3));
+        assertEquals("", reader.getString(3));
+        assertFalse(reader.isEmpty(4));
+        assertTrue(reader.isEmpty(5));
+
+        // empty lines are skipped, a line with only a delimiter has two empty fields
+        assertTrue(reader.nextRow());
+        assertEquals(2, reader.getNumFields());
+        assertTrue(reader.isEmpty(0));
+        assertTrue(reader.isEmpty(1));
+
+        // the last line needs no line terminator
+        assertTrue(reader.nextRow());
+        assertEquals("last", reader.getString(0));
+        assertFalse(reader.nextRow());
+        assertEquals(3, reader.getNumRows());
+    }
+
+    @Test
+    void checkInternedStrings() {
+        CsvReader reader = reader("Amsterdam;Utrecht\n Amsterdam ;Utrecht-N\n");
+        reader.nextRow();
+        String amsterdam = reader.getString(0);
+        String utrecht = reader.getString(1);
+        reader.nextRow();
+        assertSame(amsterdam, reader.getString(0));
+        assertNotSame(utrecht, reader.getString(1));
+        assertEquals("Utrecht-N", reader.getString(1));
+
+        // many distinct names grow the intern table without losing any of them
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) text.append("name").append(i).append('\n');
+        reader = reader(text.toString() + text);
+        List<String> first = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            reader.nextRow();
+            first.add(reader.getString(0));
+        }
+        for (int i = 0; i < 5000; i++) {
+            reader.nextRow();
+            assertSame(first.get(i), reader.getString(0));
+            assertEquals("name" + i, reader.getString(0));
+        }
+    }
+
+    @Test
+    void checkRowsAcrossBlockBoundaries() {
+        // rows of various lengths, such that rows, line terminators and long fields straddle the 64KB blocks
+        StringBuilder text = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        Random random = new Random(12);
+        while (text.length() < 5 * 65536) {
+            String name = "n" + "x".repeat(random.nextInt(random.nextInt(10) == 0 ? 100000 : 50));
+            int value = random.nextInt();
+            expected.add(name + "|" + value);
+            text.append(name).append(';').append(value).append(random.nextBoolean() ? "\r\n" : "\n");
+        }
+        // a carriage return as the last byte of the first block, and its line feed in the next block
+        String prefix = "a;1;" + "y".repeat(65536 - 5) + "\r\n";
+        assertEquals('\r', prefix.charAt(65535));
+
+        for (InputStream in : List.of(
+                new ByteArrayInputStream((prefix + text).getBytes(StandardCharsets.UTF_8)),
+                trickle((prefix + text).getBytes(StandardCharsets.UTF_8), 1000))) {
+            CsvReader reader = new CsvReader(in);
+            assertTrue(reader.nextRow());
+            assertEquals(3, reader.getNumFields());
+            assertEquals(65536 - 5, reader.getString(2).length());
+            for (String row : expected) {
+                assertTrue(reader.nextRow());
+                assertEquals(2, reader.getNumFields());
+                assertEquals(row, reader.getString(0) + "|" + reader.getInt(1));
+            }
+            assertFalse(reader.nextRow());
+        }
+    }
+
+    @Test
+    void checkIntegers() {
+        CsvReader reader = reader("0;-17;+42;2147483647;-2147483648;2147483648;12a;-;");
+        reader.nextRow();
+        assertEquals(0, reader.getInt(0));
+        assertEquals(-17, reader.getInt(1));
+        assertEquals(42, reader.getInt(2));
+        assertEquals(Integer.MAX_VALUE, reader.getInt(3));
+        assertEquals(Integer.MIN_VALUE, reader.getInt(4));
+        for (int field = 5; field < 9; field++) {
+            int f = field;
+            assertThrows(NumberFormatException.class, () -> reader.getInt(f));
+        }
+    }
+
+    @Test
+    void checkDoubles() {
+        String[] numbers = {
+                "0", "-0", "0.0", "241.626", "-559.617", "+7", ".5", "5.", "000123.4500",
+                "0.1", "0.3", "123456789012345", "0.123456789012345", "9007199254740993",
+                // the exponent notation falls back to Double.parseDouble
+                "1e3", "2.5E-3", "-6.02214076e23", "1e-400", "1e400",
+                // more than 15 significant digits, or fractions beyond 1e-22, fall back as well
+                "3.14159265358979323846", "12345678901234567890123", "0.1234567890123456",
+                "0.0000000000000000000000001234", "-0.00000000000000000000001" };
+        CsvReader reader = reader(String.join(";", numbers));
+        reader.nextRow();
+        for (int field = 0; field < numbers.length; field++) {
+            assertEquals(Double.parseDouble(numbers[field]), reader.getDouble(field), numbers[field]);
+            assertEquals(Double.doubleToLongBits(Double.parseDouble(numbers[field])),
+                    Double.doubleToLongBits(reader.getDouble(field)), numbers[field]);
+        }
+
+        // the fast path of up to 15 significant digits is correctly rounded
+        Random random = new Random(25);
+        StringBuilder text = new StringBuilder();
+        List<String> samples = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            int numDigits = 1 + random.nextInt(17);
+            long mantissa = (long)(random.nextDouble() * Math.pow(10, numDigits));
+            String digits = Long.toString(mantissa);
+            int point = random.nextInt(digits.length() + 1);
+            String sample = (random.nextBoolean() ? "-" : "") + digits.substring(0, point) + "." + digits.substring(point);
+            samples.add(sample);
+            text.append(sample).append('\n');
+        }
+        reader = reader(text.toString());
+        for (String sample : samples) {
+            assertTrue(reader.nextRow());
+            assertEquals(Double.doubleToLongBits(Double.parseDouble(sample)),
+                    Double.doubleToLongBits(reader.getDouble(0)), sample);
+        }
+
+        CsvReader invalid = reader("abc;1.2.3;;-;.;1e");
+        invalid.nextRow();
+        for (int field = 0; field < 6; field++) {
+            int f = field;
+            assertThrows(NumberFormatException.class, () -> invalid.getDouble(f));
+        }
+    }
+
+    @Test
+    void checkImportMatchesScannerImport() {
+        // the lengths of the roads are drawn from the randomizer, by the variability of their junctions
+        RoadMap.reSeedRandomizer(20);
+        RoadMap imported = new RoadMap();
+        int numJunctions = imported.importJunctions("Junctions.csv");
+        int numRoads = imported.importRoads("Roads.csv");
+        assertTrue(numJunctions > 0 && numRoads > 0);
+
+        RoadMap.reSeedRandomizer(20);
+        RoadMap scanned = new RoadMap();
+        assertEquals(numJunctions, scanJunctions(scanned, "Junctions.csv"));
+        assertEquals(numRoads, scanRoads(scanned, "Roads.csv"));
+
+        assertEquals(scanned.getNumVertices(), imported.getNumVertices());
+        assertEquals(scanned.getNumEdges(), imported.getNumEdges());
+        for (Junction junction : scanned.getVertices()) {
+            Junction other = imported.getVertexById(junction.getId());
+            assertNotNull(other, junction.getName());
+            assertEquals(junction.getLocationX(), other.getLocationX(), junction.getName());
+            assertEquals(junction.getLocationY(), other.getLocationY(), junction.getName());
+            assertEquals(junction.getPopulation(), other.getPopulation(), junction.getName());
+            assertEquals(describe(junction.getEdges()), describe(other.getEdges()), junction.getName());
+        }
+    }
+
+    private static Set<String> describe(Collection<Road> roads) {
+        return roads.stream()
+                .map(r -> r.getName() + ":" + r.getTo().getName() + ":" + r.getMaxSpeed() + ":" + r.getLength())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * the former import of junctions by a java.util.Scanner
+     */
+    private static int scanJunctions(RoadMap map, String resourceName) {
+        int numLoaded = 0;
+        Scanner scanner = new Scanner(RoadMap.class.getClassLoader().getResourceAsStream(resourceName),
+                StandardCharsets.UTF_8);
+        scanner.useDelimiter(";");
+        scanner.useLocale(Locale.ENGLISH);
+
+        // skip header line
+        scanner.nextLine();
+        while (scanner.hasNext()) {
+            Junction junction = new Junction();
+            scanner.nextInt(); // skip code
+            junction.setName(scanner.next().trim());
+            junction.setLocationX(scanner.nextDouble());
+            junction.setLocationY(scanner.nextDouble());
+            scanner.next(); // skip province
+            junction.setPopulation(scanner.nextInt());
+            map.addOrGetVertex(junction);
+            numLoaded++;
+            scanner.nextLine();
+        }
+        return numLoaded;
+    }
+
+    /**
+     * the former import of roads by a java.util.Scanner
+     */
+    private static int scanRoads(RoadMap map, String resourceName) {
+        int numLoaded = 0;
+        Scanner scanner = new Scanner(RoadMap.class.getClassLoader().getResourceAsStream(resourceName),
+                StandardCharsets.UTF_8);
+        scanner.useDelimiter(";");
+        scanner.useLocale(Locale.ENGLISH);
+
+        // skip header line
+        scanner.nextLine();
+        while (scanner.hasNext()) {
+            String name = scanner.next().trim();
+            int speedlimit = scanner.nextInt();
+            Junction prevJunction = map.getVertexById(scanner.next().trim());
+            while (scanner.hasNext() && prevJunction != null) {
+                String jName = scanner.next().trim();
+                if (jName.isEmpty()) break;
+                Junction nextJunction = map.getVertexById(jName);
+                if (nextJunction != null) {
+                    map.addOrGetEdge(new Road(name, prevJunction, nextJunction, speedlimit));
+                    map.addOrGetEdge(new Road(name, nextJunction, prevJunction, speedlimit));
+                    numLoaded++;
+                    prevJunction = nextJunction;
+                }
+            }
+            scanner.nextLine();
+        }
+        return numLoaded;
+    }
+
+    /**
+     * @return  a stream that returns at most chunkSize bytes on every read
+     */
+    private static InputStream trickle(byte[] bytes, int chunkSize) {
+        return new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, chunkSize));
+            }
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package route_planner;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JunctionIndexTest {
+
+    private static List<Junction> junctions(int n, Random random, boolean duplicates) {
+        List<Junction> junctions = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Junction junction = new Junction("J" + i);
+            if (duplicates) {
+                // a coarse grid, such that many junctions share a coordinate or a location
+                junction.setLocationX(10 * random.nextInt(5));
+                junction.setLocationY(10 * random.nextInt(5));
+            } else {
+                junction.setLocationX(300 * random.nextDouble());
+                junction.setLocationY(300 + 300 * random.nextDouble());
+            }
+            junctions.add(junction);
+        }
+        return junctions;
+    }
+
+    private static double squaredDistance(Junction junction, double x, double y) {
+        double dX = junction.getLocationX() - x;
+        double dY = junction.getLocationY() - y;
+        return dX * dX + dY * dY;
+    }
+
+    private static List<Double> distances(Collection<Junction> junctions, double x, double y) {
+        return junctions.stream().map(j -> squaredDistance(j, x, y)).collect(Collectors.toList());
+    }
+
+    @Test
+    void checkEmptyIndex() {
+        JunctionIndex index = new JunctionIndex(new ArrayList<>());
+        assertEquals(0, index.size());
+        assertNull(index.nearest(1.0, 2.0));
+        assertTrue(index.kNearest(1.0, 2.0, 3).isEmpty());
+        assertTrue(index.withinRadius(1.0, 2.0, 100.0).isEmpty());
+        assertTrue(index.withinBox(0.0, 0.0, 100.0, 100.0).isEmpty());
+    }
+
+    @Test
+    void checkRandomLocationsMatchLinearScan() {
+        Random random = new Random(14);
+        for (int n : new int[] { 1, 2, 3, 10, 1000 }) {
+            this.checkMatchesLinearScan(junctions(n, random, false), random, 0.0, 300.0, 300.0, 600.0);
+        }
+    }
+
+    @Test
+    void checkDuplicateLocationsMatchLinearScan() {
+        Random random = new Random(41);
+        for (int n : new int[] { 2, 25, 500 }) {
+            this.checkMatchesLinearScan(junctions(n, random, true), random, -5.0, -5.0, 45.0, 45.0);
+        }
+    }
+
+    private void checkMatchesLinearScan(List<Junction> junctions, Random random,
+                                        double minX, double minY, double maxX, double maxY) {
+        JunctionIndex index = new JunctionIndex(junctions);
+        assertEquals(junctions.size(), index.size());
+
+        for (int q = 0; q < 200; q++) {
+            double x, y;
+            if (q % 4 == 0) {
+                // exactly at a junction
+                Junction junction = junctions.get(random.nextInt(junctions.size()));
+                x = junction.getLocationX();
+                y = junction.getLocationY();
+            } else {
+                x = minX + (maxX - minX) * random.nextDouble();
+                y = minY + (maxY - minY) * random.nextDouble();
+            }
+            List<Double> sorted = distances(junctions, x, y);
+            Collections.sort(sorted);
+
+            // ties between equally near junctions may be resolved either way, so only the distances are compared
+            assertEquals(sorted.get(0), squaredDistance(index.nearest(x, y), x, y));
+
+            for (int k : new int[] { 1, 2, 7, junctions.size(), junctions.size() + 3 }) {
+                List<Junction> nearest = index.kNearest(x, y, k);
+                assertEquals(sorted.subList(0, Math.min(k, junctions.size())), distances(nearest, x, y));
+                assertEquals(nearest.size(), new HashSet<>(nearest).size());
+            }
+
+            double radius = (maxX - minX) * random.nextDouble() / 4;
+            if (q % 8 == 1) radius = 0.0;
+            final double qx = x, qy = y, r2 = radius * radius;
+            assertEquals(junctions.stream().filter(j -> squaredDistance(j, qx, qy) <= r2).collect(Collectors.toSet()),
+                    new HashSet<>(index.withinRadius(x, y, radius)));
+            assertEquals(index.withinRadius(x, y, radius).size(), new HashSet<>(index.withinRadius(x, y, radius)).size());
+
+            // boxes with random corners, and degenerate boxes along the coordinates of a junction
+            double x1 = x + (maxX - minX) * (random.nextDouble() - 0.5) / 2;
+            double y1 = y + (maxY - minY) * (random.nextDouble() - 0.5) / 2;
+            double[][] boxes = { { Math.min(x, x1), Math.min(y, y1), Math.max(x, x1), Math.max(y, y1) },
+                    { x, y, x, y }, { x, minY, x, maxY }, { x1, y1, x, y } };
+            for (double[] box : boxes) {
+                assertEquals(junctions.stream()
+                                .filter(j -> j.getLocationX() >= box[0] && j.getLocationX() <= box[2]
+                                        && j.getLocationY() >= box[1] && j.getLocationY() <= box[3])
+                                .collect(Collectors.toSet()),
+                        new HashSet<>(index.withinBox(box[0], box[1], box[2], box[3])));
+                assertEquals(index.withinBox(box[0], box[1], box[2], box[3]).size(),
+                        new HashSet<>(index.withinBox(box[0], box[1], box[2], box[3])).size());
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package route_planner;
+
+import graphs.DGSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoadGraphFileTest {
+
+    private static RoadMap importMap() {
+        RoadMap.reSeedRandomizer(13);
+        RoadMap roadMap = new RoadMap();
+        roadMap.importJunctions("Junctions.csv");
+        roadMap.importRoads("Roads.csv");
+        return roadMap;
+    }
+
+    @Test
+    void checkWriteAndOpen() throws IOException {
+        RoadMap roadMap = importMap();
+        DGSnapshot<Junction, Road> snapshot = roadMap.freeze();
+        Path file = Files.createTempFile("roads", ".rgf");
+        try {
+            RoadGraphFile.write(roadMap, file);
+            RoadGraphFile graphFile = RoadGraphFile.open(file);
+
+            assertEquals(snapshot.getNumVertices(), graphFile.getNumJunctions());
+            assertEquals(snapshot.getNumEdges(), graphFile.getNumRoads());
+            for (int v = 0; v < graphFile.getNumJunctions(); v++) {
+                Junction junction = snapshot.getVertex(v);
+                assertEquals(junction.getName(), graphFile.getJunctionName(v));
+                assertEquals(v, graphFile.indexOf(junction.getName()));
+                assertEquals(junction.getLocationX(), graphFile.getLocationX(v));
+                assertEquals(junction.getLocationY(), graphFile.getLocationY(v));
+                assertEquals(junction.getPopulation(), graphFile.getPopulation(v));
+                for (int r = graphFile.getFirstRoad(v); r < graphFile.getFirstRoad(v + 1); r++) {
+                    Road road = snapshot.getEdge(r);
+                    assertSame(junction, road.getFrom());
+                    assertEquals(road.getTo().getName(), graphFile.getJunctionName(graphFile.getRoadTo(r)));
+                    assertEquals(road.getName(), graphFile.getRoadName(r));
+                    assertEquals(road.getLength(), graphFile.getRoadLength(r));
+                    assertEquals(road.getMaxSpeed(), graphFile.getRoadMaxSpeed(r));
+                }
+            }
+            assertEquals(-1, graphFile.indexOf("Atlantis"));
+
+            // routes on the mapped file match the routes on the map
+            double[] lengths = graphFile.compileWeights((length, maxSpeed) -> length);
+            String[][] queries = { { "Amsterdam", "Staphorst" }, { "Vlissingen", "Delfzijl" }, { "Maastricht", "Den Helder" } };
+            for (String[] query : queries) {
+                RoadMap.DGPath path = roadMap.dijkstraShortestPathAsDouble(query[0], query[1], Road::getLength);
+                assertNotNull(path);
+                assertEquals(path.getTotalWeight(), graphFile.shortestRouteWeight(query[0], query[1], lengths), 1e-9);
+                List<String> route = graphFile.shortestRoute(query[0], query[1], lengths);
+                assertEquals(query[0], route.get(0));
+                assertEquals(path.getEdges().stream().map(r -> r.getTo().getName()).collect(Collectors.toList()),
+                        route.subList(1, route.size()));
+            }
+            assertNull(graphFile.shortestRoute("Amsterdam", "Atlantis", lengths));
+
+            // the materialized map holds the same junctions and roads
+            RoadMap materialized = graphFile.toRoadMap();
+            assertEquals(roadMap.getNumVertices(), materialized.getNumVertices());
+            assertEquals(roadMap.getNumEdges(), materialized.getNumEdges());
+            assertEquals(roadMap.getVertexById("Utrecht").getEdges().size(),
+                    materialized.getVertexById("Utrecht").getEdges().size());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void checkCorruptFilesAreRejected() throws IOException {
+        RoadMap roadMap = importMap();
+        Path file = Files.createTempFile("roads", ".rgf");
+        try {
+            RoadGraphFile.write(roadMap, file);
+            byte[] bytes = Files.readAllBytes(file);
+
+            // truncated files
+            for (int length : new int[] { 0, 10, 24, bytes.length / 2, bytes.length - 1 }) {
+                Files.write(file, Arrays.copyOf(bytes, length));
+                assertThrows(IllegalArgumentException.class, () -> RoadGraphFile.open(file), "length " + length);
+            }
+            // trailing garbage
+            Files.write(file, Arrays.copyOf(bytes, bytes.length + 4));
+            assertThrows(IllegalArgumentException.class, () -> RoadGraphFile.open(file));
+
+            // corrupt header fields: magic, version, numJunctions, numRoads, numStrings, numStringBytes
+            for (int field = 0; field < 6; field++) {
+                for (int value : new int[] { -1, 1, Integer.MAX_VALUE }) {
+                    byte[] corrupt = bytes.clone();
+                    ByteBuffer.wrap(corrupt).putInt(field * Integer.BYTES, value);
+                    Files.write(file, corrupt);
+                    assertThrows(IllegalArgumentException.class, () -> RoadGraphFile.open(file),
+                            "header field " + field + " = " + value);
+                }
+            }
+
+            // version 1 files with the identity array of junction names are not supported any more
+            byte[] version1 = bytes.clone();
+            ByteBuffer.wrap(version1).putInt(Integer.BYTES, 1);
+            Files.write(file, version1);
+            IllegalArgumentException e =
+                    assertThrows(IllegalArgumentException.class, () -> RoadGraphFile.open(file));
+            assertTrue(e.getMessage().contains("version 1"));
+
+            Files.write(file, bytes);
+            assertEquals(roadMap.getNumEdges(), RoadGraphFile.open(file).getNumRoads());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package route_planner;
+
+import graphs.ContractionHierarchy;
+import graphs.DGSnapshot;
+import graphs.DirectedGraph;
+import graphs.DynamicShortestPathTree;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoadMapTest {
+
+    private static double travelTime(Road road) {
+        return road.getLength() / road.getMaxSpeed();
+    }
+
+    /**
+     * checks that a path leads from start to target along connected roads, with the given total weight
+     */
+    private static void checkPath(DirectedGraph<Junction, Road>.DGPath path, Junction start, Junction target,
+                                  double expectedWeight) {
+        assertSame(start, path.getStart());
+        Junction current = start;
+        double weight = 0.0;
+        for (Road road : path.getEdges()) {
+            assertSame(current, road.getFrom());
+            assertTrue(road.getFrom().getEdges().contains(road));
+            weight += travelTime(road);
+            current = road.getTo();
+        }
+        assertSame(target, current);
+        assertEquals(expectedWeight, weight, 1e-9);
+        assertEquals(expectedWeight, path.getTotalWeight(), 1e-9);
+    }
+
+    @Test
+    void checkContractionHierarchyMatchesDijkstra() {
+        RoadMap roadMap = new RoadNetworkGenerator(1500, 6L).generate();
+        DGSnapshot<Junction, Road> snapshot = roadMap.freeze();
+        double[] weights = snapshot.compileWeights(RoadMapTest::travelTime);
+        ContractionHierarchy<Junction, Road> hierarchy = roadMap.buildContractionHierarchy(RoadMapTest::travelTime);
+        assertTrue(hierarchy.getNumShortcuts() > 0);
+
+        Random random = new Random(6);
+        for (int q = 0; q < 500; q++) {
+            Junction start = snapshot.getVertex(random.nextInt(snapshot.getNumVertices()));
+            Junction target = snapshot.getVertex(random.nextInt(snapshot.getNumVertices()));
+            DirectedGraph<Junction, Road>.DGPath expected =
+                    snapshot.dijkstraShortestPath(start.getId(), target.getId(), weights);
+            DirectedGraph<Junction, Road>.DGPath path = hierarchy.shortestPath(start.getId(), target.getId());
+            assertNotNull(expected);
+            assertNotNull(path, start.getId() + " -> " + target.getId());
+            checkPath(path, start, target, expected.getTotalWeight());
+        }
+    }
+
+    @Test
+    void checkDynamicShortestPathTreeMatchesRecomputation() {
+        RoadMap roadMap = new RoadNetworkGenerator(800, 8L).generate();
+        DGSnapshot<Junction, Road> snapshot = roadMap.freeze();
+        double[] weights = snapshot.compileWeights(RoadMapTest::travelTime);
+        String originId = snapshot.getVertex(0).getId();
+        DynamicShortestPathTree<Junction, Road> tree = new DynamicShortestPathTree<>(snapshot, weights, originId);
+
+        Random random = new Random(8);
+        for (int change = 0; change < 300; change++) {
+            int e;
+            if (random.nextBoolean()) {
+                // an edge of the tree, such that increases invalidate subtrees
+                DirectedGraph<Junction, Road>.DGPath path =
+                        tree.getPathTo(snapshot.getVertex(1 + random.nextInt(snapshot.getNumVertices() - 1)).getId());
+                if (path == null || path.getEdges().isEmpty()) continue;
+                e = snapshot.indexOfEdge(path.getEdges().get(random.nextInt(path.getEdges().size())));
+            } else {
+                e = random.nextInt(snapshot.getNumEdges());
+            }
+            double oldWeight = weights[e];
+            switch (random.nextInt(4)) {
+                case 0: weights[e] = Double.POSITIVE_INFINITY; break;   // a closed road
+                case 1: weights[e] = oldWeight * 0.5; break;
+                case 2: weights[e] = oldWeight * (1.0 + 4.0 * random.nextDouble()); break;
+                default: weights[e] = travelTime(snapshot.getEdge(e)); break;     // reopened or restored
+            }
+            tree.weightChanged(e, oldWeight);
+
+            if (change % 10 == 9) {
+                // a full recalculation of the tree by the current weights
+                DynamicShortestPathTree<Junction, Road> recalculated =
+                        new DynamicShortestPathTree<>(snapshot, weights.clone(), originId);
+                for (int v = 0; v < snapshot.getNumVertices(); v++) {
+                    String targetId = snapshot.getVertex(v).getId();
+                    assertEquals(recalculated.getWeightTo(targetId), tree.getWeightTo(targetId), 1e-9,
+                            "change " + change + " to " + targetId);
+                    DirectedGraph<Junction, Road>.DGPath path = tree.getPathTo(targetId);
+                    assertEquals(recalculated.getPathTo(targetId) == null, path == null);
+                    if (path == null) continue;
+                    double weight = 0.0;
+                    Junction current = tree.getOrigin();
+                    for (Road road : path.getEdges()) {
+                        assertSame(current, road.getFrom());
+                        weight += weights[snapshot.indexOfEdge(road)];
+                        current = road.getTo();
+                    }
+                    assertSame(snapshot.getVertex(v), current);
+                    assertEquals(tree.getWeightTo(targetId), weight, 1e-9);
+                }
+            }
+        }
+    }
+}
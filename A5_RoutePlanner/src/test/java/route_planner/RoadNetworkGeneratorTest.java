@@ -0,0 +1,102 @@
+package route_planner;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoadNetworkGeneratorTest {
+
+    /**
+     * @return  all junctions and road segments of the map with all their properties, in the order of their names
+     */
+    private static List<String> describe(RoadMap roadMap) {
+        List<String> lines = new ArrayList<>();
+        for (Junction junction : roadMap.getVertices()) {
+            lines.add(String.format("%s %s %s %d", junction.getName(),
+                    junction.getLocationX(), junction.getLocationY(), junction.getPopulation()));
+            for (Road road : junction.getEdges()) {
+                lines.add(describe(junction.getName(), road.getTo().getName(),
+                        road.getName(), road.getMaxSpeed(), road.getLength()));
+            }
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    private static String describe(String from, String to, String name, int maxSpeed, double length) {
+        return String.format("%s -> %s %s %d %s", from, to, name, maxSpeed, length);
+    }
+
+    private static List<String> describe(RoadGraphFile graphFile) {
+        List<String> lines = new ArrayList<>();
+        for (int v = 0; v < graphFile.getNumJunctions(); v++) {
+            lines.add(String.format("%s %s %s %d", graphFile.getJunctionName(v),
+                    graphFile.getLocationX(v), graphFile.getLocationY(v), graphFile.getPopulation(v)));
+            for (int r = graphFile.getFirstRoad(v); r < graphFile.getFirstRoad(v + 1); r++) {
+                lines.add(describe(graphFile.getJunctionName(v), graphFile.getJunctionName(graphFile.getRoadTo(r)),
+                        graphFile.getRoadName(r), graphFile.getRoadMaxSpeed(r), graphFile.getRoadLength(r)));
+            }
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    @Test
+    void checkSameSeedSameNetwork() throws IOException {
+        RoadNetworkGenerator generator = new RoadNetworkGenerator(1500, 22L);
+        RoadMap generated = generator.generate();
+        List<String> expected = describe(generated);
+        assertEquals(1500, generated.getNumVertices());
+        assertEquals(expected, describe(new RoadNetworkGenerator(1500, 22L).generate()));
+        assertNotEquals(expected, describe(new RoadNetworkGenerator(1500, 23L).generate()));
+
+        Path junctionsFile = Files.createTempFile("junctions", ".csv");
+        Path roadsFile = Files.createTempFile("roads", ".csv");
+        Path graphFile = Files.createTempFile("roads", ".rgf");
+        try {
+            // the csv files reproduce the network after reseeding the randomizer with the same seed
+            generator.writeCsv(junctionsFile, roadsFile);
+            RoadMap.reSeedRandomizer(22L);
+            RoadMap imported = new RoadMap();
+            assertEquals(1500, imported.importJunctions(junctionsFile));
+            assertEquals(generated.getNumEdges() / 2, imported.importRoads(roadsFile));
+            assertEquals(expected, describe(imported));
+
+            // and so does the graph file, without the randomizer
+            generator.writeGraphFile(graphFile);
+            assertEquals(expected, describe(RoadGraphFile.open(graphFile)));
+            assertEquals(expected, describe(RoadGraphFile.open(graphFile).toRoadMap()));
+
+            // a second generator writes the same graph file
+            byte[] bytes = Files.readAllBytes(graphFile);
+            new RoadNetworkGenerator(1500, 22L).writeGraphFile(graphFile);
+            assertArrayEquals(bytes, Files.readAllBytes(graphFile));
+        } finally {
+            Files.delete(junctionsFile);
+            Files.delete(roadsFile);
+            Files.delete(graphFile);
+        }
+    }
+
+    @Test
+    void checkNetworkIsConnected() {
+        for (int n : new int[] { 1, 2, 3, 10, 399, 401, 1200, 3000 }) {
+            RoadMap roadMap = new RoadNetworkGenerator(n, n).generate();
+            assertEquals(n, roadMap.getNumVertices());
+            assertEquals(1, roadMap.stronglyConnectedComponents().getNumComponents(), "n = " + n);
+            if (n > 1) {
+                // every junction has at least one road, and there are about 3 road segments per junction
+                assertTrue(roadMap.getVertices().stream().noneMatch(j -> j.getEdges().isEmpty()), "n = " + n);
+                assertTrue(roadMap.getNumEdges() >= 2 * (n - 1), "n = " + n);
+                assertTrue(roadMap.getNumEdges() < 4 * n, "n = " + n);
+            }
+        }
+    }
+}
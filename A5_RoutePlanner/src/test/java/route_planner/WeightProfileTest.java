@@ -0,0 +1,179 @@
+package route_planner;
+
+import graphs.DGSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeightProfileTest {
+
+    RoadMap roadMap;
+    Junction a, b, c, d;
+
+    private Junction junction(String name, double x, double y) {
+        Junction junction = new Junction(name);
+        junction.setLocationX(x);
+        junction.setLocationY(y);
+        return this.roadMap.addOrGetVertex(junction);
+    }
+
+    private Road road(Junction from, Junction to, double length, int maxSpeed) {
+        Road road = new Road(from.getName() + "-" + to.getName(), from, to);
+        road.setLength(length);
+        road.setMaxSpeed(maxSpeed);
+        return this.roadMap.addOrGetEdge(road);
+    }
+
+    @BeforeEach
+    void setUp() {
+        this.roadMap = new RoadMap();
+        a = this.junction("A", 0.0, 0.0);
+        b = this.junction("B", 10.0, 0.0);
+        c = this.junction("C", 20.0, 0.0);
+        d = this.junction("D", 10.0, 10.0);
+        this.road(a, b, 10.0, 100);
+        this.road(b, c, 10.0, 100);
+        this.road(a, d, 15.0, 50);
+        this.road(d, c, 15.0, 50);
+    }
+
+    private static void checkCompiled(WeightProfile profile) {
+        DGSnapshot<Junction, Road> snapshot = profile.getSnapshot();
+        double[] weights = profile.getWeights();
+        assertEquals(snapshot.getNumEdges(), weights.length);
+        for (int e = 0; e < weights.length; e++) {
+            assertEquals(profile.getWeightMapper().applyAsDouble(snapshot.getEdge(e)), weights[e]);
+        }
+    }
+
+    @Test
+    void checkCompileAndRecompile() {
+        WeightProfile length = this.roadMap.getWeightProfile(WeightProfile.LENGTH);
+        WeightProfile travelTime = this.roadMap.getWeightProfile(WeightProfile.TRAVEL_TIME);
+        DGSnapshot<Junction, Road> snapshot = length.getSnapshot();
+        double[] weights = length.getWeights();
+        checkCompiled(length);
+        checkCompiled(travelTime);
+        assertSame(snapshot, length.getSnapshot());
+        assertSame(weights, length.getWeights());
+        assertEquals(20.0, this.roadMap.dijkstraShortestPath("A", "C", length).getTotalWeight());
+        assertEquals(0.2, this.roadMap.dijkstraShortestPath("A", "C", travelTime).getTotalWeight(), 1e-12);
+
+        // a new road discards the snapshot, and the profiles are compiled again on their next use
+        this.road(a, c, 12.0, 120);
+        assertNotSame(snapshot, length.getSnapshot());
+        assertNotSame(weights, length.getWeights());
+        assertEquals(5, length.getWeights().length);
+        checkCompiled(length);
+        checkCompiled(travelTime);
+        assertEquals(12.0, this.roadMap.dijkstraShortestPath("A", "C", length).getTotalWeight());
+        assertEquals(12.0, this.roadMap.aStarShortestPath("A", "C", length).getTotalWeight());
+        assertEquals(0.1, this.roadMap.dijkstraShortestPath("A", "C", travelTime).getTotalWeight(), 1e-12);
+
+        // so do added and removed junctions
+        snapshot = length.getSnapshot();
+        this.roadMap.addOrGetVertex(new Junction("E"));
+        this.roadMap.removeUnconnectedVertices();
+        assertNotSame(snapshot, length.getSnapshot());
+        checkCompiled(length);
+    }
+
+    @Test
+    void checkRoadChangedUpdatesOneWeight() {
+        WeightProfile length = this.roadMap.getWeightProfile(WeightProfile.LENGTH);
+        WeightProfile travelTime = this.roadMap.getWeightProfile(WeightProfile.TRAVEL_TIME);
+        DGSnapshot<Junction, Road> snapshot = length.getSnapshot();
+        double[] lengths = length.getWeights();
+        double[] travelTimes = travelTime.getWeights();
+        double[] oldLengths = lengths.clone();
+        double[] oldTravelTimes = travelTimes.clone();
+
+        Road ab = this.roadMap.getVertexById("A").getEdges().stream()
+                .filter(r -> r.getTo() == b).findFirst().get();
+        int e = snapshot.indexOfEdge(ab);
+        ab.setLength(40.0);
+
+        // the weights are replaced by an updated copy, without a new snapshot or compilation
+        // the weights that have been handed out before remain unchanged
+        assertSame(snapshot, length.getSnapshot());
+        assertNotSame(lengths, length.getWeights());
+        assertNotSame(travelTimes, travelTime.getWeights());
+        assertArrayEquals(oldLengths, lengths);
+        assertArrayEquals(oldTravelTimes, travelTimes);
+        lengths = length.getWeights();
+        travelTimes = travelTime.getWeights();
+        for (int i = 0; i < lengths.length; i++) {
+            assertEquals(i == e ? 40.0 : oldLengths[i], lengths[i]);
+            assertEquals(i == e ? 0.4 : oldTravelTimes[i], travelTimes[i], 1e-12);
+        }
+        assertEquals(30.0, this.roadMap.dijkstraShortestPath("A", "C", length).getTotalWeight());
+
+        ab.setMaxSpeed(400);
+        assertSame(lengths, length.getWeights());
+        assertEquals(40.0, length.getWeights()[e]);
+        assertEquals(0.1, travelTime.getWeights()[e], 1e-12);
+        assertEquals(0.2, this.roadMap.dijkstraShortestPath("A", "C", travelTime).getTotalWeight(), 1e-12);
+
+        // roads outside of the map are not weighted
+        Road detached = new Road("detached", a, c);
+        detached.setLength(1.0);
+        assertEquals(-1, snapshot.indexOfEdge(detached));
+        assertArrayEquals(lengths, length.getWeights());
+    }
+
+    @Test
+    void checkRejectedRoadChangeIsNotApplied() {
+        WeightProfile length = this.roadMap.getWeightProfile(WeightProfile.LENGTH);
+        WeightProfile travelTime = this.roadMap.getWeightProfile(WeightProfile.TRAVEL_TIME);
+        double[] lengths = length.getWeights();
+        double[] travelTimes = travelTime.getWeights();
+        List<Road> changed = new ArrayList<>();
+        this.roadMap.addRoadChangeListener(changed::add);
+
+        Road ab = this.roadMap.getVertexById("A").getEdges().stream()
+                .filter(r -> r.getTo() == b).findFirst().get();
+
+        // a negative weight is rejected before the road is changed, and nobody is notified
+        assertThrows(IllegalArgumentException.class, () -> ab.setLength(-1.0));
+        assertEquals(10.0, ab.getLength());
+        assertSame(lengths, length.getWeights());
+        assertSame(travelTimes, travelTime.getWeights());
+        assertTrue(changed.isEmpty());
+
+        // a valid change notifies all profiles and all listeners
+        ab.setLength(12.0);
+        assertEquals(List.of(ab), changed);
+        assertEquals(12.0, length.getWeights()[length.getSnapshot().indexOfEdge(ab)]);
+        assertEquals(0.12, travelTime.getWeights()[travelTime.getSnapshot().indexOfEdge(ab)], 1e-12);
+    }
+
+    @Test
+    void checkInvalidProfilesAreRejected() {
+        // an inverted travel time favours slow and long roads
+        assertThrows(IllegalArgumentException.class,
+                () -> this.roadMap.addWeightProfile("inverted", r -> r.getMaxSpeed() / r.getLength(), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> this.roadMap.addWeightProfile("shorterIsSlower", r -> 100.0 / r.getLength(), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> this.roadMap.addWeightProfile("fasterIsSlower", r -> r.getMaxSpeed() / 100.0, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> this.roadMap.addWeightProfile("negative", r -> -r.getLength(), null));
+        assertNull(this.roadMap.getWeightProfile("inverted"));
+        assertNull(this.roadMap.getWeightProfile("negative"));
+
+        // monotone profiles are accepted, including constant ones
+        WeightProfile hops = this.roadMap.addWeightProfile("hops", r -> 1.0, null);
+        assertEquals(2.0, this.roadMap.dijkstraShortestPath("A", "C", hops).getTotalWeight());
+        assertSame(hops, this.roadMap.getWeightProfile("hops"));
+        assertThrows(IllegalArgumentException.class,
+                () -> this.roadMap.addWeightProfile("hops", r -> 2.0, null));
+
+        // profiles of another map cannot be used
+        WeightProfile other = new RoadMap().getWeightProfile(WeightProfile.LENGTH);
+        assertThrows(IllegalArgumentException.class, () -> this.roadMap.dijkstraShortestPath("A", "C", other));
+    }
+}